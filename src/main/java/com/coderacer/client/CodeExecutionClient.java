@@ -1,15 +1,27 @@
 package com.coderacer.client;
 
+import com.coderacer.dto.BatchExecutionResultDTO;
 import com.coderacer.dto.ExecutionResultDTO;
+import com.coderacer.enums.InputProtocol;
+import com.coderacer.enums.OutputComparator;
+import com.coderacer.exception.CodeExecutionBusyException;
 import com.coderacer.exception.CodeExecutionClientException;
+import com.coderacer.model.Account;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.ConnectException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,11 +33,19 @@ import java.util.Map;
 @RequiredArgsConstructor
 @Slf4j
 public class CodeExecutionClient {
+    /** Tells the runner whom a submission is for, so it can queue users fairly */
+    private static final String USER_HEADER = "X-Coderacer-User";
 
     private final RestTemplate restTemplate;
+    private final RunnerBalancer runnerBalancer;
 
-    @Value("${code-execution.service.base-url}")
-    private String codeExecutionServiceUrl;
+    /**
+     * Output the runner checks as it is produced, so that it can stop the program at the first wrong line.
+     *
+     * @param expected  one entry per non-blank output line
+     * @param tolerance for the NUMERIC comparator
+     */
+    public record Expectation(List<String> expected, OutputComparator comparator, double tolerance) {}
 
     /**
      * Calls the code execution microservice to compile and run code
@@ -35,30 +55,65 @@ public class CodeExecutionClient {
      * @return ExecutionResult containing output, errors, and execution info
      */
     public ExecutionResultDTO executeCode(String code, List<Integer> inputToPass) {
+        return executeCode(code, inputToPass, InputProtocol.TEXT);
+    }
+
+    /**
+     * Calls the code execution microservice to compile and run code, feeding the input in the given protocol
+     *
+     * @param code          The source code to execute
+     * @param inputToPass   The parameter list in the form of a string
+     * @param inputProtocol How the runner encodes the input on the program's stdin
+     * @return ExecutionResult containing output, errors, and execution info
+     */
+    public ExecutionResultDTO executeCode(String code, List<Integer> inputToPass, InputProtocol inputProtocol) {
+        return executeCode(code, inputToPass, inputProtocol, null);
+    }
+
+    /**
+     * Calls the code execution microservice to compile and run code, stopping the program at the first
+     * output line that doesn't meet the expectation; the result is then OUTPUT_MISMATCH
+     *
+     * @param code          The source code to execute
+     * @param inputToPass   The parameter list in the form of a string
+     * @param inputProtocol How the runner encodes the input on the program's stdin
+     * @param expectation   Output to check, null to run the program to the end unchecked
+     * @return ExecutionResult containing output, errors, and execution info
+     */
+    public ExecutionResultDTO executeCode(String code, List<Integer> inputToPass, InputProtocol inputProtocol,
+                                          Expectation expectation) {
         try {
-            String url = codeExecutionServiceUrl + "/api/code/execute";
+            String path = "/api/code/execute";
 
             // Set headers
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
+            String user = currentUsername();
+            if (user != null) headers.set(USER_HEADER, user);
 
             Map<String, Object> payload = new HashMap<>();
             payload.put("code", code);
             payload.put("inputData", inputToPass);
+            if (inputProtocol != null && inputProtocol != InputProtocol.TEXT) payload.put("inputProtocol", inputProtocol);
+            if (expectation != null) {
+                payload.put("expectedOutput", expectation.expected());
+                payload.put("stopOnFirstMismatch", true);
+                payload.put("comparator", expectation.comparator());
+                payload.put("tolerance", expectation.tolerance());
+            }
 
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
 
             // Make the call
-            log.debug("Calling code execution service at: {}", url);
-            ResponseEntity<ExecutionResultDTO> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    request,
-                    ExecutionResultDTO.class
-            );
+            log.debug("Calling code execution service at: {}", path);
+            ResponseEntity<ExecutionResultDTO> response = post(path, request, ExecutionResultDTO.class);
 
             return response.getBody();
 
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            log.warn("Code execution service is saturated: {}", e.getMessage());
+            throw new CodeExecutionBusyException("Code execution service is busy, try again later",
+                    retryAfter(e), e);
         } catch (RestClientException e) {
             log.error("Error calling code execution service: {}", e.getMessage());
             throw new CodeExecutionClientException("Unexpected error during code execution", e);
@@ -67,4 +122,96 @@ public class CodeExecutionClient {
             throw new CodeExecutionClientException("Unexpected error during code execution", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Calls the code execution microservice to compile the code once and run it against
+     * several independent input sets
+     *
+     * @param code   The source code to execute
+     * @param inputs One parameter list per test case
+     * @return BatchExecutionResult with the compile outcome and one result per input set, in order
+     */
+    public BatchExecutionResultDTO executeBatch(String code, List<List<Integer>> inputs) {
+        try {
+            String path = "/api/code/execute-batch";
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            String user = currentUsername();
+            if (user != null) headers.set(USER_HEADER, user);
+
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("code", code);
+            payload.put("inputs", inputs);
+
+            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
+
+            log.debug("Calling code execution service at: {} with {} input sets", path, inputs.size());
+            ResponseEntity<BatchExecutionResultDTO> response = post(path, request, BatchExecutionResultDTO.class);
+
+            return response.getBody();
+
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            log.warn("Code execution service is saturated: {}", e.getMessage());
+            throw new CodeExecutionBusyException("Code execution service is busy, try again later",
+                    retryAfter(e), e);
+        } catch (RestClientException e) {
+            log.error("Error calling code execution service: {}", e.getMessage());
+            throw new CodeExecutionClientException("Unexpected error during batch code execution", e);
+        } catch (Exception e) {
+            log.error("Unexpected error during batch code execution: {}", e.getMessage());
+            throw new CodeExecutionClientException("Unexpected error during batch code execution", e);
+        }
+    }
+
+    /**
+     * Posts to the least loaded available runner. A runner that can't be connected to, or that answers 429,
+     * is passed over for the next one; the call fails once every runner was tried.
+     */
+    private <T> ResponseEntity<T> post(String path, HttpEntity<?> request, Class<T> responseType) {
+        List<RunnerBalancer.Runner> tried = new ArrayList<>();
+        RestClientException lastError = null;
+        RunnerBalancer.Call call;
+        while ((call = runnerBalancer.acquire(tried)) != null) {
+            RunnerBalancer.Runner runner = call.getRunner();
+            tried.add(runner);
+            boolean failed = false;
+            try {
+                return restTemplate.exchange(runner.getUrl() + path, HttpMethod.POST, request, responseType);
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                log.debug("Runner {} is saturated", runner.getUrl());
+                lastError = e;
+            } catch (ResourceAccessException e) {
+                failed = true;
+                // the request never reached this runner, so another one can take it
+                if (!(e.getCause() instanceof ConnectException || e.getCause() instanceof ConnectTimeoutException)) throw e;
+                log.warn("Runner {} is unreachable: {}", runner.getUrl(), e.getMessage());
+                lastError = e;
+            } catch (HttpServerErrorException e) {
+                failed = true;
+                throw e;
+            } finally {
+                call.release(failed);
+            }
+        }
+        if (lastError != null) throw lastError;
+        throw new ResourceAccessException("No code execution service instance is available");
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof Account account) {
+            return account.getUsername();
+        }
+        return null;
+    }
+
+    private static long retryAfter(HttpClientErrorException e) {
+        String header = e.getResponseHeaders() != null ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) : null;
+        try {
+            return header != null ? Long.parseLong(header.trim()) : 1;
+        } catch (NumberFormatException ex) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.coderacer.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads calls over the runner instances listed in code-execution.service.base-url (comma-separated).
+ *
+ * Each call goes to the available runner with the fewest calls in flight. A runner stops being available
+ * in two ways:
+ * - ejected by the health check, which polls its /api/code/status and takes it out after unhealthy-threshold
+ *   failed checks in a row, putting it back after healthy-threshold successful ones;
+ * - its circuit breaker opens after failure-threshold failed calls in a row, and stays open for open-duration;
+ *   then a single trial call is let through, which closes the circuit again or re-opens it. While the circuit
+ *   is not closed only the trial's result counts, and calls started before it opened are ignored when they end.
+ *
+ * Per runner, calls in flight, availability and circuit openings are exported as coderacer.runner.outstanding,
+ * coderacer.runner.available and coderacer.runner.circuit.opened, tagged with its URL.
+ */
+@Component
+@Slf4j
+public class RunnerBalancer {
+
+    public enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private final List<Runner> runners = new ArrayList<>();
+    private final AtomicInteger rotation = new AtomicInteger();
+    private final RestTemplate healthCheck;
+
+    @Value("${code-execution.balancer.failure-threshold:5}")
+    private int failureThreshold = 5;
+    @Value("${code-execution.balancer.open-duration:PT30S}")
+    private Duration openDuration = Duration.ofSeconds(30);
+    @Value("${code-execution.balancer.unhealthy-threshold:2}")
+    private int unhealthyThreshold = 2;
+    @Value("${code-execution.balancer.healthy-threshold:2}")
+    private int healthyThreshold = 2;
+
+    public RunnerBalancer(@Value("${code-execution.service.base-url}") List<String> baseUrls,
+                          @Value("${code-execution.balancer.health-timeout:PT1S}") Duration healthTimeout,
+                          MeterRegistry registry) {
+        for (String baseUrl : baseUrls) {
+            String url = baseUrl.trim().replaceAll("/+$", "");
+            if (url.isEmpty()) continue;
+            Runner runner = new Runner(url, registry.counter("coderacer.runner.circuit.opened", "runner", url));
+            Gauge.builder("coderacer.runner.outstanding", runner.outstanding, AtomicInteger::get)
+                    .tag("runner", url).register(registry);
+            Gauge.builder("coderacer.runner.available", runner, r -> r.isAvailable() ? 1 : 0)
+                    .tag("runner", url).register(registry);
+            runners.add(runner);
+        }
+        if (runners.isEmpty()) throw new IllegalArgumentException("code-execution.service.base-url lists no runner");
+
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(healthTimeout);
+        factory.setReadTimeout(healthTimeout);
+        healthCheck = new RestTemplate(factory);
+    }
+
+    /**
+     * Picks the available runner with the fewest calls in flight, ties going round-robin, and counts the
+     * call against it. The caller must {@link Call#release} it.
+     *
+     * @param excluded runners already tried for this call
+     * @return the call, or null when no runner is available
+     */
+    public Call acquire(Collection<Runner> excluded) {
+        int start = Math.floorMod(rotation.getAndIncrement(), runners.size());
+        List<Runner> candidates = new ArrayList<>(runners.size());
+        for (int i = 0; i < runners.size(); i++) {
+            Runner runner = runners.get((start + i) % runners.size());
+            if (!excluded.contains(runner)) candidates.add(runner);
+        }
+        // stable sort: equally loaded runners keep their rotated order
+        candidates.sort(Comparator.comparingInt(runner -> runner.outstanding.get()));
+        for (Runner runner : candidates) {
+            Call call = runner.tryAcquire();
+            if (call != null) return call;
+        }
+        return null;
+    }
+
+    /**
+     * Checks every runner's status endpoint, ejecting and readmitting runners as they fail and recover.
+     */
+    @Scheduled(fixedDelayString = "${code-execution.balancer.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (Runner runner : runners) {
+            boolean up;
+            try {
+                up = healthCheck.getForEntity(runner.url + "/api/code/status", String.class).getStatusCode().is2xxSuccessful();
+            } catch (RestClientException e) {
+                up = false;
+            }
+            runner.onHealthCheck(up);
+        }
+    }
+
+    public List<Runner> getRunners() {
+        return List.copyOf(runners);
+    }
+
+    /**
+     * One call to a runner, from {@link #acquire} until {@link #release}.
+     */
+    public static final class Call {
+        private final Runner runner;
+        private final long epoch;
+        private final boolean trial;
+
+        private Call(Runner runner, long epoch, boolean trial) {
+            this.runner = runner;
+            this.epoch = epoch;
+            this.trial = trial;
+        }
+
+        public Runner getRunner() {
+            return runner;
+        }
+
+        /**
+         * @return whether this is the half-open circuit's trial call, the only one whose result moves it
+         */
+        public boolean isTrial() {
+            return trial;
+        }
+
+        /**
+         * Ends the call.
+         *
+         * @param failed whether the runner failed it (unreachable, timed out, server error); a 429 is
+         *               the runner working as intended and doesn't count
+         */
+        public void release(boolean failed) {
+            runner.release(this, failed);
+        }
+    }
+
+    /**
+     * One runner instance, with its load, health and circuit breaker.
+     */
+    public class Runner {
+        private final String url;
+        private final Counter circuitOpened;
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private volatile boolean healthy = true;
+        private int healthStreak;
+
+        private CircuitState circuit = CircuitState.CLOSED;
+        private int consecutiveFailures;
+        private long openUntilNanos;
+        private boolean trialInFlight;
+        /** Bumped each time the circuit opens, so results of calls started before then can be told apart */
+        private long epoch;
+
+        private Runner(String url, Counter circuitOpened) {
+            this.url = url;
+            this.circuitOpened = circuitOpened;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public synchronized CircuitState getCircuitState() {
+            return circuit;
+        }
+
+        private void release(Call call, boolean failed) {
+            outstanding.decrementAndGet();
+            synchronized (this) {
+                if (call.trial) {
+                    trialInFlight = false;
+                } else if (call.epoch != epoch || circuit != CircuitState.CLOSED) {
+                    return;
+                }
+                if (!failed) {
+                    consecutiveFailures = 0;
+                    circuit = CircuitState.CLOSED;
+                    return;
+                }
+                consecutiveFailures++;
+                if (call.trial || consecutiveFailures >= failureThreshold) {
+                    log.warn("Opening circuit to runner {} after {} failed calls", url, consecutiveFailures);
+                    circuitOpened.increment();
+                    circuit = CircuitState.OPEN;
+                    openUntilNanos = System.nanoTime() + openDuration.toNanos();
+                    epoch++;
+                }
+            }
+        }
+
+        private boolean isAvailable() {
+            if (!healthy) return false;
+            synchronized (this) {
+                return circuit == CircuitState.CLOSED
+                        || circuit == CircuitState.OPEN && System.nanoTime() - openUntilNanos >= 0
+                        || circuit == CircuitState.HALF_OPEN && !trialInFlight;
+            }
+        }
+
+        private synchronized Call tryAcquire() {
+            if (!isAvailable()) return null;
+            boolean trial = circuit != CircuitState.CLOSED;
+            if (trial) {
+                circuit = CircuitState.HALF_OPEN;
+                trialInFlight = true;
+            }
+            outstanding.incrementAndGet();
+            return new Call(this, epoch, trial);
+        }
+
+        private synchronized void onHealthCheck(boolean up) {
+            healthStreak = up == healthy ? 0 : healthStreak + 1;
+            if (healthStreak >= (healthy ? unhealthyThreshold : healthyThreshold)) {
+                healthy = up;
+                healthStreak = 0;
+                if (up) {
+                    log.info("Runner {} is healthy again", url);
+                } else {
+                    log.warn("Ejecting runner {}: health check failing", url);
+                }
+            }
+        }
+    }
+}
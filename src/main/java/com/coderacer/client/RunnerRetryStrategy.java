@@ -0,0 +1,59 @@
+package com.coderacer.client;
+
+import io.micrometer.core.instrument.Counter;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+
+/**
+ * Retry policy for calls to the code execution service.
+ *
+ * Idempotent requests are retried on I/O failures as usual. Submissions are POSTs, which are retried only
+ * when the connection could not be established at all (refused, or connect timeout): the request never
+ * reached a runner, so it cannot have been executed twice. A failure after the request was sent, or an
+ * error response, is left to the caller; a 429 in particular carries its own Retry-After.
+ */
+public class RunnerRetryStrategy extends DefaultHttpRequestRetryStrategy {
+
+    private final int maxRetries;
+    private final TimeValue retryInterval;
+    private final Counter retries;
+
+    /**
+     * @param retryInterval pause before a retry, so a runner that is restarting gets a moment to come back
+     */
+    public RunnerRetryStrategy(int maxRetries, TimeValue retryInterval, Counter retries) {
+        super(maxRetries, retryInterval);
+        this.maxRetries = maxRetries;
+        this.retryInterval = retryInterval;
+        this.retries = retries;
+    }
+
+    @Override
+    public boolean retryRequest(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+        boolean retry = execCount <= maxRetries && isNotSent(exception)
+                || super.retryRequest(request, exception, execCount, context);
+        if (retry) retries.increment();
+        return retry;
+    }
+
+    @Override
+    public TimeValue getRetryInterval(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+        return retryInterval;
+    }
+
+    @Override
+    public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+        return false;
+    }
+
+    private static boolean isNotSent(IOException exception) {
+        return exception instanceof ConnectException || exception instanceof ConnectTimeoutException;
+    }
+}
@@ -1,14 +1,86 @@
 package com.coderacer.config;
 
+import com.coderacer.client.RunnerRetryStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * Kept-alive connections to the code execution service, so a submission reuses an open connection
+     * instead of paying a TCP handshake per call. Pool usage is exported as httpcomponents.httpclient.pool.*
+     * meters tagged httpclient=code-execution. Connections are re-checked after two seconds of inactivity.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager codeExecutionConnectionManager(
+            MeterRegistry registry,
+            @Value("${code-execution.http.max-connections:200}") int maxConnections,
+            @Value("${code-execution.http.max-connections-per-route:200}") int maxConnectionsPerRoute,
+            @Value("${code-execution.http.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${code-execution.http.read-timeout:PT60S}") Duration readTimeout) {
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(manager, "code-execution").bindTo(registry);
+        return manager;
+    }
+
+    /**
+     * HTTP client for the code execution service. The read timeout bounds how long a submission can
+     * hold a thread when a runner hangs; it has to cover the runner's own queueing and deadlines
+     * (code.execution.scheduler.max-wait-ms plus the compile and run wall-clock limits). A thread that
+     * can't get a pooled connection within pool-timeout fails instead of queueing behind a stuck runner.
+     *
+     * Connections idle for longer than keep-alive are closed before the runner's own idle timeout
+     * (Tomcat's default is 20s) can close them under us.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient codeExecutionHttpClient(
+            PoolingHttpClientConnectionManager codeExecutionConnectionManager,
+            MeterRegistry registry,
+            @Value("${code-execution.http.read-timeout:PT60S}") Duration readTimeout,
+            @Value("${code-execution.http.pool-timeout:PT5S}") Duration poolTimeout,
+            @Value("${code-execution.http.keep-alive:PT15S}") Duration keepAlive,
+            @Value("${code-execution.http.max-retries:2}") int maxRetries,
+            @Value("${code-execution.http.retry-interval:PT0.2S}") Duration retryInterval) {
+        return HttpClients.custom()
+                .setConnectionManager(codeExecutionConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .setRetryStrategy(new RunnerRetryStrategy(maxRetries, TimeValue.of(retryInterval),
+                        registry.counter("coderacer.runner.http.retries")))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient codeExecutionHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(codeExecutionHttpClient));
     }
 }
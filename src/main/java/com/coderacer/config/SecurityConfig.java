@@ -45,6 +45,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.DELETE, "/api/levels/**").authenticated()
                         .requestMatchers("/api/v1/level-sessions/**").authenticated()
                         .requestMatchers("/api/test/**").permitAll()
+                        .requestMatchers("/api/submissions/**").authenticated()
                         .anyRequest().permitAll()
                 )
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
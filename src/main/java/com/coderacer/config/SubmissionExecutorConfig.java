@@ -0,0 +1,46 @@
+package com.coderacer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
+
+@Configuration
+public class SubmissionExecutorConfig {
+
+    /**
+     * Threads that wait on the code execution service for asynchronous submissions,
+     * so HTTP request threads are released as soon as a submission is accepted.
+     * The submitter's security context is carried over to the worker thread.
+     *
+     * With spring.threads.virtual.enabled (Java 21+) every accepted submission gets its own virtual
+     * thread instead of queueing for one of the pool's threads: waiting on the runner then costs no
+     * platform thread, and the runner's own admission control does the queueing. Submissions beyond
+     * threads + queue-capacity are still turned away.
+     */
+    @Bean
+    public AsyncTaskExecutor submissionExecutor(
+            Environment environment,
+            @Value("${submissions.executor.threads:8}") int threads,
+            @Value("${submissions.executor.queue-capacity:200}") int queueCapacity) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("submission-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(threads + queueCapacity);
+            executor.setRejectTasksWhenLimitReached(true);
+            return new DelegatingSecurityContextAsyncTaskExecutor(executor);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("submission-");
+        executor.initialize();
+        return new DelegatingSecurityContextAsyncTaskExecutor(executor);
+    }
+}
@@ -2,8 +2,10 @@ package com.coderacer.controller;
 
 import com.coderacer.dto.CodingProblemDTO;
 import com.coderacer.dto.CodingProblemRequestDTO;
+import com.coderacer.dto.CursorPageDTO;
 import com.coderacer.enums.Difficulty;
 import com.coderacer.service.CodingProblemService;
+import com.coderacer.service.PageCursor;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -45,6 +47,18 @@ public class CodingProblemController {
         return ResponseEntity.ok(problems);
     }
 
+    /**
+     * Keyset pages of all problems by title: pass the nextCursor of a page to get the one after it
+     */
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageDTO<CodingProblemDTO>> scrollProblems(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = PageCursor.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResponseEntity.ok(codingProblemService.getProblemsPage(cursor, limit, withTotal));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("permitAll()")
     public ResponseEntity<CodingProblemDTO> getProblemById(@PathVariable UUID id) {
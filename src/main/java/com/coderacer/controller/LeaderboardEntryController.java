@@ -1,16 +1,24 @@
 package com.coderacer.controller;
 
+import com.coderacer.dto.CursorPageDTO;
+import com.coderacer.dto.LeaderboardAroundDTO;
 import com.coderacer.dto.LeaderboardEntryDTO;
 import com.coderacer.service.LeaderboardEntryService;
+import com.coderacer.service.LeaderboardIndex;
+import com.coderacer.service.PageCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -21,10 +29,19 @@ public class LeaderboardEntryController {
 
     private final LeaderboardEntryService leaderboardService;
 
+    /**
+     * The top 10, with an ETag and Last-Modified so browsers and CDNs can revalidate and get a 304
+     */
     @GetMapping("/top")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<List<LeaderboardEntryDTO>> getTop10() {
-        return ResponseEntity.ok(leaderboardService.getTop10());
+    public ResponseEntity<List<LeaderboardEntryDTO>> getTop10(WebRequest request) {
+        LeaderboardIndex.TopSnapshot top = leaderboardService.getTop10Snapshot();
+        boolean notModified = request.checkNotModified(top.etag(), top.lastModified().toEpochMilli());
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .eTag(top.etag())
+                .lastModified(top.lastModified());
+        return notModified ? response.build() : response.body(top.entries());
     }
 
     @GetMapping
@@ -33,9 +50,31 @@ public class LeaderboardEntryController {
         return ResponseEntity.ok(leaderboardService.getLeaderboard(pageable));
     }
 
+    /**
+     * Keyset pages of the leaderboard: pass the nextCursor of a page to get the one after it
+     */
+    @GetMapping("/scroll")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<CursorPageDTO<LeaderboardEntryDTO>> scrollLeaderboard(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = PageCursor.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResponseEntity.ok(leaderboardService.getLeaderboardPage(cursor, limit, withTotal));
+    }
+
     @GetMapping("/{username}")
     @PreAuthorize("permitAll()")
     public ResponseEntity<LeaderboardEntryDTO> getByUsername(@PathVariable String username) {
         return ResponseEntity.ok(leaderboardService.getByUsername(username));
     }
+
+    /**
+     * The user's rank and percentile, with the radius players ranked right above and below (at most 50)
+     */
+    @GetMapping("/{username}/around")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<LeaderboardAroundDTO> getAround(@PathVariable String username,
+                                                          @RequestParam(defaultValue = "5") int radius) {
+        return ResponseEntity.ok(leaderboardService.getAround(username, radius));
+    }
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 package com.coderacer.controller;
 
+import com.coderacer.dto.CursorPageDTO;
 import com.coderacer.dto.LevelSessionDTO;
 import com.coderacer.model.Account;
 import com.coderacer.model.LevelSession;
 import com.coderacer.service.AccountService;
 import com.coderacer.service.LevelSessionService;
+import com.coderacer.service.PageCursor;
 import com.coderacer.dto.LevelSessionCreateDto;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -93,6 +95,26 @@ public class LevelSessionController {
         return new ResponseEntity<>(dtos, HttpStatus.OK);
     }
 
+    /**
+     * Retrieves an account's LevelSessions a page at a time, newest first.
+     *
+     * @param accountId The UUID of the account.
+     * @param cursor The nextCursor of the previous page; omitted for the first page.
+     * @param limit The maximum number of sessions on the page (at most 100).
+     * @param withTotal Whether to count all the account's sessions as well.
+     * @return ResponseEntity with the page and HTTP status 200 (OK).
+     */
+    @PreAuthorize("hasRole('ADMIN') or #accountId == principal.id")
+    @GetMapping("/by-account/{accountId}/scroll")
+    public ResponseEntity<CursorPageDTO<LevelSessionDTO>> scrollLevelSessionsByAccount(
+            @PathVariable UUID accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = PageCursor.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return new ResponseEntity<>(levelSessionService.getLevelSessionsPage(accountId, cursor, limit, withTotal),
+                HttpStatus.OK);
+    }
+
     /**
      * Retrieves all LevelSessions for a specific level.
      *
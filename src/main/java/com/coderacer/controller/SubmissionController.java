@@ -0,0 +1,54 @@
+package com.coderacer.controller;
+
+import com.coderacer.dto.SubmissionDTO;
+import com.coderacer.service.SubmissionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Asynchronous counterpart of {@link TestingController}: submitting returns a submission ID at once,
+ * the result is then polled or streamed.
+ */
+@RestController
+@RequestMapping("/api/submissions")
+@RequiredArgsConstructor
+public class SubmissionController {
+
+    private final SubmissionService submissionService;
+
+    /**
+     * Queues code for testing against a problem.
+     *
+     * @return 202 Accepted with the queued submission; its Location is the polling URL
+     */
+    @PostMapping("/problem/{problemId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<SubmissionDTO> submit(@PathVariable UUID problemId, @RequestBody String code) {
+        SubmissionDTO submission = submissionService.submit(problemId, code);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/submissions/" + submission.getId()))
+                .body(submission);
+    }
+
+    @GetMapping("/{submissionId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public ResponseEntity<SubmissionDTO> getSubmission(@PathVariable UUID submissionId) {
+        return ResponseEntity.ok(submissionService.getSubmission(submissionId));
+    }
+
+    /**
+     * Streams the submission's progress as Server-Sent Events ("status", "test-case", "result").
+     */
+    @GetMapping(value = "/{submissionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public SseEmitter streamSubmission(@PathVariable UUID submissionId) {
+        return submissionService.subscribe(submissionId);
+    }
+}
@@ -0,0 +1,25 @@
+package com.coderacer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchExecutionResultDTO {
+
+    /** SUCCESS once the code compiled; the outcome of each run is in {@link #cases} */
+    private ExecutionResultDTO.Result result;
+
+    /** Compiler diagnostics, or an error message when the batch could not be run */
+    private List<String> outputLines;
+
+    /** Time spent compiling the submission (once for the whole batch), in milliseconds */
+    private long compileTimeMillis;
+
+    /** One entry per input set, in request order */
+    private List<TestCaseResultDTO> cases;
+}
@@ -1,6 +1,8 @@
 package com.coderacer.dto;
 
 import com.coderacer.enums.Difficulty;
+import com.coderacer.enums.InputProtocol;
+import com.coderacer.enums.OutputComparator;
 import com.coderacer.model.CodingProblem;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -24,6 +26,10 @@ public class CodingProblemDTO {
     private List<String> exampleOutputs;
     private List<Integer> inputs;
     private List<Integer> outputs;
+    private InputProtocol inputProtocol;
+    private OutputComparator comparator;
+    private double tolerance;
+    private boolean failFast;
 
     public static CodingProblemDTO fromEntity(CodingProblem entity) {
         if (entity == null) return null;
@@ -36,7 +42,11 @@ public class CodingProblemDTO {
                 entity.getExampleInputs() != null ? new ArrayList<>(entity.getExampleInputs()) : new ArrayList<>(),
                 entity.getExampleOutputs() != null ? new ArrayList<>(entity.getExampleOutputs()) : new ArrayList<>(),
                 entity.getInputs() != null ? new ArrayList<>(entity.getInputs()) : new ArrayList<>(),
-                entity.getOutputs() != null ? new ArrayList<>(entity.getOutputs()) : new ArrayList<>()
+                entity.getOutputs() != null ? new ArrayList<>(entity.getOutputs()) : new ArrayList<>(),
+                entity.getInputProtocol() != null ? entity.getInputProtocol() : InputProtocol.TEXT,
+                entity.getComparator() != null ? entity.getComparator() : OutputComparator.NUMERIC,
+                entity.getTolerance() != null ? entity.getTolerance() : 0,
+                Boolean.TRUE.equals(entity.getFailFast())
         );
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.coderacer.dto;
 
 import com.coderacer.enums.Difficulty;
+import com.coderacer.enums.InputProtocol;
+import com.coderacer.enums.OutputComparator;
 import com.coderacer.model.CodingProblem;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -37,6 +39,18 @@ public class CodingProblemRequestDTO {
     private List<@NotNull Integer> inputs;
     private List<@NotNull Integer> outputs;
 
+    /** TEXT when not given; BINARY for problems whose inputs are too large to parse as text in time */
+    private InputProtocol inputProtocol;
+
+    /** NUMERIC when not given: outputs are parsed as numbers and compared within the tolerance */
+    private OutputComparator comparator;
+
+    @PositiveOrZero(message = "Tolerance cannot be negative")
+    private Double tolerance;
+
+    /** Stop at the first wrong answer instead of running every test case; false when not given */
+    private Boolean failFast;
+
     public CodingProblem toEntity() {
         CodingProblem entity = new CodingProblem();
         entity.setTitle(this.title);
@@ -46,6 +60,10 @@ public class CodingProblemRequestDTO {
         entity.setExampleOutputs(this.exampleOutputs != null ? new ArrayList<>(this.exampleOutputs) : new ArrayList<>());
         entity.setInputs(this.inputs != null ? new ArrayList<>(this.inputs) : new ArrayList<>());
         entity.setOutputs(this.outputs != null ? new ArrayList<>(this.outputs) : new ArrayList<>());
+        entity.setInputProtocol(this.inputProtocol != null ? this.inputProtocol : InputProtocol.TEXT);
+        entity.setComparator(this.comparator != null ? this.comparator : OutputComparator.NUMERIC);
+        entity.setTolerance(this.tolerance != null ? this.tolerance : 0.0);
+        entity.setFailFast(Boolean.TRUE.equals(this.failFast));
         return entity;
     }
 
@@ -57,5 +75,9 @@ public class CodingProblemRequestDTO {
         if (this.exampleOutputs != null) entity.setExampleOutputs(new ArrayList<>(this.exampleOutputs));
         if (this.inputs != null) entity.setInputs(new ArrayList<>(this.inputs));
         if (this.outputs != null) entity.setOutputs(new ArrayList<>(this.outputs));
+        if (this.inputProtocol != null) entity.setInputProtocol(this.inputProtocol);
+        if (this.comparator != null) entity.setComparator(this.comparator);
+        if (this.tolerance != null) entity.setTolerance(this.tolerance);
+        if (this.failFast != null) entity.setFailFast(this.failFast);
     }
 }
\ No newline at end of file
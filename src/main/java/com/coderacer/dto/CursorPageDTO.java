@@ -0,0 +1,12 @@
+package com.coderacer.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * @param nextCursor pass back as cursor for the following page; null on the last page
+ * @param total      number of items in the whole listing, only counted when asked for
+ */
+public record CursorPageDTO<T>(List<T> items, String nextCursor, Long total) {
+}
@@ -17,7 +17,8 @@ public class ExecutionResultDTO {
         OUTPUT_MISMATCH,
         COMPILATION_ERROR,
         RUNTIME_ERROR,
-        TIMEOUT
+        TIMEOUT,
+        OUTPUT_LIMIT_EXCEEDED
     }
 
     /** UUID of the run */
@@ -31,4 +32,16 @@ public class ExecutionResultDTO {
      * Compare this against CodeSubmission.expectedOutputs.
      */
     private List<String> outputLines;
+
+    /** Time spent compiling the submission, in milliseconds */
+    private long compileTimeMillis;
+
+    /** Wall-clock time of the run (not the compile), in milliseconds */
+    private long wallTimeMillis;
+
+    /** CPU time the run used, in milliseconds; 0 when it could not be measured */
+    private long cpuTimeMillis;
+
+    /** Peak resident memory of the run in KiB; 0 when it could not be measured */
+    private long peakMemoryKb;
 }
\ No newline at end of file
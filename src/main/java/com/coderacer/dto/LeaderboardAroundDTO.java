@@ -0,0 +1,22 @@
+package com.coderacer.dto;
+
+import java.util.List;
+
+/**
+ * A player's position on the leaderboard with the players ranked right above and below.
+ *
+ * @param rank         position from 1
+ * @param percentile   share of players ranked below, in percent
+ * @param totalPlayers number of ranked players
+ * @param above        up to radius players ranked above, best first
+ * @param below        up to radius players ranked below, best first
+ */
+public record LeaderboardAroundDTO(
+        LeaderboardEntryDTO player,
+        long rank,
+        double percentile,
+        long totalPlayers,
+        List<LeaderboardEntryDTO> above,
+        List<LeaderboardEntryDTO> below
+) {
+}
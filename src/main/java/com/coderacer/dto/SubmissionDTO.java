@@ -0,0 +1,27 @@
+package com.coderacer.dto;
+
+import com.coderacer.enums.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionDTO {
+    private UUID id;
+    private UUID problemId;
+    private SubmissionStatus status;
+
+    /** Present once the status is COMPLETED */
+    private TestResultDTO result;
+
+    /** Present when the status is FAILED */
+    private String errorMessage;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,19 @@
+package com.coderacer.dto;
+
+import com.coderacer.enums.TestCaseVerdict;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseProgressDTO {
+    /** Position of the test case in the problem's outputs, from 0 */
+    private int index;
+    private Integer expectedOutput;
+    /** Output line produced for this case, null if the program printed fewer lines */
+    private String actualOutput;
+    private boolean passed;
+    private TestCaseVerdict verdict;
+}
@@ -0,0 +1,18 @@
+package com.coderacer.dto;
+
+import com.coderacer.enums.TestCaseVerdict;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseVerdictDTO {
+    /** Position of the test case in the problem's outputs, from 0 */
+    private int index;
+    private TestCaseVerdict verdict;
+    private Integer expectedOutput;
+    /** Output line judged against this case, null if there was none */
+    private String actualOutput;
+}
@@ -22,4 +22,17 @@ public class TestResultDTO {
     private List<String> actualOutput;
     private List<Integer> expectedOutput;
     private String errorMessage;
+
+    /** Verdict of every test case when the run completed, empty when it did not */
+    private List<TestCaseVerdictDTO> testCases;
+    /** Index of the first failed test case, null if none failed or the failure is an extra output line */
+    private Integer firstFailedTest;
+    /** What went wrong first, e.g. "Test case 3: expected 5, got '7'"; null when all passed */
+    private String firstFailure;
+
+    /** Resource usage of the run, as measured by the runner; 0 when unknown */
+    private long compileTimeMillis;
+    private long wallTimeMillis;
+    private long cpuTimeMillis;
+    private long peakMemoryKb;
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.coderacer.enums;
+
+/**
+ * How a problem's inputs are fed to a submission's generated harness on the runner.
+ */
+public enum InputProtocol {
+    /** Decimal text read with a buffered tokenizer; fine for most problems */
+    TEXT,
+    /** Length-prefixed big-endian ints, nothing to parse; for problems with very large inputs */
+    BINARY
+}
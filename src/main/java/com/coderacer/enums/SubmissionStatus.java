@@ -0,0 +1,12 @@
+package com.coderacer.enums;
+
+public enum SubmissionStatus {
+    /** Accepted, waiting for a free submission thread */
+    QUEUED,
+    /** Sent to the code execution service, which compiles and then runs it */
+    RUNNING,
+    /** Test result is available */
+    COMPLETED,
+    /** Could not be tested, e.g. the problem is gone or the execution service failed */
+    FAILED
+}
@@ -0,0 +1,13 @@
+package com.coderacer.enums;
+
+/**
+ * Outcome of one test case of a run that completed.
+ */
+public enum TestCaseVerdict {
+    ACCEPTED,
+    WRONG_ANSWER,
+    /** The program printed fewer lines than there are test cases */
+    MISSING_OUTPUT,
+    /** Not judged: fail-fast judging stopped at an earlier wrong answer */
+    SKIPPED
+}
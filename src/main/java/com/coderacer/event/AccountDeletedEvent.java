@@ -0,0 +1,9 @@
+package com.coderacer.event;
+
+import java.util.UUID;
+
+/**
+ * Published by AccountService when an account is deleted.
+ */
+public record AccountDeletedEvent(UUID accountId) {
+}
@@ -0,0 +1,10 @@
+package com.coderacer.event;
+
+import java.util.UUID;
+
+/**
+ * Published by AccountService when an account is created or its rating changes; listeners that keep
+ * rankings act on it once the transaction has committed.
+ */
+public record AccountRatingChangedEvent(UUID accountId, String username, int rating) {
+}
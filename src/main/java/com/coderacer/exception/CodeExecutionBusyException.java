@@ -0,0 +1,17 @@
+package com.coderacer.exception;
+
+/**
+ * The code execution service is saturated and asked us to come back later.
+ */
+public class CodeExecutionBusyException extends CodeExecutionClientException {
+    private final long retryAfterSeconds;
+
+    public CodeExecutionBusyException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,14 @@
+package com.coderacer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND)
+public class SubmissionNotFoundException extends RuntimeException {
+
+    public SubmissionNotFoundException(UUID submissionId) {
+        super("Submission not found with ID: " + submissionId);
+    }
+}
@@ -1,6 +1,8 @@
 package com.coderacer.model;
 
 import com.coderacer.enums.Difficulty;
+import com.coderacer.enums.InputProtocol;
+import com.coderacer.enums.OutputComparator;
 import jakarta.persistence.*;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
@@ -58,4 +60,21 @@ public class CodingProblem {
 
     @ElementCollection
     private List<@NotNull Integer> outputs = new ArrayList<>();
+
+    /** Encoding of the inputs on the submission's stdin; null (rows from before it existed) means TEXT */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private InputProtocol inputProtocol = InputProtocol.TEXT;
+
+    /** How output lines are judged against the outputs; null (rows from before it existed) means NUMERIC */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private OutputComparator comparator = OutputComparator.NUMERIC;
+
+    /** For the NUMERIC comparator, the absolute or relative difference still accepted; null means 0 */
+    @PositiveOrZero
+    private Double tolerance = 0.0;
+
+    /** Stop the run and the judging at the first wrong answer; null means false */
+    private Boolean failFast = false;
 }
@@ -10,30 +10,27 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.Check;
-import org.hibernate.annotations.Immutable;
-import org.hibernate.annotations.Subselect;
-import org.hibernate.annotations.Synchronize;
 
 import java.util.UUID;
 
+/**
+ * Leaderboard projection of the accounts table, kept up to date by LeaderboardTableRefresher so reads
+ * never touch accounts. Rows are ordered by rating descending, then id, which the rating index covers.
+ */
 @Entity
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Immutable
-@Synchronize("accounts")
-@Subselect(
-        "SELECT " +
-                "  a.id       AS id, " +
-                "  a.username AS username, " +
-                "  a.rating   AS matchmaking_rating " +
-                "FROM accounts a " +
-                "ORDER BY a.rating DESC"
-)
+@Table(name = "leaderboard_entries",
+        indexes = {
+                @Index(name = "idx_leaderboard_rating_id", columnList = "matchmaking_rating DESC, id"),
+                @Index(name = "idx_leaderboard_username", columnList = "username")
+        })
 @Check(constraints = "matchmaking_rating >= 0")
 public class LeaderboardEntry {
 
+    /** The account's id */
     @Id
     @NotNull(message = "ID cannot be null")
     @Column(updatable = false, nullable = false, columnDefinition = "UUID")
@@ -43,11 +40,11 @@ public class LeaderboardEntry {
     @NotNull(message = "Username cannot be null")
     @NotBlank(message = "Username cannot be blank")
     @Pattern(regexp = "^[a-zA-Z0-9_]+$", message = "Username can only contain alphanumeric characters and underscores")
-    @Column(nullable = false, length = 25, updatable = false)
+    @Column(nullable = false, length = 25)
     private String username;
 
     @NotNull(message = "Matchmaking rating cannot be null")
     @Min(value = 0, message = "Matchmaking rating cannot be negative")
-    @Column(nullable = false, updatable = false, columnDefinition = "INTEGER")
+    @Column(nullable = false, columnDefinition = "INTEGER")
     private Integer matchmakingRating;
-}
\ No newline at end of file
+}
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "level_session")
+@Table(name = "level_session",
+        indexes = @Index(name = "idx_level_session_account_end", columnList = "account_id, end_time DESC, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -26,6 +26,19 @@ public interface CodingProblemRepository extends JpaRepository<CodingProblem, UU
      */
     Page<CodingProblem> findByTitleContainingIgnoreCase(String title, Pageable pageable);
 
+    /**
+     * First keyset page of all problems, by title then id; only the page size of the pageable is used
+     */
+    @Query("SELECT p FROM CodingProblem p ORDER BY p.title, p.id")
+    List<CodingProblem> findFirstPage(Pageable pageable);
+
+    /**
+     * Keyset page: the problems after (title, id), seeking on the title index
+     */
+    @Query("SELECT p FROM CodingProblem p WHERE p.title >= :title AND (p.title > :title OR p.id > :id) " +
+            "ORDER BY p.title, p.id")
+    List<CodingProblem> findPageAfter(@Param("title") String title, @Param("id") UUID id, Pageable pageable);
+
     /**
      * Get a random coding problem by difficulty
      */
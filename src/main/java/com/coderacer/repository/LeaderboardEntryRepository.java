@@ -3,6 +3,8 @@ package com.coderacer.repository;
 import com.coderacer.model.LeaderboardEntry;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
 
@@ -27,4 +29,40 @@ public interface LeaderboardEntryRepository extends JpaRepository<LeaderboardEnt
      * Look up a single entry by username.
      */
     Optional<LeaderboardEntry> findByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * First keyset page: the best entries, by rating descending then id. Only the page size of the
+     * pageable is used.
+     */
+    @Query("SELECT e FROM LeaderboardEntry e ORDER BY e.matchmakingRating DESC, e.id")
+    List<LeaderboardEntry> findFirstPage(Pageable pageable);
+
+    /**
+     * Keyset page: the entries ranked right after (rating, id). The rating bound is what the index seeks
+     * to; only entries tied with the cursor are filtered out.
+     */
+    @Query("SELECT e FROM LeaderboardEntry e " +
+            "WHERE e.matchmakingRating <= :rating AND (e.matchmakingRating < :rating OR e.id > :id) " +
+            "ORDER BY e.matchmakingRating DESC, e.id")
+    List<LeaderboardEntry> findPageAfter(@Param("rating") int rating, @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Copies every account's username and rating into the table; returns the number of rows written.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO leaderboard_entries (id, username, matchmaking_rating) " +
+            "SELECT a.id, a.username, a.rating FROM accounts a " +
+            "ON CONFLICT (id) DO UPDATE SET username = EXCLUDED.username, matchmaking_rating = EXCLUDED.matchmaking_rating " +
+            "WHERE leaderboard_entries.username <> EXCLUDED.username " +
+            "OR leaderboard_entries.matchmaking_rating <> EXCLUDED.matchmaking_rating",
+            nativeQuery = true)
+    int copyFromAccounts();
+
+    /**
+     * Removes entries whose account no longer exists; returns the number of rows removed.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM leaderboard_entries l WHERE NOT EXISTS (SELECT 1 FROM accounts a WHERE a.id = l.id)",
+            nativeQuery = true)
+    int deleteOrphans();
+}
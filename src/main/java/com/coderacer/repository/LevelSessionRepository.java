@@ -3,11 +3,13 @@ package com.coderacer.repository;
 import com.coderacer.dto.GameplayMetricsDTO;
 import com.coderacer.dto.SessionLookupParametersDTO;
 import com.coderacer.model.LevelSession;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -29,6 +31,24 @@ public interface LevelSessionRepository extends JpaRepository<LevelSession, UUID
             @Param("params") SessionLookupParametersDTO parameters
     );
     List<LevelSession> findByAccountId(UUID accountId);
+    long countByAccountId(UUID accountId);
+
+    /**
+     * First keyset page of an account's sessions, newest first; only the page size of the pageable is used.
+     */
+    @Query("SELECT ls FROM LevelSession ls WHERE ls.account.id = :accountId ORDER BY ls.endTime DESC, ls.id")
+    List<LevelSession> findFirstPageByAccountId(@Param("accountId") UUID accountId, Pageable pageable);
+
+    /**
+     * Keyset page: the account's sessions after (endTime, id), seeking on the (account, end time) index.
+     */
+    @Query("SELECT ls FROM LevelSession ls WHERE ls.account.id = :accountId " +
+            "AND ls.endTime <= :endTime AND (ls.endTime < :endTime OR ls.id > :id) " +
+            "ORDER BY ls.endTime DESC, ls.id")
+    List<LevelSession> findPageByAccountIdAfter(@Param("accountId") UUID accountId,
+                                                @Param("endTime") LocalDateTime endTime,
+                                                @Param("id") UUID id,
+                                                Pageable pageable);
     List<LevelSession> findByLevelId(UUID levelId);
     void deleteByAccountId(UUID accountId);
     void deleteByLevelId(UUID levelId);
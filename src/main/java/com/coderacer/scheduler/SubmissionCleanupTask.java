@@ -0,0 +1,17 @@
+package com.coderacer.scheduler;
+
+import com.coderacer.service.SubmissionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class SubmissionCleanupTask {
+    private final SubmissionService submissionService;
+
+    @Scheduled(fixedDelay = 60000)
+    public void runEveryMinute() {
+        submissionService.removeExpiredSubmissions();
+    }
+}
@@ -3,6 +3,8 @@ package com.coderacer.service;
 import com.coderacer.algo.RatingAlgorithm;
 import com.coderacer.dto.*;
 import com.coderacer.enums.Role;
+import com.coderacer.event.AccountDeletedEvent;
+import com.coderacer.event.AccountRatingChangedEvent;
 import com.coderacer.exception.*;
 import com.coderacer.model.Account;
 import com.coderacer.model.Level;
@@ -15,6 +17,7 @@ import com.coderacer.security.JWTUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,6 +39,7 @@ public class AccountService {
     private final RatingAlgorithm ratingAlgo; // for rating calc only
     private final EmailService emailService;
     private final JWTUtil jwtUtil;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public AccountDTO getAccount(UUID id) {
@@ -77,6 +81,7 @@ public class AccountService {
         account.setRole(Role.USER);
 
         Account saved = accountRepository.save(account);
+        publishRating(saved);
 
         String token = UUID.randomUUID().toString();
         EmailVerificationToken verificationToken = new EmailVerificationToken(token, account, LocalDateTime.now().plusHours(24));
@@ -100,7 +105,7 @@ public class AccountService {
         superUser.setVerified(true);
         superUser.setRating(0);
 
-        accountRepository.save(superUser);
+        publishRating(accountRepository.save(superUser));
     }
 
     @Transactional
@@ -117,8 +122,11 @@ public class AccountService {
         }
 
         // Update rating if provided
+        boolean ratingChanged = false;
         if (dto.rating() != null) {
-            account.setRating(Math.max(dto.rating(), 0));
+            int rating = Math.max(dto.rating(), 0);
+            ratingChanged = rating != account.getRating();
+            account.setRating(rating);
         }
 
         // Update verification status if provided
@@ -127,6 +135,7 @@ public class AccountService {
         }
 
         Account saved = accountRepository.save(account);
+        if (ratingChanged) publishRating(saved);
         return AccountDTO.fromEntity(saved);
     }
 
@@ -140,6 +149,7 @@ public class AccountService {
         emailVerificationTokenRepository.deleteByAccountId(id);
 
         accountRepository.deleteById(id);
+        eventPublisher.publishEvent(new AccountDeletedEvent(id));
     }
 
     @Transactional
@@ -220,6 +230,13 @@ public class AccountService {
 
         // apply and persist
         account.setRating(account.getRating() + delta);
-        accountRepository.save(account);
+        publishRating(accountRepository.save(account));
+    }
+
+    /**
+     * Lets the leaderboard index pick up the account's rating once the transaction commits.
+     */
+    private void publishRating(Account account) {
+        eventPublisher.publishEvent(new AccountRatingChangedEvent(account.getId(), account.getUsername(), account.getRating()));
     }
 }
\ No newline at end of file
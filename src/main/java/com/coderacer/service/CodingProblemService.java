@@ -2,16 +2,19 @@ package com.coderacer.service;
 
 import com.coderacer.dto.CodingProblemDTO;
 import com.coderacer.dto.CodingProblemRequestDTO;
+import com.coderacer.dto.CursorPageDTO;
 import com.coderacer.enums.Difficulty;
 import com.coderacer.exception.CodingProblemNotFoundException;
 import com.coderacer.model.CodingProblem;
 import com.coderacer.repository.CodingProblemRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -19,10 +22,13 @@ import java.util.UUID;
 public class CodingProblemService {
 
     private final CodingProblemRepository codingProblemRepository;
+    private final ExecutionResultCache executionResultCache;
 
     @Autowired
-    public CodingProblemService(CodingProblemRepository codingProblemRepository) {
+    public CodingProblemService(CodingProblemRepository codingProblemRepository,
+                                ExecutionResultCache executionResultCache) {
         this.codingProblemRepository = codingProblemRepository;
+        this.executionResultCache = executionResultCache;
     }
 
     @Transactional(readOnly = true)
@@ -31,6 +37,24 @@ public class CodingProblemService {
         return problems.map(CodingProblemDTO::fromEntity);
     }
 
+    /**
+     * Keyset page of all problems by title: cursor is the previous page's nextCursor, null for the first page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<CodingProblemDTO> getProblemsPage(String cursor, int limit, boolean withTotal) {
+        PageRequest pageRequest = PageRequest.of(0, PageCursor.checkLimit(limit));
+        List<String> key = PageCursor.decode(cursor, 2);
+        List<CodingProblem> problems = key == null
+                ? codingProblemRepository.findFirstPage(pageRequest)
+                : codingProblemRepository.findPageAfter(key.get(0), PageCursor.parse(key.get(1), UUID::fromString),
+                pageRequest);
+
+        CodingProblem last = problems.size() == limit ? problems.get(limit - 1) : null;
+        String nextCursor = last != null ? PageCursor.encode(last.getTitle(), last.getId()) : null;
+        return new CursorPageDTO<>(problems.stream().map(CodingProblemDTO::fromEntity).toList(), nextCursor,
+                withTotal ? codingProblemRepository.count() : null);
+    }
+
     @Transactional(readOnly = true)
     public CodingProblemDTO getProblemById(UUID id) {
         CodingProblem problem = codingProblemRepository.findById(id)
@@ -78,6 +102,7 @@ public class CodingProblemService {
         requestDTO.updateEntity(existingProblem);
 
         CodingProblem updatedProblem = codingProblemRepository.save(existingProblem);
+        executionResultCache.invalidate(id);
         return CodingProblemDTO.fromEntity(updatedProblem);
     }
 
@@ -86,6 +111,7 @@ public class CodingProblemService {
             throw new CodingProblemNotFoundException("Coding problem not found with id: " + id);
         }
         codingProblemRepository.deleteById(id);
+        executionResultCache.invalidate(id);
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,164 @@
+package com.coderacer.service;
+
+import com.coderacer.client.CodeExecutionClient;
+import com.coderacer.dto.ExecutionResultDTO;
+import com.coderacer.enums.InputProtocol;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Memoizes runner results for (code, input) pairs in front of {@link CodeExecutionClient#executeCode}.
+ *
+ * Submissions are deterministic, so resubmitting the same code against the same problem data does not
+ * need another round trip to the runner. Only SUCCESS, OUTPUT_MISMATCH (a fail-fast run stopped at a wrong
+ * answer) and COMPILATION_ERROR results are kept: timeouts and runtime errors may come from the runner's own
+ * load or environment. Entries expire after the TTL,
+ * the least recently used are dropped past max-entries, and all entries of a problem are dropped when
+ * its test data changes. Each invalidation also bumps the problem's generation, and a result is only stored
+ * if the generation is still the one read before the runner call, so a run that was in flight during an
+ * update cannot put back a result judged against the old data.
+ */
+@Component
+@Slf4j
+public class ExecutionResultCache {
+
+    private final CodeExecutionClient codeExecutionClient;
+
+    @Value("${code-execution.result-cache.enabled:true}")
+    private boolean enabled = true;
+    @Value("${code-execution.result-cache.ttl:PT10M}")
+    private Duration ttl = Duration.ofMinutes(10);
+    @Value("${code-execution.result-cache.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Bumped by every invalidation of the problem; guarded by this */
+    private final Map<UUID, Long> generations = new HashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public ExecutionResultCache(CodeExecutionClient codeExecutionClient, MeterRegistry registry) {
+        this.codeExecutionClient = codeExecutionClient;
+        hits = registry.counter("coderacer.execution.cache.requests", "result", "hit");
+        misses = registry.counter("coderacer.execution.cache.requests", "result", "miss");
+        Gauge.builder("coderacer.execution.cache.hit.ratio", this, ExecutionResultCache::hitRatio).register(registry);
+        Gauge.builder("coderacer.execution.cache.entries", this, ExecutionResultCache::size).register(registry);
+    }
+
+    /**
+     * Returns the memoized result for this problem, code and input, or runs the code on the runner.
+     */
+    public ExecutionResultDTO executeCode(UUID problemId, String code, List<Integer> inputs) {
+        return executeCode(problemId, code, inputs, InputProtocol.TEXT);
+    }
+
+    /**
+     * Same as {@link #executeCode(UUID, String, List)}, with the problem's input protocol. The protocol
+     * does not change a result, so it is not part of the key.
+     */
+    public ExecutionResultDTO executeCode(UUID problemId, String code, List<Integer> inputs, InputProtocol protocol) {
+        return executeCode(problemId, code, inputs, protocol, null);
+    }
+
+    /**
+     * Same as {@link #executeCode(UUID, String, List, InputProtocol)}, with the output the runner checks for
+     * fail-fast judging. The expectation decides whether a run ends in OUTPUT_MISMATCH, so it is part of the key.
+     */
+    public ExecutionResultDTO executeCode(UUID problemId, String code, List<Integer> inputs, InputProtocol protocol,
+                                          CodeExecutionClient.Expectation expectation) {
+        if (!enabled) return codeExecutionClient.executeCode(code, inputs, protocol, expectation);
+
+        Key key = new Key(problemId, sha256(code), sha256(String.valueOf(inputs)),
+                expectation != null ? sha256(expectation.toString()) : null);
+        ExecutionResultDTO cached = get(key);
+        if (cached != null) {
+            hits.increment();
+            log.debug("Execution result cache hit for problem {}", problemId);
+            return cached;
+        }
+        misses.increment();
+
+        long generation = generation(problemId);
+        ExecutionResultDTO result = codeExecutionClient.executeCode(code, inputs, protocol, expectation);
+        if (result != null && (result.getResult() == ExecutionResultDTO.Result.SUCCESS
+                || result.getResult() == ExecutionResultDTO.Result.OUTPUT_MISMATCH
+                || result.getResult() == ExecutionResultDTO.Result.COMPILATION_ERROR)) {
+            put(key, result, generation);
+        }
+        return result;
+    }
+
+    /**
+     * Drops every memoized result of a problem; called when its inputs or outputs change.
+     */
+    public synchronized void invalidate(UUID problemId) {
+        generations.merge(problemId, 1L, Long::sum);
+        entries.keySet().removeIf(key -> key.problemId().equals(problemId));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private synchronized ExecutionResultDTO get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAt().isBefore(Instant.now())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.result();
+    }
+
+    private synchronized long generation(UUID problemId) {
+        return generations.getOrDefault(problemId, 0L);
+    }
+
+    /**
+     * Stores the result unless the problem was invalidated since generation was read.
+     */
+    private synchronized void put(Key key, ExecutionResultDTO result, long generation) {
+        if (generation(key.problemId()) != generation) return;
+        entries.put(key, new Entry(result, Instant.now().plus(ttl)));
+        Iterator<Key> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Key(UUID problemId, String codeHash, String inputHash, String expectationHash) {}
+
+    private record Entry(ExecutionResultDTO result, Instant expiresAt) {}
+}
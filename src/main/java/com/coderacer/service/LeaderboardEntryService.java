@@ -1,48 +1,81 @@
 package com.coderacer.service;
 
+import com.coderacer.dto.CursorPageDTO;
+import com.coderacer.dto.LeaderboardAroundDTO;
 import com.coderacer.dto.LeaderboardEntryDTO;
-import com.coderacer.model.LeaderboardEntry;
-import com.coderacer.repository.LeaderboardEntryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
+/**
+ * Leaderboard reads, served from the in-memory {@link LeaderboardIndex} rather than the database.
+ */
 @Service
 @RequiredArgsConstructor
 public class LeaderboardEntryService {
 
-    private final LeaderboardEntryRepository leaderboardEntryRepository;
+    private static final int MAX_RADIUS = 50;
+
+    private final LeaderboardIndex leaderboardIndex;
 
-    @Transactional(readOnly = true)
     public List<LeaderboardEntryDTO> getTop10() {
-        return leaderboardEntryRepository.findTop10ByOrderByMatchmakingRatingDesc().stream()
-                .map(LeaderboardEntryDTO::fromEntity)
-                .collect(Collectors.toList());
+        return leaderboardIndex.topSnapshot().entries();
+    }
+
+    /**
+     * @return the top 10 with the ETag and date to revalidate them against
+     */
+    public LeaderboardIndex.TopSnapshot getTop10Snapshot() {
+        return leaderboardIndex.topSnapshot();
     }
 
-    @Transactional(readOnly = true)
     public Page<LeaderboardEntryDTO> getLeaderboard(Pageable pageable) {
-        List<LeaderboardEntryDTO> entries = leaderboardEntryRepository
-                .findAllByOrderByMatchmakingRatingDesc(pageable).stream()
-                .map(LeaderboardEntryDTO::fromEntity)
-                .collect(Collectors.toList());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(leaderboardIndex.page(0, Math.toIntExact(leaderboardIndex.size())));
+        }
+        List<LeaderboardEntryDTO> entries = leaderboardIndex.page(pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(entries, pageable, leaderboardIndex.size());
+    }
+
+    /**
+     * Keyset page of the leaderboard: cursor is the previous page's nextCursor, null for the first page.
+     * Seeking to the cursor costs the same at any depth.
+     */
+    public CursorPageDTO<LeaderboardEntryDTO> getLeaderboardPage(String cursor, int limit, boolean withTotal) {
+        PageCursor.checkLimit(limit);
+        List<String> key = PageCursor.decode(cursor, 2);
+        List<LeaderboardEntryDTO> entries = key == null
+                ? leaderboardIndex.top(limit)
+                : leaderboardIndex.after(PageCursor.parse(key.get(0), Integer::parseInt),
+                PageCursor.parse(key.get(1), UUID::fromString), limit);
 
-        return new PageImpl<>(entries, pageable, leaderboardEntryRepository.count());
+        LeaderboardEntryDTO last = entries.size() == limit ? entries.get(limit - 1) : null;
+        String nextCursor = last != null ? PageCursor.encode(last.matchmakingRating(), last.id()) : null;
+        return new CursorPageDTO<>(entries, nextCursor, withTotal ? leaderboardIndex.size() : null);
     }
 
-    @Transactional(readOnly = true)
     public LeaderboardEntryDTO getByUsername(String username) {
-        Optional<LeaderboardEntry> entry = leaderboardEntryRepository.findByUsername(username);
-        return entry.map(LeaderboardEntryDTO::fromEntity)
+        return Optional.ofNullable(leaderboardIndex.get(username))
+                .orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "User not found: " + username));
+    }
+
+    /**
+     * @return the user's rank and percentile with up to radius players above and below
+     */
+    public LeaderboardAroundDTO getAround(String username, int radius) {
+        if (radius < 0 || radius > MAX_RADIUS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Radius must be between 0 and " + MAX_RADIUS);
+        }
+        return Optional.ofNullable(leaderboardIndex.around(username, radius))
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND, "User not found: " + username));
     }
@@ -0,0 +1,484 @@
+package com.coderacer.service;
+
+import com.coderacer.dto.LeaderboardAroundDTO;
+import com.coderacer.dto.LeaderboardEntryDTO;
+import com.coderacer.event.AccountDeletedEvent;
+import com.coderacer.event.AccountRatingChangedEvent;
+import com.coderacer.model.LeaderboardEntry;
+import com.coderacer.repository.LeaderboardEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * In-memory ranking of all accounts by rating, so leaderboard reads never sort the accounts table.
+ *
+ * Entries are kept in an indexable skip list ordered by rating descending, then id (compared as unsigned
+ * bytes, as Postgres orders UUIDs, so ties rank as in the leaderboard table): every forward link
+ * also records how many entries it skips, which gives the rank of an entry and the entry at a rank in
+ * O(log n). Top-N and pages walk the bottom level from there.
+ *
+ * The top TOP_SIZE entries are also kept as a snapshot with an ETag, for the landing page and HTTP
+ * revalidation. It is recomputed only after a change that can alter it: the account is in the snapshot
+ * (moved, renamed or deleted) or its new rating reaches the current last place.
+ *
+ * The index is loaded from the leaderboard table at startup, in keyset pages, and updated from
+ * AccountService's events once their transaction commits. Each application instance keeps its own copy,
+ * so LeaderboardTableRefresher also rebuilds it from the table every leaderboard.index.rebuild-interval-ms
+ * to pick up changes made through other instances, after writing out the changes it still has queued.
+ */
+@Component
+@Slf4j
+public class LeaderboardIndex {
+    private static final int MAX_LEVEL = 32;
+    private static final double LEVEL_PROBABILITY = 0.25;
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+    public static final int TOP_SIZE = 10;
+
+    private final LeaderboardEntryRepository leaderboardEntryRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter topRecomputes;
+
+    private SkipList entries = new SkipList();
+    /** Changes applied while a rebuild reads the database, replayed onto the rebuilt list */
+    private List<Runnable> changesDuringRebuild;
+    private volatile TopSnapshot top = TopSnapshot.of(List.of());
+
+    /**
+     * The best TOP_SIZE entries; lastModified is in whole seconds, as HTTP dates are.
+     */
+    public record TopSnapshot(List<LeaderboardEntryDTO> entries, String etag, Instant lastModified) {
+        private static TopSnapshot of(List<LeaderboardEntryDTO> entries) {
+            return new TopSnapshot(entries, etagOf(entries), Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        }
+    }
+
+    public LeaderboardIndex(LeaderboardEntryRepository leaderboardEntryRepository, MeterRegistry registry) {
+        this.leaderboardEntryRepository = leaderboardEntryRepository;
+        Gauge.builder("coderacer.leaderboard.index.entries", this, LeaderboardIndex::size).register(registry);
+        this.topRecomputes = registry.counter("coderacer.leaderboard.top.recomputes");
+    }
+
+    /**
+     * Replaces the index with the entries currently in the leaderboard table.
+     */
+    @PostConstruct
+    public void rebuild() {
+        rebuild(() -> true);
+    }
+
+    /**
+     * Same as {@link #rebuild()}, running beforeLoad once changes made from then on are being recorded for
+     * replay and before the table is read. The table lags the events this index applies, so beforeLoad is
+     * where those still queued for the table are written; if it returns false the rebuild is skipped, as
+     * the table would overwrite newer ratings.
+     */
+    public void rebuild(BooleanSupplier beforeLoad) {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) return;
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        SkipList rebuilt = new SkipList();
+        try {
+            if (!beforeLoad.getAsBoolean()) throw new IllegalStateException("pending changes could not be written");
+            List<LeaderboardEntry> page = leaderboardEntryRepository.findFirstPage(PageRequest.of(0, REBUILD_PAGE_SIZE));
+            while (!page.isEmpty()) {
+                for (LeaderboardEntry entry : page) {
+                    rebuilt.put(entry.getId(), entry.getUsername(), entry.getMatchmakingRating());
+                }
+                if (page.size() < REBUILD_PAGE_SIZE) break;
+                LeaderboardEntry last = page.get(page.size() - 1);
+                page = leaderboardEntryRepository.findPageAfter(last.getMatchmakingRating(), last.getId(),
+                        PageRequest.of(0, REBUILD_PAGE_SIZE));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the leaderboard index: {}", e.getMessage());
+            rebuilt = null;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (rebuilt != null) {
+                SkipList current = entries;
+                entries = rebuilt;
+                changesDuringRebuild.forEach(Runnable::run);
+                refreshTop();
+                log.debug("Rebuilt the leaderboard index: {} accounts, {} before", rebuilt.size(), current.size());
+            }
+            changesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(AccountRatingChangedEvent event) {
+        put(event.accountId(), event.username(), event.rating());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountDeleted(AccountDeletedEvent event) {
+        remove(event.accountId());
+    }
+
+    /**
+     * Adds the account, or moves it to its new rating.
+     */
+    public void put(UUID id, String username, int rating) {
+        apply(() -> entries.put(id, username, rating), id, rating);
+    }
+
+    public void remove(UUID id) {
+        apply(() -> entries.remove(id), id, null);
+    }
+
+    /**
+     * @return the current top entries, read without locking
+     */
+    public TopSnapshot topSnapshot() {
+        return top;
+    }
+
+    /**
+     * @return the best n entries, best first
+     */
+    public List<LeaderboardEntryDTO> top(int n) {
+        return page(0, n);
+    }
+
+    /**
+     * @param offset number of entries to skip from the top
+     * @return up to limit entries from that position, best first
+     */
+    public List<LeaderboardEntryDTO> page(long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return entries.range(offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keyset page: the entries ranked right after (rating, id), which need not be in the index any more.
+     *
+     * @return up to limit entries, best first
+     */
+    public List<LeaderboardEntryDTO> after(int rating, UUID id, int limit) {
+        lock.readLock().lock();
+        try {
+            return entries.range(entries.countUpTo(rating, id), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the account's entry, null if there is none
+     */
+    public LeaderboardEntryDTO get(String username) {
+        lock.readLock().lock();
+        try {
+            Node node = entries.find(username);
+            return node != null ? node.toDTO() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the account's position from 1 (equal ratings ranked by id), 0 if it is not ranked
+     */
+    public long rankOf(String username) {
+        lock.readLock().lock();
+        try {
+            Node node = entries.find(username);
+            return node != null ? entries.rank(node) : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Position of the account and the radius accounts on either side, read at one point in time.
+     *
+     * @return null if the account is not ranked
+     */
+    public LeaderboardAroundDTO around(String username, int radius) {
+        lock.readLock().lock();
+        try {
+            Node node = entries.find(username);
+            if (node == null) return null;
+            long rank = entries.rank(node);
+            long total = entries.size();
+            long first = Math.max(1, rank - radius);
+            List<LeaderboardEntryDTO> above = entries.range(first - 1, (int) (rank - first));
+            List<LeaderboardEntryDTO> below = entries.range(rank, radius);
+            return new LeaderboardAroundDTO(node.toDTO(), rank, 100.0 * (total - rank) / total, total, above, below);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Orders ids the way Postgres does, byte by byte unsigned; UUID.compareTo compares signed halves.
+     */
+    public static int compareIds(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    /**
+     * @param rating the account's new rating, null when it is removed
+     */
+    private void apply(Runnable change, UUID id, Integer rating) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (changesDuringRebuild != null) changesDuringRebuild.add(change);
+            if (affectsTop(id, rating)) refreshTop();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean affectsTop(UUID id, Integer rating) {
+        List<LeaderboardEntryDTO> current = top.entries();
+        if (current.stream().anyMatch(entry -> entry.id().equals(id))) return true;
+        if (rating == null) return false;
+        return current.size() < TOP_SIZE || rating >= current.get(current.size() - 1).matchmakingRating();
+    }
+
+    /** Called with the write lock held; keeps the snapshot, and its ETag and date, if nothing changed */
+    private void refreshTop() {
+        List<LeaderboardEntryDTO> entries = this.entries.range(0, TOP_SIZE);
+        topRecomputes.increment();
+        if (!entries.equals(top.entries())) top = TopSnapshot.of(List.copyOf(entries));
+    }
+
+    /**
+     * Content hash, so every instance serving the same top entries sends the same ETag.
+     */
+    private static String etagOf(List<LeaderboardEntryDTO> entries) {
+        StringBuilder text = new StringBuilder();
+        for (LeaderboardEntryDTO entry : entries) {
+            text.append(entry.id()).append(':').append(entry.username()).append(':')
+                    .append(entry.matchmakingRating()).append('\n');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(text.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Node {
+        private final UUID id;
+        private final String username;
+        private final int rating;
+        private final Node[] next;
+        /** Number of bottom-level steps each forward link covers */
+        private final long[] span;
+
+        private Node(UUID id, String username, int rating, int level) {
+            this.id = id;
+            this.username = username;
+            this.rating = rating;
+            this.next = new Node[level];
+            this.span = new long[level];
+        }
+
+        /** Leaderboard order: higher rating first, then by id */
+        private boolean before(Node other) {
+            if (rating != other.rating) return rating > other.rating;
+            return compareIds(id, other.id) < 0;
+        }
+
+        /** Whether this entry ranks at or before the position (rating, id) */
+        private boolean atOrBefore(int rating, UUID id) {
+            if (this.rating != rating) return this.rating > rating;
+            return compareIds(this.id, id) <= 0;
+        }
+
+        private LeaderboardEntryDTO toDTO() {
+            return new LeaderboardEntryDTO(id, username, rating);
+        }
+    }
+
+    /**
+     * Indexable skip list; not thread-safe, guarded by the index's lock.
+     */
+    private static final class SkipList {
+        private final Node head = new Node(null, null, Integer.MAX_VALUE, MAX_LEVEL);
+        private final Map<UUID, Node> byId = new HashMap<>();
+        private final Map<String, Node> byUsername = new HashMap<>();
+        private int level = 1;
+        private long length;
+
+        private long size() {
+            return length;
+        }
+
+        private Node find(String username) {
+            return byUsername.get(username);
+        }
+
+        private void put(UUID id, String username, int rating) {
+            Node existing = byId.get(id);
+            if (existing != null) {
+                if (existing.rating == rating && existing.username.equals(username)) return;
+                remove(id);
+            }
+            insert(new Node(id, username, rating, randomLevel()));
+        }
+
+        private void remove(UUID id) {
+            Node node = byId.remove(id);
+            if (node == null) return;
+            byUsername.remove(node.username);
+
+            Node x = head;
+            for (int i = level - 1; i >= 0; i--) {
+                while (x.next[i] != null && x.next[i].before(node)) x = x.next[i];
+                if (x.next[i] == node) {
+                    x.span[i] += node.span[i] - 1;
+                    x.next[i] = node.next[i];
+                } else {
+                    x.span[i]--;
+                }
+            }
+            while (level > 1 && head.next[level - 1] == null) level--;
+            length--;
+        }
+
+        private void insert(Node node) {
+            Node[] update = new Node[MAX_LEVEL];
+            long[] rank = new long[MAX_LEVEL];
+            Node x = head;
+            for (int i = level - 1; i >= 0; i--) {
+                rank[i] = i == level - 1 ? 0 : rank[i + 1];
+                while (x.next[i] != null && x.next[i].before(node)) {
+                    rank[i] += x.span[i];
+                    x = x.next[i];
+                }
+                update[i] = x;
+            }
+
+            int nodeLevel = node.next.length;
+            if (nodeLevel > level) {
+                for (int i = level; i < nodeLevel; i++) {
+                    rank[i] = 0;
+                    update[i] = head;
+                    head.span[i] = length;
+                }
+                level = nodeLevel;
+            }
+            for (int i = 0; i < nodeLevel; i++) {
+                node.next[i] = update[i].next[i];
+                update[i].next[i] = node;
+                node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+                update[i].span[i] = rank[0] - rank[i] + 1;
+            }
+            for (int i = nodeLevel; i < level; i++) update[i].span[i]++;
+
+            length++;
+            byId.put(node.id, node);
+            byUsername.put(node.username, node);
+        }
+
+        private long rank(Node node) {
+            long rank = 0;
+            Node x = head;
+            for (int i = level - 1; i >= 0; i--) {
+                while (x.next[i] != null && !node.before(x.next[i])) {
+                    rank += x.span[i];
+                    x = x.next[i];
+                }
+                if (x == node) return rank;
+            }
+            return 0;
+        }
+
+        /**
+         * @return the number of entries ranked at or before the position (rating, id)
+         */
+        private long countUpTo(int rating, UUID id) {
+            long count = 0;
+            Node x = head;
+            for (int i = level - 1; i >= 0; i--) {
+                while (x.next[i] != null && x.next[i].atOrBefore(rating, id)) {
+                    count += x.span[i];
+                    x = x.next[i];
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return the entry at position rank, counted from 1, or null past the end
+         */
+        private Node at(long rank) {
+            long traversed = 0;
+            Node x = head;
+            for (int i = level - 1; i >= 0; i--) {
+                while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                    traversed += x.span[i];
+                    x = x.next[i];
+                }
+                if (traversed == rank) return x == head ? null : x;
+            }
+            return null;
+        }
+
+        private List<LeaderboardEntryDTO> range(long offset, int limit) {
+            List<LeaderboardEntryDTO> result = new ArrayList<>();
+            if (offset < 0 || limit <= 0 || offset >= length) return result;
+            for (Node x = at(offset + 1); x != null && result.size() < limit; x = x.next[0]) {
+                result.add(x.toDTO());
+            }
+            return result;
+        }
+
+        private static int randomLevel() {
+            int level = 1;
+            while (level < MAX_LEVEL && ThreadLocalRandom.current().nextDouble() < LEVEL_PROBABILITY) level++;
+            return level;
+        }
+    }
+}
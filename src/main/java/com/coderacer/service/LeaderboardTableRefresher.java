@@ -0,0 +1,171 @@
+package com.coderacer.service;
+
+import com.coderacer.event.AccountDeletedEvent;
+import com.coderacer.event.AccountRatingChangedEvent;
+import com.coderacer.model.LeaderboardEntry;
+import com.coderacer.repository.LeaderboardEntryRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the leaderboard_entries table in step with the accounts table.
+ *
+ * Rating changes and deletions are queued once their transaction commits, the latest one per account,
+ * and written in one batch every leaderboard.table.flush-interval-ms, so rating writes never wait on the
+ * leaderboard. Positions are not stored: the index counts them, and the table is only read in rating
+ * order, which the rating index serves. The whole table is reconciled with accounts at startup and every leaderboard.table.reconcile-interval-ms, which repairs
+ * anything a lost batch or another instance's missed event left behind.
+ *
+ * The LeaderboardIndex is rebuilt from this table, so the rebuild is scheduled here: the queue is written
+ * out first, or the table would hand the index back ratings older than the ones it already has. Events are
+ * queued here before the index applies them (see @Order), so any change the index has seen by then is
+ * either written by that flush or replayed by the rebuild.
+ */
+@Component
+@Slf4j
+public class LeaderboardTableRefresher {
+
+    private final LeaderboardEntryRepository leaderboardEntryRepository;
+    private final LeaderboardIndex leaderboardIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Latest queued change per account; a null rating is a deletion */
+    private final Map<UUID, Change> pending = new ConcurrentHashMap<>();
+
+    private record Change(String username, Integer rating) {}
+
+    public LeaderboardTableRefresher(LeaderboardEntryRepository leaderboardEntryRepository,
+                                     LeaderboardIndex leaderboardIndex,
+                                     TransactionTemplate transactionTemplate,
+                                     MeterRegistry registry) {
+        this.leaderboardEntryRepository = leaderboardEntryRepository;
+        this.leaderboardIndex = leaderboardIndex;
+        this.transactionTemplate = transactionTemplate;
+        Gauge.builder("coderacer.leaderboard.table.pending", pending, Map::size).register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onRatingChanged(AccountRatingChangedEvent event) {
+        pending.put(event.accountId(), new Change(event.username(), event.rating()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(0)
+    public void onAccountDeleted(AccountDeletedEvent event) {
+        pending.put(event.accountId(), new Change(null, null));
+    }
+
+    /**
+     * Writes the queued changes in one transaction.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.table.flush-interval-ms:1000}")
+    public void flush() {
+        writePending();
+    }
+
+    /**
+     * Writes the queued changes, then rebuilds the index from the table.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.index.rebuild-interval-ms:300000}",
+            initialDelayString = "${leaderboard.index.rebuild-interval-ms:300000}")
+    public void rebuildIndex() {
+        leaderboardIndex.rebuild(this::writePending);
+    }
+
+    /**
+     * Synchronized so that once it returns, a batch another thread was writing has been committed too.
+     *
+     * @return false if the batch could not be written and was queued again
+     */
+    private synchronized boolean writePending() {
+        Map<UUID, Change> batch = new HashMap<>();
+        for (UUID id : List.copyOf(pending.keySet())) {
+            Change change = pending.remove(id);
+            if (change != null) batch.put(id, change);
+        }
+        if (batch.isEmpty()) return true;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} leaderboard changes, retrying: {}", batch.size(), e.getMessage());
+            batch.forEach(pending::putIfAbsent);
+            return false;
+        }
+    }
+
+    /**
+     * Copies the accounts table over the leaderboard table.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.table.reconcile-interval-ms:3600000}",
+            initialDelayString = "${leaderboard.table.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int copied = leaderboardEntryRepository.copyFromAccounts();
+                int removed = leaderboardEntryRepository.deleteOrphans();
+                log.debug("Reconciled the leaderboard table: {} rows written, {} removed", copied, removed);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not reconcile the leaderboard table: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The table may be empty or behind on first start; the index loaded from it is rebuilt once it is not.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+        rebuildIndex();
+    }
+
+    private void apply(Map<UUID, Change> batch) {
+        Map<UUID, LeaderboardEntry> existing = leaderboardEntryRepository.findAllById(batch.keySet()).stream()
+                .collect(Collectors.toMap(LeaderboardEntry::getId, Function.identity()));
+
+        List<LeaderboardEntry> saved = new ArrayList<>();
+        List<UUID> deleted = new ArrayList<>();
+        for (Map.Entry<UUID, Change> entry : batch.entrySet()) {
+            UUID id = entry.getKey();
+            Change change = entry.getValue();
+            LeaderboardEntry row = existing.get(id);
+
+            if (change.rating() == null) {
+                if (row == null) continue;
+                deleted.add(id);
+            } else if (row == null) {
+                saved.add(new LeaderboardEntry(id, change.username(), change.rating()));
+            } else {
+                if (row.getMatchmakingRating().equals(change.rating())
+                        && row.getUsername().equals(change.username())) continue;
+                row.setUsername(change.username());
+                row.setMatchmakingRating(change.rating());
+                saved.add(row);
+            }
+        }
+
+        leaderboardEntryRepository.saveAll(saved);
+        leaderboardEntryRepository.deleteAllById(deleted);
+        leaderboardEntryRepository.flush();
+    }
+}
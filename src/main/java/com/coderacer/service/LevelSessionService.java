@@ -6,9 +6,12 @@ import com.coderacer.model.LevelSession;
 import com.coderacer.repository.AccountRepository;
 import com.coderacer.repository.LevelRepository;
 import com.coderacer.repository.LevelSessionRepository;
+import com.coderacer.dto.CursorPageDTO;
 import com.coderacer.dto.LevelSessionCreateDto;
+import com.coderacer.dto.LevelSessionDTO;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -77,6 +80,31 @@ public class LevelSessionService {
         return levelSessionRepository.findByAccountId(accountId);
     }
 
+    /**
+     * Retrieves one page of an account's level sessions, newest first.
+     * @param accountId The UUID of the account.
+     * @param cursor The nextCursor of the previous page, or null for the first page.
+     * @param limit The maximum number of sessions on the page.
+     * @param withTotal Whether to also count all the account's sessions.
+     * @return The page, with the cursor of the next one.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<LevelSessionDTO> getLevelSessionsPage(UUID accountId, String cursor, int limit,
+                                                              boolean withTotal) {
+        PageRequest pageRequest = PageRequest.of(0, PageCursor.checkLimit(limit));
+        List<String> key = PageCursor.decode(cursor, 2);
+        List<LevelSession> sessions = key == null
+                ? levelSessionRepository.findFirstPageByAccountId(accountId, pageRequest)
+                : levelSessionRepository.findPageByAccountIdAfter(accountId,
+                PageCursor.parse(key.get(0), LocalDateTime::parse), PageCursor.parse(key.get(1), UUID::fromString),
+                pageRequest);
+
+        LevelSession last = sessions.size() == limit ? sessions.get(limit - 1) : null;
+        String nextCursor = last != null ? PageCursor.encode(last.getEndTime(), last.getId()) : null;
+        return new CursorPageDTO<>(sessions.stream().map(LevelSessionDTO::fromEntity).toList(), nextCursor,
+                withTotal ? levelSessionRepository.countByAccountId(accountId) : null);
+    }
+
     /**
      * Retrieves all level sessions for a given level.
      * @param levelId The UUID of the level.
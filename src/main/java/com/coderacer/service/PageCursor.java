@@ -0,0 +1,70 @@
+package com.coderacer.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque cursors for keyset pagination: the sort key of the last item of a page, each part URL-safe
+ * Base64 and joined with dots. Clients only hand them back; a cursor that does not decode is a 400.
+ */
+public final class PageCursor {
+    /** Page size when the request gives none; a String so controllers can use it as a @RequestParam default */
+    public static final String DEFAULT_LIMIT = "20";
+    static final int MAX_LIMIT = 100;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PageCursor() {
+    }
+
+    static String encode(Object... parts) {
+        return String.join(".", Arrays.stream(parts)
+                .map(part -> ENCODER.encodeToString(part.toString().getBytes(StandardCharsets.UTF_8)))
+                .toList());
+    }
+
+    /**
+     * @return the parts of the cursor, null for the first page (no cursor)
+     */
+    static List<String> decode(String cursor, int parts) {
+        if (cursor == null || cursor.isBlank()) return null;
+        String[] encoded = cursor.split("\\.", -1);
+        if (encoded.length != parts) throw invalid();
+        try {
+            return Arrays.stream(encoded)
+                    .map(part -> new String(DECODER.decode(part), StandardCharsets.UTF_8))
+                    .toList();
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    /**
+     * Parses one decoded part; a part that does not parse makes the cursor invalid.
+     */
+    static <T> T parse(String part, Function<String, T> parser) {
+        try {
+            return parser.apply(part);
+        } catch (RuntimeException e) {
+            throw invalid();
+        }
+    }
+
+    static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    static ResponseStatusException invalid() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+}
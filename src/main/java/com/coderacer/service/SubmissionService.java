@@ -0,0 +1,188 @@
+package com.coderacer.service;
+
+import com.coderacer.dto.SubmissionDTO;
+import com.coderacer.dto.TestCaseProgressDTO;
+import com.coderacer.dto.TestResultDTO;
+import com.coderacer.enums.SubmissionStatus;
+import com.coderacer.exception.CodeExecutionBusyException;
+import com.coderacer.exception.SubmissionNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Asynchronous submissions: a submission is accepted straight away and tested on the submission
+ * executor, and its progress can be polled or streamed with Server-Sent Events.
+ *
+ * Events on the stream: "status" (the submission, whenever its status changes), "test-case"
+ * (one per expected output as it is judged) and finally "result" (the finished submission),
+ * after which the stream is closed. A subscriber that joins late first gets the current status
+ * and, if the submission already finished, the result.
+ *
+ * Submissions are kept in memory; finished ones are dropped after the retention period.
+ */
+@Service
+@Slf4j
+public class SubmissionService {
+
+    private final TestingService testingService;
+    private final AsyncTaskExecutor submissionExecutor;
+
+    @Value("${submissions.retention:PT10M}")
+    private Duration retention = Duration.ofMinutes(10);
+    @Value("${submissions.sse-timeout:PT2M}")
+    private Duration sseTimeout = Duration.ofMinutes(2);
+
+    private final Map<UUID, Submission> submissions = new ConcurrentHashMap<>();
+
+    public SubmissionService(TestingService testingService,
+                             @Qualifier("submissionExecutor") AsyncTaskExecutor submissionExecutor) {
+        this.testingService = testingService;
+        this.submissionExecutor = submissionExecutor;
+    }
+
+    /**
+     * Queues the code for testing against the problem.
+     *
+     * @return the submission in its QUEUED state
+     * @throws CodeExecutionBusyException if too many submissions are already waiting
+     */
+    public SubmissionDTO submit(UUID problemId, String code) {
+        Submission submission = new Submission(UUID.randomUUID(), problemId);
+        submissions.put(submission.id, submission);
+        try {
+            submissionExecutor.execute(() -> run(submission, code));
+        } catch (TaskRejectedException e) {
+            submissions.remove(submission.id);
+            throw new CodeExecutionBusyException("Too many submissions are waiting, try again later", 1, e);
+        }
+        return submission.toDto();
+    }
+
+    public SubmissionDTO getSubmission(UUID submissionId) {
+        return find(submissionId).toDto();
+    }
+
+    /**
+     * Opens an event stream for the submission, replaying what a late subscriber missed.
+     */
+    public SseEmitter subscribe(UUID submissionId) {
+        Submission submission = find(submissionId);
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        synchronized (submission) {
+            SubmissionDTO current = submission.toDto();
+            if (!send(emitter, "status", current)) return emitter;
+            if (submission.isFinished()) {
+                if (send(emitter, "result", current)) emitter.complete();
+                return emitter;
+            }
+            submission.emitters.add(emitter);
+        }
+        emitter.onCompletion(() -> submission.emitters.remove(emitter));
+        emitter.onTimeout(() -> submission.emitters.remove(emitter));
+        emitter.onError(e -> submission.emitters.remove(emitter));
+        return emitter;
+    }
+
+    /**
+     * Drops finished submissions older than the retention period.
+     */
+    public void removeExpiredSubmissions() {
+        Instant cutoff = Instant.now().minus(retention);
+        submissions.values().removeIf(s -> s.isFinished() && s.updatedAt.isBefore(cutoff));
+    }
+
+    private void run(Submission submission, String code) {
+        try {
+            TestResultDTO result = testingService.testCode(submission.problemId, code, new TestProgressListener() {
+                @Override
+                public void onRunning() {
+                    submission.update(SubmissionStatus.RUNNING, null, null);
+                }
+
+                @Override
+                public void onTestCase(TestCaseProgressDTO testCase) {
+                    submission.publish("test-case", testCase);
+                }
+            });
+            submission.update(SubmissionStatus.COMPLETED, result, null);
+        } catch (Exception e) {
+            log.warn("Submission {} failed: {}", submission.id, e.getMessage());
+            submission.update(SubmissionStatus.FAILED, null, e.getMessage());
+        }
+    }
+
+    private Submission find(UUID submissionId) {
+        Submission submission = submissions.get(submissionId);
+        if (submission == null) throw new SubmissionNotFoundException(submissionId);
+        return submission;
+    }
+
+    private static boolean send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // client went away
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static class Submission {
+        final UUID id;
+        final UUID problemId;
+        final Instant createdAt = Instant.now();
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        volatile SubmissionStatus status = SubmissionStatus.QUEUED;
+        volatile TestResultDTO result;
+        volatile String errorMessage;
+        volatile Instant updatedAt = createdAt;
+
+        Submission(UUID id, UUID problemId) {
+            this.id = id;
+            this.problemId = problemId;
+        }
+
+        boolean isFinished() {
+            return status == SubmissionStatus.COMPLETED || status == SubmissionStatus.FAILED;
+        }
+
+        SubmissionDTO toDto() {
+            return new SubmissionDTO(id, problemId, status, result, errorMessage, createdAt, updatedAt);
+        }
+
+        synchronized void update(SubmissionStatus status, TestResultDTO result, String errorMessage) {
+            this.status = status;
+            this.result = result;
+            this.errorMessage = errorMessage;
+            this.updatedAt = Instant.now();
+            SubmissionDTO dto = toDto();
+            publish("status", dto);
+            if (isFinished()) {
+                publish("result", dto);
+                emitters.forEach(SseEmitter::complete);
+                emitters.clear();
+            }
+        }
+
+        synchronized void publish(String event, Object data) {
+            for (SseEmitter emitter : emitters) {
+                if (!send(emitter, event, data)) emitters.remove(emitter);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.coderacer.service;
+
+import com.coderacer.dto.TestCaseProgressDTO;
+
+/**
+ * Receives progress from {@link TestingService} while a submission is being tested.
+ */
+public interface TestProgressListener {
+
+    TestProgressListener NONE = new TestProgressListener() {};
+
+    /** The code was handed to the execution service */
+    default void onRunning() {}
+
+    /** One expected output was compared with the program's output */
+    default void onTestCase(TestCaseProgressDTO testCase) {}
+}
@@ -2,7 +2,11 @@ package com.coderacer.service;
 
 import com.coderacer.client.CodeExecutionClient;
 import com.coderacer.dto.ExecutionResultDTO;
+import com.coderacer.dto.TestCaseProgressDTO;
+import com.coderacer.dto.TestCaseVerdictDTO;
 import com.coderacer.dto.TestResultDTO;
+import com.coderacer.enums.OutputComparator;
+import com.coderacer.enums.TestCaseVerdict;
 import com.coderacer.exception.CodingProblemNotFoundException;
 import com.coderacer.model.CodingProblem;
 import com.coderacer.repository.CodingProblemRepository;
@@ -19,19 +23,40 @@ import java.util.UUID;
 public class TestingService {
 
     private final CodingProblemRepository codingProblemRepository;
-    private final CodeExecutionClient codeExecutionClient;
+    private final ExecutionResultCache executionResultCache;
+    private final VerdictEngine verdictEngine;
 
     public TestResultDTO testCode(UUID problemId, String code) {
+        return testCode(problemId, code, TestProgressListener.NONE);
+    }
+
+    /**
+     * Tests the code against the problem, reporting progress to the listener as it goes.
+     *
+     * Output is judged with the problem's comparator. For a fail-fast problem the runner also checks the
+     * output as it is produced and stops the program at the first wrong answer.
+     */
+    public TestResultDTO testCode(UUID problemId, String code, TestProgressListener listener) {
         CodingProblem problem = codingProblemRepository.findById(problemId)
                 .orElseThrow(() -> new CodingProblemNotFoundException("Problem not found: " + problemId));
 
         List<Integer> inputs = problem.getInputs();
         List<Integer> expectedOutputs = problem.getOutputs();
+        OutputComparator comparator = problem.getComparator() != null ? problem.getComparator() : OutputComparator.NUMERIC;
+        double tolerance = problem.getTolerance() != null ? problem.getTolerance() : 0;
+        boolean failFast = Boolean.TRUE.equals(problem.getFailFast());
+        CodeExecutionClient.Expectation expectation = failFast
+                ? new CodeExecutionClient.Expectation(expectedOutputs.stream().map(String::valueOf).toList(), comparator, tolerance)
+                : null;
 
-        ExecutionResultDTO result = codeExecutionClient.executeCode(code, inputs);
+        listener.onRunning();
+        ExecutionResultDTO result = executionResultCache.executeCode(problemId, code, inputs,
+                problem.getInputProtocol(), expectation);
 
-        // Handle non-success cases (compilation error, runtime error, timeout)
-        if (result.getResult() != ExecutionResultDTO.Result.SUCCESS) {
+        // Handle runs that didn't complete (compilation error, runtime error, timeout); a fail-fast run
+        // stopped at a wrong answer is judged like a complete one
+        if (result.getResult() != ExecutionResultDTO.Result.SUCCESS
+                && result.getResult() != ExecutionResultDTO.Result.OUTPUT_MISMATCH) {
             return TestResultDTO.builder()
                     .problemId(problemId)
                     .totalTests(expectedOutputs.size())
@@ -41,44 +66,42 @@ public class TestingService {
                     .actualOutput(result.getOutputLines()) // May contain error messages
                     .expectedOutput(expectedOutputs)
                     .errorMessage(getErrorMessage(result))
+                    .testCases(List.of())
+                    .compileTimeMillis(result.getCompileTimeMillis())
+                    .wallTimeMillis(result.getWallTimeMillis())
+                    .cpuTimeMillis(result.getCpuTimeMillis())
+                    .peakMemoryKb(result.getPeakMemoryKb())
                     .build();
         }
 
-        // Handle successful execution
+        // Handle completed execution
         List<String> actualOutputs = result.getOutputLines();
-        int total = expectedOutputs.size();
-        int passed = countMatchingOutputs(expectedOutputs, actualOutputs);
+        VerdictEngine.Judgement judgement = verdictEngine.judge(expectedOutputs, actualOutputs, comparator, tolerance, failFast);
+        for (TestCaseVerdictDTO testCase : judgement.testCases()) {
+            listener.onTestCase(new TestCaseProgressDTO(testCase.getIndex(), testCase.getExpectedOutput(),
+                    testCase.getActualOutput(), testCase.getVerdict() == TestCaseVerdict.ACCEPTED, testCase.getVerdict()));
+        }
 
         return TestResultDTO.builder()
                 .problemId(problemId)
-                .totalTests(total)
-                .passedTests(passed)
-                .allPassed(passed == total)
-                .executionStatus(result.getResult())
+                .totalTests(expectedOutputs.size())
+                .passedTests(judgement.passed())
+                .allPassed(judgement.allPassed())
+                // the program ran; wrong answers are in the verdicts, whether or not the runner stopped it
+                .executionStatus(ExecutionResultDTO.Result.SUCCESS)
                 .actualOutput(actualOutputs)
                 .expectedOutput(expectedOutputs)
-                .errorMessage(null) // No error for successful execution
+                .errorMessage(null) // No error for a completed execution
+                .testCases(judgement.testCases())
+                .firstFailedTest(judgement.firstFailedTest())
+                .firstFailure(judgement.firstFailure())
+                .compileTimeMillis(result.getCompileTimeMillis())
+                .wallTimeMillis(result.getWallTimeMillis())
+                .cpuTimeMillis(result.getCpuTimeMillis())
+                .peakMemoryKb(result.getPeakMemoryKb())
                 .build();
     }
 
-    private int countMatchingOutputs(List<Integer> expected, List<String> actual) {
-        int passed = 0;
-        int minSize = Math.min(expected.size(), actual.size());
-
-        for (int i = 0; i < minSize; i++) {
-            try {
-                int actualInt = Integer.parseInt(actual.get(i).trim());
-                if (actualInt == expected.get(i)) {
-                    passed++;
-                }
-            } catch (NumberFormatException e) {
-                // Mismatch if not an integer
-            }
-        }
-
-        return passed;
-    }
-
     private String getErrorMessage(ExecutionResultDTO result) {
         // Extract meaningful error message from output lines if available
         if (result.getOutputLines() != null && !result.getOutputLines().isEmpty()) {
@@ -90,6 +113,7 @@ public class TestingService {
             case COMPILATION_ERROR -> "Code compilation failed";
             case RUNTIME_ERROR -> "Runtime error occurred during execution";
             case TIMEOUT -> "Code execution timed out";
+            case OUTPUT_LIMIT_EXCEEDED -> "Output limit exceeded";
             case OUTPUT_MISMATCH -> "Output does not match expected results";
             default -> "Unknown error occurred";
         };
@@ -0,0 +1,128 @@
+package com.coderacer.service;
+
+import com.coderacer.dto.TestCaseVerdictDTO;
+import com.coderacer.enums.OutputComparator;
+import com.coderacer.enums.TestCaseVerdict;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Judges a completed run's output against a problem's expected outputs, one output line per test case,
+ * with the problem's comparator.
+ *
+ * Every case gets a verdict, and the first failure is described for the player. With fail-fast judging,
+ * cases after the first wrong answer are SKIPPED: the runner stopped the program there, so whatever
+ * followed was never printed. With UNORDERED, a line matching none of the expected outputs left is the
+ * failure, charged to the first case that stays unmatched.
+ */
+@Component
+public class VerdictEngine {
+
+    /**
+     * @param testCases       one verdict per expected output, in order
+     * @param firstFailedTest index of the first case that failed, null if none did or the failure is an extra line
+     * @param firstFailure    what went wrong first, null when the output is accepted
+     */
+    public record Judgement(List<TestCaseVerdictDTO> testCases, int passed, Integer firstFailedTest,
+                            String firstFailure) {
+        public boolean allPassed() {
+            return firstFailure == null;
+        }
+    }
+
+    public Judgement judge(List<Integer> expected, List<String> actual, OutputComparator comparator,
+                           double tolerance, boolean failFast) {
+        List<String> lines = actual != null ? actual : List.of();
+        return comparator == OutputComparator.UNORDERED
+                ? judgeUnordered(expected, lines, failFast)
+                : judgeInOrder(expected, lines, comparator, tolerance, failFast);
+    }
+
+    private Judgement judgeInOrder(List<Integer> expected, List<String> actual, OutputComparator comparator,
+                                   double tolerance, boolean failFast) {
+        List<TestCaseVerdictDTO> cases = new ArrayList<>(expected.size());
+        int passed = 0;
+        Integer firstFailedTest = null;
+        String firstFailure = null;
+
+        for (int i = 0; i < expected.size(); i++) {
+            Integer value = expected.get(i);
+            String line = i < actual.size() ? actual.get(i) : null;
+            TestCaseVerdict verdict;
+            if (failFast && firstFailure != null) {
+                verdict = TestCaseVerdict.SKIPPED;
+            } else if (line == null) {
+                verdict = TestCaseVerdict.MISSING_OUTPUT;
+            } else if (comparator.matches(line, String.valueOf(value), tolerance)) {
+                verdict = TestCaseVerdict.ACCEPTED;
+            } else {
+                verdict = TestCaseVerdict.WRONG_ANSWER;
+            }
+
+            if (verdict == TestCaseVerdict.ACCEPTED) {
+                passed++;
+            } else if (firstFailure == null) {
+                firstFailedTest = i;
+                firstFailure = "Test case " + (i + 1) + ": expected " + value + ", got "
+                        + (line != null ? "'" + line + "'" : "no output");
+            }
+            cases.add(new TestCaseVerdictDTO(i, verdict, value, line));
+        }
+        return new Judgement(cases, passed, firstFailedTest, firstFailure);
+    }
+
+    private Judgement judgeUnordered(List<Integer> expected, List<String> actual, boolean failFast) {
+        Map<String, ArrayDeque<Integer>> unmatched = new HashMap<>();
+        for (int i = 0; i < expected.size(); i++) {
+            unmatched.computeIfAbsent(String.valueOf(expected.get(i)), value -> new ArrayDeque<>()).add(i);
+        }
+        String[] matchedLines = new String[expected.size()];
+        int passed = 0;
+        String unexpectedLine = null;
+        String firstFailure = null;
+
+        for (int j = 0; j < actual.size(); j++) {
+            String line = actual.get(j).trim();
+            ArrayDeque<Integer> cases = unmatched.get(line);
+            if (cases != null && !cases.isEmpty()) {
+                matchedLines[cases.poll()] = line;
+                passed++;
+                continue;
+            }
+            if (firstFailure == null) {
+                unexpectedLine = line;
+                firstFailure = "Output line " + (j + 1) + " '" + line + "' is not one of the expected outputs left";
+            }
+            if (failFast) break;
+        }
+
+        List<TestCaseVerdictDTO> cases = new ArrayList<>(expected.size());
+        Integer firstFailedTest = null;
+        for (int i = 0; i < expected.size(); i++) {
+            Integer value = expected.get(i);
+            if (matchedLines[i] != null) {
+                cases.add(new TestCaseVerdictDTO(i, TestCaseVerdict.ACCEPTED, value, matchedLines[i]));
+                continue;
+            }
+            TestCaseVerdict verdict;
+            String line = null;
+            if (firstFailedTest != null && failFast) {
+                verdict = TestCaseVerdict.SKIPPED;
+            } else if (unexpectedLine != null) {
+                verdict = TestCaseVerdict.WRONG_ANSWER;
+                if (firstFailedTest == null) line = unexpectedLine;
+            } else {
+                verdict = TestCaseVerdict.MISSING_OUTPUT;
+                if (firstFailure == null) firstFailure = "Test case " + (i + 1) + ": " + value + " is missing from the output";
+            }
+            if (firstFailedTest == null) firstFailedTest = i;
+            cases.add(new TestCaseVerdictDTO(i, verdict, value, line));
+        }
+        return new Judgement(cases, passed, firstFailedTest, firstFailure);
+    }
+}
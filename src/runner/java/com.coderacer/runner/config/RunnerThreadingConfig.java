@@ -0,0 +1,30 @@
+package com.coderacer.runner.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+@Configuration
+public class RunnerThreadingConfig {
+
+    /**
+     * Threads that feed submissions' stdin and run batch cases. They spend nearly all their time
+     * blocked on process pipes, so with spring.threads.virtual.enabled (on Java 21+, the same switch
+     * that moves Tomcat's request handling to virtual threads) they are virtual threads too.
+     * Otherwise they are daemon platform threads.
+     */
+    @Bean
+    public ThreadFactory processIoThreadFactory(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor("process-io-").getVirtualThreadFactory();
+        }
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("process-io-");
+        factory.setDaemon(true);
+        return factory;
+    }
+}
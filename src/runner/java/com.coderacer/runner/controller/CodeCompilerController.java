@@ -1,8 +1,25 @@
 package com.coderacer.runner.controller;
 
+import com.coderacer.runner.dto.BatchExecutionRequestDTO;
+import com.coderacer.runner.dto.BatchExecutionResultDTO;
+import com.coderacer.runner.dto.SandboxStatusDTO;
+import com.coderacer.runner.exception.ExecutionRejectedException;
 import com.coderacer.runner.model.ExecutionResult;
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+import com.coderacer.runner.model.OutputComparator;
 import com.coderacer.runner.service.CodeExecutionService;
+import com.coderacer.runner.service.DockerContainerPool;
+import com.coderacer.runner.service.ExecutionCoalescer;
+import com.coderacer.runner.service.ExecutionEngines;
+import com.coderacer.runner.service.ExecutionScheduler;
+import com.coderacer.runner.service.OutputCollector;
+import com.coderacer.runner.service.SandboxCapabilities;
+import com.coderacer.runner.service.WorkerPool;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,13 +30,25 @@ import java.util.Map;
  * REST Controller for handling code compilation and execution requests.
  *
  * The /execute endpoint expects:
- * - code: Java code string that must contain a public class with a main method
- * - inputData: Optional array of integers that will be fed to Scanner input
+ * - code: the solution snippet, wrapped into a program that reads the input
+ * - language: Optional, one of the runner's languages (see /status); JAVA when absent
+ * - inputProtocol: Optional, TEXT (default) or BINARY, how the input is encoded on the program's stdin
+ * - inputData: Optional array of integers that will be fed to the program's stdin
+ * - expectedOutput: Optional array of expected output lines; output that deviates gives OUTPUT_MISMATCH
+ * - stopOnFirstMismatch: Optional, stop the program at the first wrong line instead of running it to the end
+ * - comparator: Optional, how lines are compared with expectedOutput: EXACT (default), WHITESPACE_INSENSITIVE,
+ *   NUMERIC or UNORDERED
+ * - tolerance: Optional, for NUMERIC the absolute or relative difference still accepted; 0 when absent
+ *
+ * Identical requests (same code, input and expectation) arriving while one of them runs share its result.
+ *
+ * Output is capped (code.execution.output.max-bytes / max-lines); a program that prints more is
+ * stopped and reported as OUTPUT_LIMIT_EXCEEDED.
  *
  * Input handling:
- * - First, the count of integers is automatically provided to Scanner
+ * - First, the count of integers is automatically provided to the harness
  * - Then, each integer from inputData array is provided line by line
- * - This allows code using Scanner.nextInt() to read: count, then values
+ * - The harness reads: count, then values, and calls solution(n, arr)
  *
  * Example request:
  * {
@@ -27,27 +56,65 @@ import java.util.Map;
  *   "inputData": [1, 2, 3, 4]
  * }
  *
- * This will provide to Scanner: 4 (count), then 1, 2, 3, 4 (values)
+ * This will provide to the harness: 4 (count), then 1, 2, 3, 4 (values)
  */
 @RestController
 @RequestMapping("/api/code")
 public class CodeCompilerController {
+    /** Set by the main app to the submitting user; used to queue users fairly */
+    public static final String USER_HEADER = "X-Coderacer-User";
 
     private final CodeExecutionService codeExecutionService;
+    private final ExecutionEngines engines;
+    private final ExecutionScheduler executionScheduler;
+    private final SandboxCapabilities sandboxCapabilities;
+    private final WorkerPool workerPool;
+    private final DockerContainerPool containerPool;
+    private final ExecutionCoalescer coalescer;
 
     @Autowired
-    public CodeCompilerController(CodeExecutionService codeExecutionService) {
+    public CodeCompilerController(CodeExecutionService codeExecutionService, ExecutionEngines engines,
+                                  ExecutionScheduler executionScheduler, SandboxCapabilities sandboxCapabilities,
+                                  WorkerPool workerPool, DockerContainerPool containerPool,
+                                  ExecutionCoalescer coalescer) {
         this.codeExecutionService = codeExecutionService;
+        this.engines = engines;
+        this.executionScheduler = executionScheduler;
+        this.sandboxCapabilities = sandboxCapabilities;
+        this.workerPool = workerPool;
+        this.containerPool = containerPool;
+        this.coalescer = coalescer;
     }
 
     /**
-     * Endpoint to compile and run Java code with input data
+     * Reports which sandbox backend submissions currently go to, from the cached capability probe
+     */
+    @GetMapping("/status")
+    public ResponseEntity<SandboxStatusDTO> status() {
+        SandboxStatusDTO status = sandboxCapabilities.getStatus();
+        status.setWorkerPoolEnabled(workerPool.isEnabled());
+        status.setContainerPoolEnabled(containerPool.isEnabled());
+        status.setLanguages(List.copyOf(engines.getLanguages()));
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * Endpoint to compile and run code in any supported language with input data
      */
     @PostMapping("/execute")
-    public ResponseEntity<ExecutionResult> executeCode(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<ExecutionResult> executeCode(@RequestBody Map<String, Object> request,
+                                                       @RequestHeader(value = USER_HEADER, required = false) String user,
+                                                       HttpServletRequest servletRequest) {
         try {
             String code = (String) request.get("code");
             List<Integer> inputData = (List<Integer>) request.get("inputData");
+            List<?> expected = (List<?>) request.get("expectedOutput");
+            List<String> expectedOutput = expected == null ? null : expected.stream().map(String::valueOf).toList();
+            boolean stopOnFirstMismatch = Boolean.TRUE.equals(request.get("stopOnFirstMismatch"));
+            Object requestedLanguage = request.get("language");
+            Object requestedProtocol = request.get("inputProtocol");
+            Object requestedComparator = request.get("comparator");
+            double tolerance = request.get("tolerance") instanceof Number number ? number.doubleValue() : 0;
 
             if (code == null || code.trim().isEmpty()) {
                 ExecutionResult errorResult = new ExecutionResult();
@@ -55,9 +122,40 @@ public class CodeCompilerController {
                 errorResult.getOutputLines().add("Code cannot be empty");
                 return ResponseEntity.badRequest().body(errorResult);
             }
+            Language language = parseEnum(requestedLanguage, Language.class, Language.JAVA);
+            if (language == null || !engines.getLanguages().contains(language)) {
+                ExecutionResult errorResult = new ExecutionResult();
+                errorResult.setResult(ExecutionResult.Result.COMPILATION_ERROR);
+                errorResult.getOutputLines().add("Unsupported language: " + requestedLanguage);
+                return ResponseEntity.badRequest().body(errorResult);
+            }
+            InputProtocol protocol = parseEnum(requestedProtocol, InputProtocol.class, InputProtocol.TEXT);
+            if (protocol == null) {
+                ExecutionResult errorResult = new ExecutionResult();
+                errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+                errorResult.getOutputLines().add("Unsupported input protocol: " + requestedProtocol);
+                return ResponseEntity.badRequest().body(errorResult);
+            }
 
-            ExecutionResult result = codeExecutionService.compileAndRun(code, inputData);
+            OutputComparator comparator = parseEnum(requestedComparator, OutputComparator.class, OutputComparator.EXACT);
+            if (comparator == null) {
+                ExecutionResult errorResult = new ExecutionResult();
+                errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+                errorResult.getOutputLines().add("Unsupported comparator: " + requestedComparator);
+                return ResponseEntity.badRequest().body(errorResult);
+            }
+
+            OutputCollector.Expectation expectation = new OutputCollector.Expectation(expectedOutput, stopOnFirstMismatch,
+                    comparator, tolerance);
+            String key = ExecutionCoalescer.key(language, protocol, code, inputData, expectation);
+            ExecutionResult result = coalescer.execute(key, () -> executionScheduler.execute(submitter(user, servletRequest), 1,
+                    () -> engines.execute(language, code, inputData, protocol, expectation)));
             return ResponseEntity.ok(result);
+        } catch (ExecutionRejectedException e) {
+            ExecutionResult errorResult = new ExecutionResult();
+            errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            errorResult.getOutputLines().add("Runner is busy: " + e.getMessage());
+            return tooManyRequests(e).body(errorResult);
         } catch (Exception e) {
             ExecutionResult errorResult = new ExecutionResult();
             errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
@@ -66,11 +164,65 @@ public class CodeCompilerController {
         }
     }
 
+    /**
+     * Compiles the code once and runs it against each input set separately.
+     *
+     * Example request:
+     * {
+     *   "code": "static void solution(int n, int[] arr) { System.out.println(n); }",
+     *   "inputs": [[1, 2, 3], [5], []]
+     * }
+     *
+     * Each case gets its own status, output lines, wall time and peak memory.
+     */
+    @PostMapping("/execute-batch")
+    public ResponseEntity<BatchExecutionResultDTO> executeBatch(@RequestBody BatchExecutionRequestDTO request,
+                                                                @RequestHeader(value = USER_HEADER, required = false) String user,
+                                                                HttpServletRequest servletRequest) {
+        try {
+            if (request.getCode() == null || request.getCode().trim().isEmpty()) {
+                BatchExecutionResultDTO errorResult = new BatchExecutionResultDTO();
+                errorResult.setResult(ExecutionResult.Result.COMPILATION_ERROR);
+                errorResult.getOutputLines().add("Code cannot be empty");
+                return ResponseEntity.badRequest().body(errorResult);
+            }
+            if (request.getInputs() == null || request.getInputs().isEmpty()) {
+                BatchExecutionResultDTO errorResult = new BatchExecutionResultDTO();
+                errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+                errorResult.getOutputLines().add("At least one input set is required");
+                return ResponseEntity.badRequest().body(errorResult);
+            }
+
+            int slots = codeExecutionService.getBatchParallelism(request.getInputs().size());
+            InputProtocol protocol = request.getInputProtocol() != null ? request.getInputProtocol() : InputProtocol.TEXT;
+            String key = ExecutionCoalescer.batchKey(protocol, request.getCode(), request.getInputs());
+            return ResponseEntity.ok(coalescer.execute(key, () -> executionScheduler.execute(submitter(user, servletRequest), slots,
+                    () -> codeExecutionService.compileAndRunBatch(request.getCode(), request.getInputs(), protocol))));
+        } catch (ExecutionRejectedException e) {
+            BatchExecutionResultDTO errorResult = new BatchExecutionResultDTO();
+            errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            errorResult.getOutputLines().add("Runner is busy: " + e.getMessage());
+            return tooManyRequests(e).body(errorResult);
+        } catch (IllegalArgumentException e) {
+            BatchExecutionResultDTO errorResult = new BatchExecutionResultDTO();
+            errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            errorResult.getOutputLines().add(e.getMessage());
+            return ResponseEntity.badRequest().body(errorResult);
+        } catch (Exception e) {
+            BatchExecutionResultDTO errorResult = new BatchExecutionResultDTO();
+            errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            errorResult.getOutputLines().add("Controller error: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResult);
+        }
+    }
+
     /**
      * Legacy endpoint for backward compatibility - accepts just code as string
      */
     @PostMapping("/execute-simple")
-    public ResponseEntity<ExecutionResult> executeCodeSimple(@RequestBody String code) {
+    public ResponseEntity<ExecutionResult> executeCodeSimple(@RequestBody String code,
+                                                             @RequestHeader(value = USER_HEADER, required = false) String user,
+                                                             HttpServletRequest servletRequest) {
         try {
             if (code == null || code.trim().isEmpty()) {
                 ExecutionResult errorResult = new ExecutionResult();
@@ -79,8 +231,14 @@ public class CodeCompilerController {
                 return ResponseEntity.badRequest().body(errorResult);
             }
 
-            ExecutionResult result = codeExecutionService.compileAndRun(code, null);
+            ExecutionResult result = executionScheduler.execute(submitter(user, servletRequest), 1,
+                    () -> codeExecutionService.compileAndRun(code, null));
             return ResponseEntity.ok(result);
+        } catch (ExecutionRejectedException e) {
+            ExecutionResult errorResult = new ExecutionResult();
+            errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            errorResult.getOutputLines().add("Runner is busy: " + e.getMessage());
+            return tooManyRequests(e).body(errorResult);
         } catch (Exception e) {
             ExecutionResult errorResult = new ExecutionResult();
             errorResult.setResult(ExecutionResult.Result.RUNTIME_ERROR);
@@ -88,4 +246,28 @@ public class CodeCompilerController {
             return ResponseEntity.internalServerError().body(errorResult);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the constant named in a request (case-insensitive), absent when none is given, null if unknown
+     */
+    private static <E extends Enum<E>> E parseEnum(Object value, Class<E> type, E absent) {
+        if (value == null) return absent;
+        try {
+            return Enum.valueOf(type, value.toString().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fairness key: the user the main app submits for, or the caller's address for direct calls
+     */
+    private static String submitter(String user, HttpServletRequest request) {
+        return user != null && !user.isBlank() ? user : request.getRemoteAddr();
+    }
+
+    private static ResponseEntity.BodyBuilder tooManyRequests(ExecutionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()));
+    }
+}
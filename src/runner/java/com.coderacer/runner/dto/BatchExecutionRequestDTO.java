@@ -0,0 +1,21 @@
+package com.coderacer.runner.dto;
+
+import com.coderacer.runner.model.InputProtocol;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchExecutionRequestDTO {
+    private String code;
+
+    /** Independent input sets; each one is fed to a separate run of the compiled code */
+    private List<List<Integer>> inputs;
+
+    /** TEXT when absent */
+    private InputProtocol inputProtocol;
+}
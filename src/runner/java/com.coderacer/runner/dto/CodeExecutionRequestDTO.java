@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+
 import java.util.List;
 
 @Data
@@ -12,4 +15,8 @@ import java.util.List;
 public class CodeExecutionRequestDTO {
     private String code;
     private List<Integer> inputData;
+    /** JAVA when absent */
+    private Language language;
+    /** TEXT when absent */
+    private InputProtocol inputProtocol;
 }
\ No newline at end of file
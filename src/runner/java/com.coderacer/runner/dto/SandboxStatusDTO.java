@@ -0,0 +1,36 @@
+package com.coderacer.runner.dto;
+
+import com.coderacer.runner.model.Language;
+import com.coderacer.runner.service.SandboxCapabilities;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SandboxStatusDTO {
+
+    /** Backend new submissions are routed to */
+    private SandboxCapabilities.Backend backend;
+
+    private boolean dockerAvailable;
+
+    /** Whether a javac binary is on the PATH for the direct backend */
+    private boolean javacAvailable;
+
+    private boolean inProcessCompilerAvailable;
+
+    /** When the capabilities were last probed */
+    private Instant lastProbe;
+
+    private boolean workerPoolEnabled;
+
+    private boolean containerPoolEnabled;
+
+    /** Languages /api/code/execute accepts */
+    private List<Language> languages;
+}
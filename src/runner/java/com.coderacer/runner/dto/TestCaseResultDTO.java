@@ -0,0 +1,28 @@
+package com.coderacer.runner.dto;
+
+import com.coderacer.runner.model.ExecutionResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseResultDTO {
+
+    /** Outcome of running one input set */
+    private ExecutionResult.Result result;
+
+    private List<String> outputLines;
+
+    /** Wall-clock time of the run, in milliseconds */
+    private long wallTimeMillis;
+
+    /** CPU time of the run in milliseconds, 0 when it could not be measured */
+    private long cpuTimeMillis;
+
+    /** Peak resident memory of the JVM running the case in KiB, 0 when it could not be measured */
+    private long peakMemoryKb;
+}
@@ -0,0 +1,17 @@
+package com.coderacer.runner.exception;
+
+/**
+ * Thrown when the runner is saturated and turns a submission away instead of queueing it.
+ */
+public class ExecutionRejectedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ExecutionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -16,9 +16,11 @@ public class ExecutionResult {
     
     public enum Result {
         SUCCESS,
+        OUTPUT_MISMATCH,
         COMPILATION_ERROR,
         RUNTIME_ERROR,
-        TIMEOUT
+        TIMEOUT,
+        OUTPUT_LIMIT_EXCEEDED
     }
     
     @Id
@@ -38,4 +40,16 @@ public class ExecutionResult {
     @ElementCollection(fetch = FetchType.LAZY)
     @Column(nullable = false)
     private List<String> outputLines = new ArrayList<>();
+
+    /** Time spent compiling the submission, reported separately from the run */
+    private long compileTimeMillis;
+
+    /** Wall-clock time of the run (not the compile), in milliseconds */
+    private long wallTimeMillis;
+
+    /** CPU time the run used, in milliseconds; 0 when it could not be measured */
+    private long cpuTimeMillis;
+
+    /** Peak resident memory of the run in KiB; 0 when it could not be measured */
+    private long peakMemoryKb;
 }
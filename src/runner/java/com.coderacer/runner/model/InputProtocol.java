@@ -0,0 +1,37 @@
+package com.coderacer.runner.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * How a problem's input reaches the generated harness on stdin. Either way the harness reads the count,
+ * then that many ints, and hands them to solution(n, arr); the problem author picks the encoding.
+ */
+public enum InputProtocol {
+    /** Decimal text, the count then one value per line, read with a buffered tokenizer */
+    TEXT {
+        @Override
+        public byte[] encode(List<Integer> inputData) {
+            if (inputData == null || inputData.isEmpty()) return new byte[0];
+            StringBuilder sb = new StringBuilder(inputData.size() * 8).append(inputData.size()).append('\n');
+            for (int v : inputData) sb.append(v).append('\n');
+            return sb.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    },
+    /** Length-prefixed stream of big-endian 32-bit ints: nothing to parse, for problems with large inputs */
+    BINARY {
+        @Override
+        public byte[] encode(List<Integer> inputData) {
+            if (inputData == null || inputData.isEmpty()) return new byte[0];
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * (inputData.size() + 1)).putInt(inputData.size());
+            for (int v : inputData) buffer.putInt(v);
+            return buffer.array();
+        }
+    };
+
+    /**
+     * @return the bytes to write to the program's stdin; empty for no input, which the harness fails to read
+     */
+    public abstract byte[] encode(List<Integer> inputData);
+}
@@ -0,0 +1,17 @@
+package com.coderacer.runner.model;
+
+/**
+ * Languages a submission can be written in; mirrors the main app's ProgrammingLanguage.
+ * Which of them this runner can execute is reported by /api/code/status.
+ */
+public enum Language {
+    PYTHON,
+    JAVASCRIPT,
+    JAVA,
+    C,
+    CPP,
+    CSHARP,
+    GO,
+    RUST,
+    KOTLIN
+}
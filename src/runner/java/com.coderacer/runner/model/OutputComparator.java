@@ -0,0 +1,46 @@
+package com.coderacer.runner.model;
+
+import java.math.BigDecimal;
+
+/**
+ * How an output line is compared with the expected one. Lines arrive trimmed, blank lines skipped.
+ */
+public enum OutputComparator {
+    /** The line as printed */
+    EXACT,
+    /** Runs of whitespace inside the line count as one space */
+    WHITESPACE_INSENSITIVE,
+    /** Both parse as numbers within the tolerance, absolute or relative to the expected value */
+    NUMERIC,
+    /** Lines compared as printed, in any order: the output is a permutation of the expected lines */
+    UNORDERED;
+
+    /**
+     * Compares one line; for UNORDERED this is how a line is matched to one of the remaining expected lines.
+     */
+    public boolean matches(String actual, String expected, double tolerance) {
+        return switch (this) {
+            case EXACT, UNORDERED -> actual.trim().equals(expected.trim());
+            case WHITESPACE_INSENSITIVE -> normalizeWhitespace(actual).equals(normalizeWhitespace(expected));
+            case NUMERIC -> numericallyEqual(actual, expected, tolerance);
+        };
+    }
+
+    private static String normalizeWhitespace(String line) {
+        return line.trim().replaceAll("\\s+", " ");
+    }
+
+    private static boolean numericallyEqual(String actual, String expected, double tolerance) {
+        BigDecimal a;
+        BigDecimal e;
+        try {
+            a = new BigDecimal(actual.trim());
+            e = new BigDecimal(expected.trim());
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+        if (tolerance <= 0) return a.compareTo(e) == 0;
+        double difference = Math.abs(a.doubleValue() - e.doubleValue());
+        return difference <= tolerance || difference <= tolerance * Math.abs(e.doubleValue());
+    }
+}
@@ -0,0 +1,74 @@
+package com.coderacer.runner.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Executables built from submissions in compiled languages (C, C++, Go, Rust), so a resubmitted
+ * program skips the compiler. The counterpart of {@link CompiledClassCache} for native toolchains:
+ * keyed by {@link CompiledClassCache#key} of the wrapped source and the toolchain that built it,
+ * evicted least-recently-used past max-entries or max-bytes. Cached bytes must never be modified.
+ */
+@Component
+public class BinaryCache {
+
+    @Value("${code.execution.binary-cache.enabled:true}")
+    private boolean enabled = true;
+    @Value("${code.execution.binary-cache.max-entries:500}")
+    private int maxEntries = 500;
+    @Value("${code.execution.binary-cache.max-bytes:268435456}")
+    private long maxBytes = 256L * 1024 * 1024;
+
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public BinaryCache(MeterRegistry registry) {
+        hits = registry.counter("runner.binary.cache.requests", "result", "hit");
+        misses = registry.counter("runner.binary.cache.requests", "result", "miss");
+        evictions = registry.counter("runner.binary.cache.evictions");
+        Gauge.builder("runner.binary.cache.entries", this, BinaryCache::size).register(registry);
+        Gauge.builder("runner.binary.cache.bytes", this, BinaryCache::bytes).baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * @return the cached executable, or null on a miss (or when the cache is disabled)
+     */
+    public synchronized byte[] get(String key) {
+        if (!enabled) return null;
+        byte[] binary = entries.get(key);
+        (binary != null ? hits : misses).increment();
+        return binary;
+    }
+
+    public synchronized void put(String key, byte[] binary) {
+        if (!enabled || binary.length == 0 || binary.length > maxBytes) return;
+        byte[] previous = entries.put(key, binary);
+        if (previous != null) totalBytes -= previous.length;
+        totalBytes += binary.length;
+
+        Iterator<byte[]> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+            totalBytes -= eldest.next().length;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return totalBytes;
+    }
+}
@@ -0,0 +1,129 @@
+package com.coderacer.runner.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * Installs a tiny launcher class that lets a child JVM run classes compiled in memory.
+ * The launcher reads the class bytes from the head of stdin, defines them in its own classloader
+ * and invokes main; the remainder of stdin is left for the submission's harness.
+ *
+ * Frame layout: mainClass (UTF), classCount (int), then per class: name (UTF), length (int), bytes.
+ */
+@Component
+public class ClassLauncher {
+    public static final String LAUNCHER_CLASS = "CoderacerLauncher";
+    private static final String LAUNCHER_SOURCE =
+            """
+                    import java.io.DataInputStream;
+                    import java.lang.reflect.InvocationTargetException;
+                    import java.util.HashMap;
+                    import java.util.Map;
+                    public class CoderacerLauncher extends ClassLoader {
+                        private final Map<String, byte[]> classes;
+                        CoderacerLauncher(Map<String, byte[]> classes) {
+                            super(CoderacerLauncher.class.getClassLoader());
+                            this.classes = classes;
+                        }
+                        @Override
+                        protected Class<?> findClass(String name) throws ClassNotFoundException {
+                            byte[] bytes = classes.remove(name);
+                            if (bytes == null) throw new ClassNotFoundException(name);
+                            return defineClass(name, bytes, 0, bytes.length);
+                        }
+                        public static void main(String[] args) throws Throwable {
+                            DataInputStream in = new DataInputStream(System.in);
+                            String mainClass = in.readUTF();
+                            int count = in.readInt();
+                            Map<String, byte[]> classes = new HashMap<>();
+                            for (int i = 0; i < count; i++) {
+                                String name = in.readUTF();
+                                byte[] bytes = new byte[in.readInt()];
+                                in.readFully(bytes);
+                                classes.put(name, bytes);
+                            }
+                            Class<?> c = new CoderacerLauncher(classes).loadClass(mainClass);
+                            try {
+                                c.getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }""";
+
+    private final InMemoryJavaCompiler compiler;
+
+    @Value("${code.execution.launcher-dir:}")
+    private String launcherDir;
+
+    private Path directory;
+
+    public ClassLauncher(InMemoryJavaCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Compiles the launcher once and writes it to the launcher directory.
+     */
+    @PostConstruct
+    public void install() throws IOException {
+        if (!compiler.isAvailable()) return;
+        Path dir = launcherDir == null || launcherDir.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "coderacer-runner", "launcher")
+                : Paths.get(launcherDir.trim());
+        Files.createDirectories(dir);
+        directory = dir.toAbsolutePath();
+        installClass(LAUNCHER_CLASS, LAUNCHER_SOURCE);
+    }
+
+    /**
+     * Compiles a runner-supplied helper class (no package) into the launcher directory,
+     * so child JVMs can start it with the directory as their classpath.
+     */
+    public void installClass(String className, String source) throws IOException {
+        if (directory == null) throw new IllegalStateException("Launcher directory is not installed");
+        InMemoryJavaCompiler.CompilationOutput output = compiler.compile(className, source);
+        if (!output.success()) {
+            throw new IllegalStateException("Could not compile " + className + ": " + output.diagnostics());
+        }
+        for (Map.Entry<String, byte[]> entry : output.classes().entrySet()) {
+            // write-then-rename: other runner instances on the same host may be starting from this directory
+            Path tmp = Files.createTempFile(directory, entry.getKey(), ".tmp");
+            Files.write(tmp, entry.getValue());
+            Files.move(tmp, directory.resolve(entry.getKey() + ".class"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * @return directory to put on the child JVM's classpath, or null if the launcher is not installed
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes the class frames the launcher expects at the start of its stdin.
+     */
+    public void writeClasses(OutputStream out, String mainClass, Map<String, byte[]> classes) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeUTF(mainClass);
+        data.writeInt(classes.size());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeInt(entry.getValue().length);
+            data.write(entry.getValue());
+        }
+        data.flush();
+    }
+}
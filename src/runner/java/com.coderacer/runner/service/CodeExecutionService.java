@@ -1,13 +1,23 @@
 package com.coderacer.runner.service;
 
+import com.coderacer.runner.dto.BatchExecutionResultDTO;
+import com.coderacer.runner.dto.TestCaseResultDTO;
 import com.coderacer.runner.model.ExecutionResult;
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Refactored service for compiling and executing Java code with optional Docker isolation.
@@ -27,18 +37,73 @@ import java.util.concurrent.TimeUnit;
  * }
  */
 @Service
-public class CodeExecutionService {
-    private static final long EXECUTION_TIMEOUT_SECONDS = 10;
+public class CodeExecutionService implements ExecutionEngine {
+    /**
+     * How submissions get compiled: by forking javac (directly or in Docker, per use-docker),
+     * or with the runner's own warmed in-memory compiler.
+     */
+    public enum CompileMode { PROCESS, IN_PROCESS }
+
+    private static final int DOCKER_DAEMON_ERROR = 125;
+    private static final long USAGE_SAMPLE_MILLIS = 10;
+    /** In-process compiles allowed to wait for a compiler thread */
+    private static final int IN_PROCESS_COMPILE_QUEUE = 64;
+    /**
+     * Harness for {@link InputProtocol#TEXT}: a hand-rolled tokenizer over a 64 KiB buffer instead of
+     * Scanner, whose regex matching dominates the run time of inputs in the 10^5-10^6 range. Helpers are
+     * static members of the submission class itself (no nested classes), so a run only ever needs
+     * the one class file; their names start with '$' to stay out of the way of the snippet.
+     */
     private static final String JAVA_TEMPLATE =
             """
                     import java.util.*;
+                    import java.io.*;
                     public class %s {
+                        private static final InputStream $in = System.in;
+                        private static final byte[] $buffer = new byte[1 << 16];
+                        private static int $length, $position;
+                        private static int $read() throws IOException {
+                            if ($position == $length) {
+                                $length = Math.max(0, $in.read($buffer, 0, $buffer.length));
+                                $position = 0;
+                                if ($length == 0) return -1;
+                            }
+                            return $buffer[$position++];
+                        }
+                        private static int $nextInt() throws IOException {
+                            int c = $read();
+                            while (c != -1 && c != '-' && (c < '0' || c > '9')) c = $read();
+                            if (c == -1) throw new EOFException("No more input");
+                            boolean negative = c == '-';
+                            if (negative) c = $read();
+                            int value = 0;
+                            while (c >= '0' && c <= '9') {
+                                value = value * 10 + (c - '0');
+                                c = $read();
+                            }
+                            return negative ? -value : value;
+                        }
                         public static void main(String[] args) throws Exception{
-                            Scanner sc = new Scanner(System.in);
-                            int n = sc.nextInt();
+                            int n = $nextInt();
                             int[] arr = new int[n];
-                            for (int i = 0; i < n; i++) arr[i] = sc.nextInt();
-                            sc.close();
+                            for (int i = 0; i < n; i++) arr[i] = $nextInt();
+                            solution(n, arr);
+                        }
+                        %s
+                    }""";
+    /**
+     * Harness for {@link InputProtocol#BINARY}: the count and values are read as raw big-endian ints.
+     */
+    private static final String JAVA_BINARY_TEMPLATE =
+            """
+                    import java.util.*;
+                    import java.io.*;
+                    public class %s {
+                        public static void main(String[] args) throws Exception{
+                            DataInputStream $in = new DataInputStream(new BufferedInputStream(System.in, 1 << 16));
+                            int n = $in.readInt();
+                            int[] arr = new int[n];
+                            for (int i = 0; i < n; i++) arr[i] = $in.readInt();
                             solution(n, arr);
                         }
                         %s
@@ -46,76 +111,633 @@ public class CodeExecutionService {
 
     @Value("${code.execution.use-docker:true}")
     private boolean useDocker;
-    @Value("${code.execution.docker.memory:64m}")
-    private String dockerMemoryLimit= "64m";
-    @Value("${code.execution.docker.cpu:0.2}")
-    private String dockerCpuLimit = "0.2";
-    @Value("${code.execution.docker.seccomp-profile:}")
-    private String seccompProfilePath = "src/runner/java/com.coderacer/runner/security/seccomp.json";
+    @Value("${code.execution.compile-mode:process}")
+    private CompileMode compileMode = CompileMode.PROCESS;
+    @Value("${code.execution.output.max-bytes:1048576}")
+    private long maxOutputBytes = 1048576;
+    @Value("${code.execution.output.max-lines:10000}")
+    private int maxOutputLines = 10000;
+    @Value("${code.execution.batch.parallelism:0}")
+    private int batchParallelism;
+    @Value("${code.execution.batch.max-cases:100}")
+    private int maxBatchCases = 100;
+    @Value("${code.execution.in-process.max-source-bytes:65536}")
+    private int maxInProcessSourceBytes = 65536;
+
+    private final InMemoryJavaCompiler inMemoryCompiler;
+    private final ClassLauncher classLauncher;
+    private final DockerSandbox dockerSandbox;
+    private final WorkerPool workerPool;
+    private final DockerContainerPool containerPool;
+    private final SandboxCapabilities capabilities;
+    private final CompiledClassCache classCache;
+    private final DeadlineManager deadlines;
+    private final WorkspaceManager workspaces;
+    /** Starts the resource usage line sandboxes print after the program's output */
+    private final String usageMarker = "#coderacer-usage-" + UUID.randomUUID();
+    private final ThreadFactory processIoThreads;
+    private final ExecutorService stdinWriters;
+    /**
+     * In-process compiles. javac does not stop when interrupted, so a compile that runs past the deadline
+     * is abandoned and keeps its thread until it ends; bounded, that takes at most these threads.
+     */
+    private final ThreadPoolExecutor inProcessCompiles = new ThreadPoolExecutor(
+            Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors(),
+            0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(IN_PROCESS_COMPILE_QUEUE), r -> {
+        Thread t = new Thread(r, "in-process-compiler");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ScheduledExecutorService usageSampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "usage-sampler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CodeExecutionService(InMemoryJavaCompiler inMemoryCompiler, ClassLauncher classLauncher,
+                                DockerSandbox dockerSandbox, WorkerPool workerPool,
+                                DockerContainerPool containerPool, SandboxCapabilities capabilities,
+                                CompiledClassCache classCache, DeadlineManager deadlines,
+                                WorkspaceManager workspaces,
+                                @Qualifier("processIoThreadFactory") ThreadFactory processIoThreads) {
+        this.inMemoryCompiler = inMemoryCompiler;
+        this.classLauncher = classLauncher;
+        this.dockerSandbox = dockerSandbox;
+        this.workerPool = workerPool;
+        this.containerPool = containerPool;
+        this.capabilities = capabilities;
+        this.classCache = classCache;
+        this.deadlines = deadlines;
+        this.workspaces = workspaces;
+        this.processIoThreads = processIoThreads;
+        this.stdinWriters = Executors.newCachedThreadPool(processIoThreads);
+    }
 
     /**
      * Default entry: always wrap snippet in template so standalone methods compile.
      */
     public ExecutionResult compileAndRun(String code, List<Integer> inputData) {
-        return executePipeline(code, inputData);
+        return executePipeline(code, inputData, InputProtocol.TEXT, OutputCollector.Expectation.NONE);
+    }
+
+    /**
+     * Like {@link #compileAndRun(String, List)}, but checks the output against the expected lines
+     * as it is produced: a deviation gives OUTPUT_MISMATCH, and with stopOnFirstMismatch the
+     * program is stopped at the first wrong line.
+     */
+    public ExecutionResult compileAndRun(String code, List<Integer> inputData, List<String> expectedOutput,
+                                         boolean stopOnFirstMismatch) {
+        return executePipeline(code, inputData, InputProtocol.TEXT,
+                new OutputCollector.Expectation(expectedOutput, stopOnFirstMismatch));
+    }
+
+    @Override
+    public Set<Language> getLanguages() {
+        return EnumSet.of(Language.JAVA);
+    }
+
+    @Override
+    public ExecutionResult execute(Language language, String code, List<Integer> inputData, InputProtocol protocol,
+                                   OutputCollector.Expectation expectation) {
+        return executePipeline(code, inputData, protocol, expectation);
+    }
+
+    /**
+     * @return whether submissions currently go to Docker sandboxes rather than local processes
+     */
+    public boolean isDockerMode() {
+        return useDocker && capabilities.isDockerAvailable();
+    }
+
+    /**
+     * Waits for a compiler process of any language under the compile deadline, recording its
+     * diagnostics or timeout in result.
+     *
+     * @param docker whether the process is a docker client
+     * @return whether it compiled
+     */
+    public boolean compileSubmission(Process compileProcess, ExecutionResult result, boolean docker)
+            throws IOException, InterruptedException {
+        boolean compiled = awaitCompile(compileProcess, result, docker);
+        if (docker) checkDockerExit(compileProcess);
+        return compiled;
+    }
+
+    /**
+     * Feeds the encoded input to a started program of any language and collects its result, output and
+     * resource usage under the run deadline and output caps.
+     *
+     * @param docker whether the process is a docker client whose command went through {@link #withUsageReport}
+     */
+    public void runSubmission(Process runProcess, byte[] input, ExecutionResult result,
+                              OutputCollector.Expectation expectation, boolean docker)
+            throws IOException, InterruptedException {
+        feedStdin(runProcess, stdin -> stdin.write(input));
+        awaitRun(runProcess, result, expectation, docker);
+        if (docker) checkDockerExit(runProcess);
+    }
+
+    /**
+     * Compiles the snippet once and runs it against every input set independently, in parallel
+     * across cores, in the same sandbox backend as a single run. Per-case results are only present
+     * when the code compiled.
+     *
+     * @throws IllegalArgumentException if there are more input sets than code.execution.batch.max-cases
+     */
+    public BatchExecutionResultDTO compileAndRunBatch(String code, List<List<Integer>> inputs) {
+        return compileAndRunBatch(code, inputs, InputProtocol.TEXT);
+    }
+
+    /**
+     * Like {@link #compileAndRunBatch(String, List)}, with the input sets fed in the given protocol.
+     */
+    public BatchExecutionResultDTO compileAndRunBatch(String code, List<List<Integer>> inputs, InputProtocol protocol) {
+        if (inputs.size() > maxBatchCases) {
+            throw new IllegalArgumentException("At most " + maxBatchCases + " input sets are allowed per batch");
+        }
+        BatchExecutionResultDTO batch = new BatchExecutionResultDTO();
+        if (classLauncher.getDirectory() == null) {
+            // no launcher to run pre-compiled classes with: every case goes through the full pipeline
+            batch.setResult(ExecutionResult.Result.SUCCESS);
+            batch.setCases(runCases(inputs,
+                    input -> toCase(executePipeline(code, input, protocol, OutputCollector.Expectation.NONE))));
+            return batch;
+        }
+
+        String className = CompiledClassCache.className(code);
+        String fullCode = String.format(template(protocol), className, code);
+        boolean withDocker = isDockerMode();
+
+        ExecutionResult compileResult = new ExecutionResult();
+        Map<String, byte[]> classes = compileOnce(className, fullCode, withDocker, compileResult);
+        batch.setCompileTimeMillis(compileResult.getCompileTimeMillis());
+        if (classes == null) {
+            batch.setResult(compileResult.getResult());
+            batch.setOutputLines(compileResult.getOutputLines());
+            return batch;
+        }
+
+        DockerContainerPool.Container container = null;
+        try {
+            if (withDocker && containerPool.isEnabled() && !workerPool.isEnabled()) container = containerPool.acquire();
+        } catch (RejectedExecutionException | InterruptedException e) {
+            batch.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            batch.getOutputLines().add("Runner is busy: " + e.getMessage());
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            return batch;
+        }
+        DockerContainerPool.Container sandbox = container;
+        List<TestCaseResultDTO> cases = List.of();
+        try {
+            cases = runCases(inputs, input -> runCase(className, classes, protocol.encode(input), withDocker, sandbox));
+        } finally {
+            if (container != null) {
+                containerPool.release(container,
+                        cases.stream().anyMatch(c -> c.getResult() == ExecutionResult.Result.TIMEOUT));
+            }
+        }
+        batch.setResult(ExecutionResult.Result.SUCCESS);
+        batch.setCases(cases);
+        return batch;
+    }
+
+    /**
+     * @return how many cases of a batch of this size run at the same time
+     */
+    public int getBatchParallelism(int cases) {
+        int cores = batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(cores, cases));
     }
 
     /**
      * Internal unified pipeline for setup, compile, and run.
      */
-    private ExecutionResult executePipeline(String code, List<Integer> inputData) {
-        String uniqueId = UUID.randomUUID().toString().replace("-", "");
-        String className = "GeneratedClass_" + uniqueId;
-        String fullCode = String.format(JAVA_TEMPLATE, className, code);
+    private ExecutionResult executePipeline(String code, List<Integer> inputData, InputProtocol protocol,
+                                            OutputCollector.Expectation expectation) {
+        String className = CompiledClassCache.className(code);
+        String fullCode = String.format(template(protocol), className, code);
+        byte[] input = protocol.encode(inputData);
 
-        boolean withDocker = useDocker && isDockerAvailable();
-        Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"), "java_code_exec_" + uniqueId);
+        boolean withDocker = isDockerMode();
+        if (withDocker && containerPool.isEnabled() && !workerPool.isEnabled()) {
+            return executeInContainer(className, fullCode, input, expectation);
+        }
+        if (compileMode == CompileMode.IN_PROCESS && classLauncher.getDirectory() != null) {
+            return executeInMemory(className, fullCode, input, withDocker, expectation);
+        }
         ExecutionResult result = new ExecutionResult();
 
+        try (WorkspaceManager.Workspace workspace = workspaces.acquire()) {
+            Path tempDir = workspace.getDirectory();
+            prepareEnvironment(tempDir, className, fullCode);
+            String cacheKey = CompiledClassCache.key(fullCode, compilerVersion(withDocker));
+            Map<String, byte[]> classes = classCache.get(cacheKey);
+            if (classes != null) {
+                writeClasses(tempDir, classes);
+            } else {
+                if (!compile(tempDir, className, withDocker, result)) return result;
+                classes = readClasses(tempDir);
+                classCache.put(cacheKey, classes);
+            }
+            if (workerPool.isEnabled()) {
+                runOnWorker(className, classes, input, result, expectation);
+            } else {
+                run(tempDir, className, input, withDocker, result, expectation);
+            }
+        } catch (IOException | InterruptedException e) {
+            result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            result.getOutputLines().add((withDocker ? "Docker" : "Direct") + " execution error: " + e.getMessage());
+            if (withDocker) capabilities.reportFailure();
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    /**
+     * Pipeline for the in-process compile mode: source and class files never touch the file system,
+     * the compiled bytes are streamed to the launcher (or a pooled worker) ahead of the input data.
+     */
+    private ExecutionResult executeInMemory(String className, String fullCode, byte[] input, boolean withDocker,
+                                            OutputCollector.Expectation expectation) {
+        ExecutionResult result = new ExecutionResult();
+        Map<String, byte[]> classes = compileInMemory(className, fullCode, result);
+        if (classes == null) return result;
         try {
-            prepareEnvironment(tempDir, className, fullCode, inputData);
-            if (!compile(tempDir, className, withDocker, result)) return result;
-            run(tempDir, className, inputData, withDocker, result);
+            if (workerPool.isEnabled()) {
+                runOnWorker(className, classes, input, result, expectation);
+                return result;
+            }
+            Process runProcess = withDocker
+                    ? createDockerLauncherProcess()
+                    : createDirectLauncherProcess();
+            feedStdin(runProcess, stdin -> {
+                classLauncher.writeClasses(stdin, className, classes);
+                stdin.write(input);
+            });
+            awaitRun(runProcess, result, expectation, withDocker);
         } catch (IOException | InterruptedException e) {
             result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
             result.getOutputLines().add((withDocker ? "Docker" : "Direct") + " execution error: " + e.getMessage());
-            Thread.currentThread().interrupt();
+            if (withDocker) capabilities.reportFailure();
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    /**
+     * Pipeline for the Docker container pool: compile and run are dispatched with "docker exec"
+     * into one pre-started sandbox container, which is handed back (and normally replaced) afterwards.
+     */
+    private ExecutionResult executeInContainer(String className, String fullCode, byte[] input,
+                                               OutputCollector.Expectation expectation) {
+        ExecutionResult result = new ExecutionResult();
+        DockerContainerPool.Container container = null;
+        boolean failed = true;
+        try {
+            container = containerPool.acquire();
+            Map<String, byte[]> classes = null;
+            if (compileMode == CompileMode.IN_PROCESS && classLauncher.getDirectory() != null) {
+                classes = compileInMemory(className, fullCode, result);
+                if (classes == null) {
+                    failed = false;
+                    return result;
+                }
+            } else if (classLauncher.getDirectory() != null) {
+                classes = classCache.get(CompiledClassCache.key(fullCode, compilerVersion(true)));
+            }
+            if (classes != null) {
+                Map<String, byte[]> compiled = classes;
+                Process runProcess = container.exec(withUsageReport("timeout " + deadlines.timeoutSeconds(DeadlineManager.Phase.RUN)
+                        + "s java -cp /launcher " + ClassLauncher.LAUNCHER_CLASS));
+                feedStdin(runProcess, stdin -> {
+                    classLauncher.writeClasses(stdin, className, compiled);
+                    stdin.write(input);
+                });
+                awaitRun(runProcess, result, expectation, true);
+            } else {
+                long compileStart = System.nanoTime();
+                Process compileProcess = container.exec("cat > " + className + ".java && timeout "
+                        + deadlines.timeoutSeconds(DeadlineManager.Phase.COMPILE) + "s javac " + className + ".java");
+                try (OutputStream stdin = compileProcess.getOutputStream()) {
+                    stdin.write(fullCode.getBytes(StandardCharsets.UTF_8));
+                }
+                boolean compiled = awaitCompile(compileProcess, result, true);
+                result.setCompileTimeMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compileStart));
+                if (!compiled) {
+                    failed = result.getResult() == ExecutionResult.Result.TIMEOUT;
+                    return result;
+                }
+                Process runProcess = container.exec(withUsageReport(
+                        "timeout " + deadlines.timeoutSeconds(DeadlineManager.Phase.RUN) + "s java " + className, true));
+                feedStdin(runProcess, stdin -> stdin.write(input));
+                awaitRun(runProcess, result, expectation, true);
+            }
+            // a process killed mid-run may leave the container in any state
+            failed = result.getResult() == ExecutionResult.Result.TIMEOUT
+                    || result.getResult() == ExecutionResult.Result.OUTPUT_LIMIT_EXCEEDED
+                    || result.getResult() == ExecutionResult.Result.OUTPUT_MISMATCH;
+        } catch (RejectedExecutionException e) {
+            result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            result.getOutputLines().add("Runner is busy: " + e.getMessage());
+        } catch (IOException | InterruptedException e) {
+            result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            result.getOutputLines().add("Docker execution error: " + e.getMessage());
+            capabilities.reportFailure();
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
         } finally {
-            cleanup(tempDir);
+            if (container != null) containerPool.release(container, failed);
         }
         return result;
     }
 
-    private void prepareEnvironment(Path tempDir, String className, String code, List<Integer> inputData) throws IOException {
-        Files.createDirectories(tempDir);
-        Files.write(tempDir.resolve(className + ".java"), code.getBytes());
-        if (inputData != null && !inputData.isEmpty()) {
-            Path inputFile = tempDir.resolve("input.txt");
-            try (BufferedWriter bw = Files.newBufferedWriter(inputFile)) {
-                bw.write(String.valueOf(inputData.size())); bw.newLine();
-                for (int v : inputData) bw.write(v + "\n");
+    /**
+     * Compiles the batch's class either in memory or with javac in a throwaway directory.
+     *
+     * @return the class files, or null with the failure recorded in result
+     */
+    private Map<String, byte[]> compileOnce(String className, String fullCode, boolean withDocker,
+                                            ExecutionResult result) {
+        if (compileMode == CompileMode.IN_PROCESS) return compileInMemory(className, fullCode, result);
+
+        String cacheKey = CompiledClassCache.key(fullCode, compilerVersion(withDocker));
+        Map<String, byte[]> cached = classCache.get(cacheKey);
+        if (cached != null) return cached;
+        try (WorkspaceManager.Workspace workspace = workspaces.acquire()) {
+            Path tempDir = workspace.getDirectory();
+            prepareEnvironment(tempDir, className, fullCode);
+            if (!compile(tempDir, className, withDocker, result)) return null;
+            Map<String, byte[]> classes = readClasses(tempDir);
+            classCache.put(cacheKey, classes);
+            return classes;
+        } catch (IOException | InterruptedException e) {
+            result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            result.getOutputLines().add((withDocker ? "Docker" : "Direct") + " compilation error: " + e.getMessage());
+            if (withDocker) capabilities.reportFailure();
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * In-process compilation through the class cache; a hit skips the compiler entirely.
+     *
+     * @return the class files, or null with the diagnostics recorded in result
+     */
+    private Map<String, byte[]> compileInMemory(String className, String fullCode, ExecutionResult result) {
+        String cacheKey = CompiledClassCache.key(fullCode, inMemoryCompiler.getVersion());
+        Map<String, byte[]> cached = classCache.get(cacheKey);
+        if (cached != null) return cached;
+        // the runner's own heap is at stake: unlike a forked javac this one has no memory limit
+        if (fullCode.getBytes(StandardCharsets.UTF_8).length > maxInProcessSourceBytes) {
+            result.setResult(ExecutionResult.Result.COMPILATION_ERROR);
+            result.getOutputLines().add("Source is larger than " + maxInProcessSourceBytes + " bytes");
+            return null;
+        }
+        long compileStart = System.nanoTime();
+        InMemoryJavaCompiler.CompilationOutput compiled;
+        Future<InMemoryJavaCompiler.CompilationOutput> task = null;
+        try (DeadlineManager.Deadline deadline = deadlines.track(DeadlineManager.Phase.COMPILE)) {
+            try {
+                task = inProcessCompiles.submit(() -> inMemoryCompiler.compile(className, fullCode));
+                compiled = task.get(deadlines.wallMillis(DeadlineManager.Phase.COMPILE), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                task.cancel(true);
+                deadline.expired(DeadlineManager.Clock.WALL);
+                result.setCompileTimeMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compileStart));
+                result.setResult(ExecutionResult.Result.TIMEOUT);
+                return null;
+            } catch (RejectedExecutionException e) {
+                result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+                result.getOutputLines().add("Runner is busy: too many compilations in progress");
+                return null;
+            } catch (InterruptedException e) {
+                task.cancel(true);
+                Thread.currentThread().interrupt();
+                result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+                result.getOutputLines().add("Interrupted while compiling");
+                return null;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Error error) throw error;
+                if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+                throw new IllegalStateException("In-process compilation failed", e.getCause());
+            }
+        }
+        result.setCompileTimeMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compileStart));
+        if (!compiled.success()) {
+            result.setResult(ExecutionResult.Result.COMPILATION_ERROR);
+            result.getOutputLines().addAll(compiled.diagnostics());
+            return null;
+        }
+        classCache.put(cacheKey, compiled.classes());
+        return compiled.classes();
+    }
+
+    /**
+     * Identifies the javac a forked compile uses, so cached bytecode is only reused for the same JDK.
+     */
+    private String compilerVersion(boolean docker) {
+        return docker ? "docker " + DockerSandbox.JDK_IMAGE : "javac " + capabilities.getJavacVersion();
+    }
+
+    /**
+     * Runs every input set on its own thread, at most code.execution.batch.parallelism
+     * (default: number of cores) at a time; results keep the order of the inputs.
+     */
+    private List<TestCaseResultDTO> runCases(List<List<Integer>> inputs,
+                                             Function<List<Integer>, TestCaseResultDTO> runner) {
+        ExecutorService executor = Executors.newFixedThreadPool(getBatchParallelism(inputs.size()), processIoThreads);
+        String user = ExecutionScheduler.currentUser();
+        try {
+            List<Future<TestCaseResultDTO>> futures = new ArrayList<>();
+            for (List<Integer> input : inputs) {
+                futures.add(executor.submit(() -> ExecutionScheduler.runAs(user, () -> runner.apply(input))));
+            }
+            List<TestCaseResultDTO> results = new ArrayList<>();
+            for (Future<TestCaseResultDTO> future : futures) results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the batch", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch case failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs one input set against already compiled classes: on a warm worker, in the batch's pool
+     * container, or in a fresh launcher JVM (directly or in Docker).
+     */
+    private TestCaseResultDTO runCase(String className, Map<String, byte[]> classes, byte[] input,
+                                      boolean withDocker, DockerContainerPool.Container container) {
+        ExecutionResult result = new ExecutionResult();
+        try {
+            if (workerPool.isEnabled()) {
+                runOnWorker(className, classes, input, result, OutputCollector.Expectation.NONE);
+            } else {
+                Process runProcess = container != null
+                        ? container.exec(withUsageReport("timeout " + deadlines.timeoutSeconds(DeadlineManager.Phase.RUN)
+                                + "s java -cp /launcher " + ClassLauncher.LAUNCHER_CLASS, true))
+                        : withDocker ? createDockerLauncherProcess() : createDirectLauncherProcess();
+                feedStdin(runProcess, stdin -> {
+                    classLauncher.writeClasses(stdin, className, classes);
+                    stdin.write(input);
+                });
+                awaitRun(runProcess, result, OutputCollector.Expectation.NONE, withDocker || container != null);
+            }
+        } catch (IOException | InterruptedException e) {
+            result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            result.getOutputLines().add((withDocker ? "Docker" : "Direct") + " execution error: " + e.getMessage());
+            if (withDocker) capabilities.reportFailure();
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+        }
+        return toCase(result);
+    }
+
+    private static TestCaseResultDTO toCase(ExecutionResult result) {
+        return new TestCaseResultDTO(result.getResult(), result.getOutputLines(), result.getWallTimeMillis(),
+                result.getCpuTimeMillis(), result.getPeakMemoryKb());
+    }
+
+    /**
+     * @return VmHWM (peak resident set) of a live process in KiB, 0 if it is gone or this isn't Linux
+     */
+    private long readPeakRssKb(long pid) {
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get("/proc", Long.toString(pid), "status"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmHWM:")) return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        } catch (IOException | NumberFormatException e) {
+            // process already exited
+        }
+        return 0;
+    }
+
+    @PreDestroy
+    public void stop() {
+        usageSampler.shutdownNow();
+        stdinWriters.shutdownNow();
+        inProcessCompiles.shutdownNow();
+    }
+
+    /**
+     * Runs already compiled classes on a warm worker JVM instead of starting a new one.
+     *
+     * @return the worker's outcome, or null if the pool turned the run away
+     */
+    private WorkerPool.Outcome runOnWorker(String className, Map<String, byte[]> classes, byte[] input,
+                                           ExecutionResult result, OutputCollector.Expectation expectation)
+            throws InterruptedException {
+        WorkerPool.Outcome outcome;
+        long start = System.nanoTime();
+        // the worker enforces the wall-clock limit itself
+        try (DeadlineManager.Deadline ignored = deadlines.track(DeadlineManager.Phase.RUN)) {
+            outcome = workerPool.execute(ExecutionScheduler.currentUser(), className, classes, input,
+                    deadlines.wallMillis(DeadlineManager.Phase.RUN));
+        } catch (RejectedExecutionException e) {
+            result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            result.getOutputLines().add("Runner is busy: " + e.getMessage());
+            return null;
+        }
+        result.setWallTimeMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        result.setCpuTimeMillis(outcome.cpuTimeMillis());
+        result.setPeakMemoryKb(outcome.peakMemoryKb());
+        if (outcome.timedOut()) {
+            result.setResult(ExecutionResult.Result.TIMEOUT);
+            return outcome;
+        }
+        OutputCollector collector = newCollector(expectation);
+        try {
+            collector.collect(new ByteArrayInputStream(outcome.output()), () -> {});
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (outcome.outputLimitExceeded()) {
+            result.setResult(ExecutionResult.Result.OUTPUT_LIMIT_EXCEEDED);
+            result.setOutputLines(collector.getTrimmedLines());
+            return outcome;
+        }
+        applyOutput(outcome.exitCode(), collector, result);
+        return outcome;
+    }
+
+    private interface StdinWriter {
+        void write(OutputStream stdin) throws IOException;
+    }
+
+    /**
+     * Writes the child's stdin off the calling thread, which meanwhile drains its output: a program
+     * that prints before it has read all of its input can't deadlock against a full pipe.
+     */
+    private void feedStdin(Process process, StdinWriter writer) {
+        stdinWriters.execute(() -> {
+            try (OutputStream stdin = process.getOutputStream()) {
+                writer.write(stdin);
+            } catch (IOException e) {
+                // the child died before consuming stdin; its output tells why
+            }
+        });
+    }
+
+    private static String template(InputProtocol protocol) {
+        return protocol == InputProtocol.BINARY ? JAVA_BINARY_TEMPLATE : JAVA_TEMPLATE;
+    }
+
+    private void prepareEnvironment(Path dir, String className, String code) throws IOException {
+        Files.write(dir.resolve(className + ".java"), code.getBytes());
+    }
+
+    private Map<String, byte[]> readClasses(Path dir) throws IOException {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".class")) {
+                    classes.put(name.substring(0, name.length() - ".class".length()), Files.readAllBytes(file));
+                }
             }
         }
+        return classes;
+    }
+
+    private void writeClasses(Path dir, Map<String, byte[]> classes) throws IOException {
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Files.write(dir.resolve(entry.getKey() + ".class"), entry.getValue());
+        }
     }
 
     private boolean compile(Path dir, String className, boolean docker, ExecutionResult result)
             throws IOException, InterruptedException {
+        long compileStart = System.nanoTime();
         Process compileProcess = docker
                 ? createDockerCompileProcess(dir, className)
                 : createDirectCompileProcess(dir, className);
-        String compileOutput = readOutput(compileProcess);
-        boolean compiled = compileProcess.waitFor(EXECUTION_TIMEOUT_SECONDS, TimeUnit.SECONDS)
-                && compileProcess.exitValue() == 0;
-        if (!compiled) {
-            if (compileProcess.isAlive()) {
-                compileProcess.destroyForcibly();
+        boolean compiled = compileSubmission(compileProcess, result, docker);
+        result.setCompileTimeMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compileStart));
+        return compiled;
+    }
+
+    /**
+     * @param docker whether the process is a docker client, which makes its CPU time meaningless
+     */
+    private boolean awaitCompile(Process compileProcess, ExecutionResult result, boolean docker)
+            throws IOException, InterruptedException {
+        try (DeadlineManager.Deadline deadline = deadlines.watch(compileProcess, DeadlineManager.Phase.COMPILE, !docker)) {
+            String compileOutput = readOutput(compileProcess);
+            compileProcess.waitFor();
+            if (deadline.isExpired()) {
                 result.setResult(ExecutionResult.Result.TIMEOUT);
-            } else {
+                return false;
+            }
+            if (compileProcess.exitValue() != 0) {
                 result.setResult(ExecutionResult.Result.COMPILATION_ERROR);
                 if (!compileOutput.isBlank()) Collections.addAll(result.getOutputLines(), compileOutput.split("\n"));
+                return false;
             }
+            return true;
         }
-        return compiled;
     }
 
     private Process createDirectCompileProcess(Path dir, String className) throws IOException {
@@ -126,149 +748,196 @@ public class CodeExecutionService {
     }
 
     private Process createDockerCompileProcess(Path tempDir, String className) throws IOException {
-        List<String> cmd = new ArrayList<>(Arrays.asList(
-                "docker", "run", "--rm",
-                "--memory=" + dockerMemoryLimit, "--memory-swap=" + dockerMemoryLimit,
-                "--cpus=" + dockerCpuLimit,
-                "--network=none",
-                "--read-only",
+        List<String> cmd = dockerSandbox.compileCommand(Arrays.asList(
                 "--tmpfs", "/tmp:exec,size=50m,mode=1777",
-                "--security-opt", "no-new-privileges",
-                "--cap-drop=ALL",
                 "--pids-limit=16",
                 "--ulimit", "nofile=128:128",
                 "-v", tempDir.toAbsolutePath() + ":/workspace",
-                "-w", "/workspace",
-                "openjdk:11-jdk-slim",
-                "sh", "-c", "timeout " + EXECUTION_TIMEOUT_SECONDS + "s javac " + className + ".java"
+                "-w", "/workspace"
+        ), DockerSandbox.JDK_IMAGE, Arrays.asList(
+                "sh", "-c", "timeout " + deadlines.timeoutSeconds(DeadlineManager.Phase.COMPILE) + "s javac " + className + ".java"
         ));
-        String seccomp = getSeccompProfile();
-        if (seccomp != null) cmd.addAll(Arrays.asList("--security-opt", "seccomp=" + seccomp));
         return new ProcessBuilder(cmd).redirectErrorStream(true).start();
     }
 
-    private void run(Path dir, String className, List<Integer> inputData, boolean docker, ExecutionResult result)
-            throws IOException, InterruptedException {
+    private void run(Path dir, String className, byte[] input, boolean docker, ExecutionResult result,
+                     OutputCollector.Expectation expectation) throws IOException, InterruptedException {
         Process runProcess = docker
-                ? createDockerRunProcess(dir, className, inputData)
-                : createDirectRunProcess(dir, className, inputData);
-        ExecutionContext context = new ExecutionContext();
-        startTimeoutWatcher(runProcess, context);
-        String runOutput = readOutput(runProcess);
-        runProcess.waitFor();
-        if (context.wasKilledByTimeout) {
-            result.setResult(ExecutionResult.Result.TIMEOUT);
-            return;
+                ? createDockerRunProcess(dir, className)
+                : createDirectRunProcess(dir, className);
+        runSubmission(runProcess, input, result, expectation, docker);
+    }
+
+    /**
+     * "docker run" exits with 125 when the daemon itself failed (not the code inside the container).
+     */
+    private void checkDockerExit(Process process) {
+        if (!process.isAlive() && process.exitValue() == DOCKER_DAEMON_ERROR) capabilities.reportFailure();
+    }
+
+    /**
+     * Collects the run's output and result along with its resource usage: sampled from /proc for a
+     * local process, reported by the sandbox's cgroup for one behind a docker client.
+     *
+     * @param docker whether the process is a docker client, which makes its CPU time meaningless
+     */
+    private void awaitRun(Process runProcess, ExecutionResult result, OutputCollector.Expectation expectation,
+                          boolean docker) throws IOException, InterruptedException {
+        OutputCollector collector = newCollector(expectation);
+        if (docker) collector.setUsageMarker(usageMarker);
+        long start = System.nanoTime();
+        AtomicLong peakKb = new AtomicLong();
+        AtomicLong cpuMillis = new AtomicLong();
+        Future<?> sampling = docker ? null : usageSampler.scheduleAtFixedRate(() -> {
+            peakKb.accumulateAndGet(readPeakRssKb(runProcess.pid()), Math::max);
+            runProcess.info().totalCpuDuration().ifPresent(cpu -> cpuMillis.accumulateAndGet(cpu.toMillis(), Math::max));
+        }, 0, USAGE_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+        try (DeadlineManager.Deadline deadline = deadlines.watch(runProcess, DeadlineManager.Phase.RUN, !docker)) {
+            collector.collect(runProcess.getInputStream(), runProcess::destroyForcibly);
+            runProcess.waitFor();
+            result.setWallTimeMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (sampling != null) {
+                sampling.cancel(false);
+                result.setCpuTimeMillis(cpuMillis.get());
+                result.setPeakMemoryKb(peakKb.get());
+            } else if (collector.getUsageReport() != null) {
+                applyUsageReport(collector.getUsageReport(), result);
+            }
+            if (collector.getStop() == OutputCollector.Stop.LIMIT_EXCEEDED) {
+                result.setResult(ExecutionResult.Result.OUTPUT_LIMIT_EXCEEDED);
+                result.setOutputLines(collector.getTrimmedLines());
+                return;
+            }
+            if (collector.getStop() == OutputCollector.Stop.MISMATCH) {
+                result.setResult(ExecutionResult.Result.OUTPUT_MISMATCH);
+                result.setOutputLines(collector.getTrimmedLines());
+                return;
+            }
+            if (deadline.isExpired()) {
+                result.setResult(ExecutionResult.Result.TIMEOUT);
+                return;
+            }
+        } finally {
+            if (sampling != null) sampling.cancel(false);
         }
-        if (runProcess.isAlive()) {
-            runProcess.destroyForcibly();
-            result.setResult(ExecutionResult.Result.TIMEOUT);
-            return;
+        applyOutput(runProcess.exitValue(), collector, result);
+    }
+
+    /**
+     * Wraps a sandbox shell command so that, once it is done, it prints a usage line read from the
+     * container's own cgroup (v2): CPU usage before and after in microseconds, memory.peak in bytes,
+     * and start and end time in nanoseconds. The command's exit status is kept. Missing values are 0.
+     */
+    public String withUsageReport(String command) {
+        return withUsageReport(command, false);
+    }
+
+    /**
+     * As {@link #withUsageReport(String)}, for a container that has already run something (javac, or an
+     * earlier case of the batch), whose memory.peak would otherwise be reported as the command's. The peak is
+     * reset first, which cgroup v2 allows from kernel 6.12 when the cgroup is writable; where it is not,
+     * memory is reported as 0, unmeasured.
+     */
+    public String withUsageReport(String command, boolean resetPeak) {
+        String cpu = "$(sed -n 's/^usage_usec //p' /sys/fs/cgroup/cpu.stat 2>/dev/null)";
+        String peak = "m=$(cat /sys/fs/cgroup/memory.peak 2>/dev/null); ";
+        return (resetPeak ? "r=0; { echo 0 > /sys/fs/cgroup/memory.peak; } 2>/dev/null && r=1; " : "")
+                + "c0=" + cpu + "; t0=$(date +%s%N); " + command + "; s=$?; t1=$(date +%s%N); c1=" + cpu + "; "
+                + (resetPeak ? "m=0; [ \"$r\" = 1 ] && " + peak : peak)
+                + "echo \"" + usageMarker + " ${c0:-0} ${c1:-0} ${m:-0} ${t0:-0} ${t1:-0}\"; exit $s";
+    }
+
+    /**
+     * Applies a usage line from {@link #withUsageReport}. A submission could print a forged one, but that
+     * only misstates its own usage, never its result.
+     */
+    private void applyUsageReport(String report, ExecutionResult result) {
+        String[] fields = report.split("\\s+");
+        if (fields.length != 5) return;
+        try {
+            long cpuBefore = Long.parseLong(fields[0]);
+            long cpuAfter = Long.parseLong(fields[1]);
+            long memoryPeak = Long.parseLong(fields[2]);
+            long startNanos = Long.parseLong(fields[3]);
+            long endNanos = Long.parseLong(fields[4]);
+            if (cpuAfter > 0) result.setCpuTimeMillis(Math.max(0, cpuAfter - cpuBefore) / 1000);
+            if (memoryPeak > 0) result.setPeakMemoryKb(memoryPeak / 1024);
+            // the time inside the container, without the docker client's start-up
+            if (startNanos > 0 && endNanos >= startNanos) {
+                result.setWallTimeMillis(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+            }
+        } catch (NumberFormatException e) {
+            // leave usage unmeasured
         }
-        if (runProcess.exitValue() != 0) {
+    }
+
+    private void applyOutput(int exitCode, OutputCollector collector, ExecutionResult result) {
+        if (exitCode != 0) {
             result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
-            if (!runOutput.isBlank()) Collections.addAll(result.getOutputLines(), runOutput.split("\n"));
+            result.getOutputLines().addAll(collector.getLines());
             return;
         }
-        List<String> lines = new ArrayList<>();
-        for (String l : runOutput.split("\n")) if (!l.isBlank()) lines.add(l.trim());
-        result.setOutputLines(lines);
-        result.setResult(ExecutionResult.Result.SUCCESS);
+        result.setOutputLines(collector.getTrimmedLines());
+        result.setResult(collector.isMismatch() ? ExecutionResult.Result.OUTPUT_MISMATCH : ExecutionResult.Result.SUCCESS);
+    }
+
+    private OutputCollector newCollector(OutputCollector.Expectation expectation) {
+        return new OutputCollector(maxOutputBytes, maxOutputLines, expectation);
     }
 
-    private Process createDirectRunProcess(Path dir, String className, List<Integer> inputData) throws IOException {
-        Process p = new ProcessBuilder("java", className)
+    private Process createDirectRunProcess(Path dir, String className) throws IOException {
+        return new ProcessBuilder("java", className)
                 .directory(dir.toFile())
                 .redirectErrorStream(true)
                 .start();
-        if (inputData != null && !inputData.isEmpty()) {
-            try (PrintWriter writer = new PrintWriter(p.getOutputStream(), true)) {
-                writer.println(inputData.size());
-                inputData.forEach(writer::println);
-            }
-        } else {
-            p.getOutputStream().close();
-        }
-        return p;
     }
 
-    private Process createDockerRunProcess(Path tempDir, String className, List<Integer> inputData) throws IOException {
-        List<String> cmd = new ArrayList<>(Arrays.asList(
-                "docker", "run", "--rm",
-                "--memory=" + dockerMemoryLimit, "--memory-swap=" + dockerMemoryLimit,
-                "--cpus=" + dockerCpuLimit,
-                "--network=none",
-                "--read-only",
+    private Process createDockerRunProcess(Path tempDir, String className) throws IOException {
+        List<String> cmd = dockerSandbox.runCommand(Arrays.asList(
+                "-i",
                 "--tmpfs", "/tmp:exec,size=10m,mode=1777",
-                "--security-opt", "no-new-privileges",
-                "--cap-drop=ALL",
                 "--pids-limit=32",
                 "--ulimit", "nofile=64:64",
                 "--ulimit", "nproc=16:16",
                 "-v", tempDir.toAbsolutePath() + ":/workspace:ro",
-                "-w", "/tmp",
-                "openjdk:11-jre-slim",
+                "-w", "/tmp"
+        ), DockerSandbox.JRE_IMAGE, Arrays.asList(
                 "sh", "-c",
-                "cp /workspace/" + className + ".class /tmp/ && " +
-                        "timeout " + EXECUTION_TIMEOUT_SECONDS + "s java " + className +
-                        (inputData != null && !inputData.isEmpty() ? " < /workspace/input.txt" : "")
+                withUsageReport("cp /workspace/" + className + ".class /tmp/ && " +
+                        "timeout " + deadlines.timeoutSeconds(DeadlineManager.Phase.RUN) + "s java " + className)
         ));
-        String sec = getSeccompProfile();
-        if (sec != null) cmd.addAll(Arrays.asList("--security-opt", "seccomp=" + sec));
         return new ProcessBuilder(cmd).redirectErrorStream(true).start();
     }
 
-    private String readOutput(Process process) throws IOException {
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) output.append(line).append("\n");
-        }
-        return output.toString();
-    }
-
-    private void startTimeoutWatcher(Process process, ExecutionContext context) {
-        Thread killer = new Thread(() -> {
-            try {
-                Thread.sleep(EXECUTION_TIMEOUT_SECONDS * 1000);
-                if (process.isAlive()) { context.wasKilledByTimeout = true; process.destroyForcibly(); }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        });
-        killer.setDaemon(true);
-        killer.start();
-    }
-
-    private boolean isDockerAvailable() {
-        try {
-            Process p = new ProcessBuilder("docker", "--version").start();
-            boolean ok = p.waitFor(5, TimeUnit.SECONDS) && p.exitValue() == 0;
-            return ok;
-        } catch (Exception e) {
-            return false;
-        }
+    private Process createDirectLauncherProcess() throws IOException {
+        return new ProcessBuilder("java", "-cp", classLauncher.getDirectory().toString(), ClassLauncher.LAUNCHER_CLASS)
+                .redirectErrorStream(true)
+                .start();
     }
 
-    private void cleanup(Path tempDir) {
-        try {
-            if (Files.exists(tempDir)) {
-                Files.walk(tempDir)
-                        .sorted(Comparator.reverseOrder())
-                        .map(Path::toFile)
-                        .forEach(File::delete);
-            }
-        } catch (IOException e) {
-            System.err.println("Error cleaning up " + tempDir + ": " + e.getMessage());
-        }
+    private Process createDockerLauncherProcess() throws IOException {
+        List<String> cmd = dockerSandbox.runCommand(Arrays.asList(
+                "-i",
+                "--tmpfs", "/tmp:exec,size=10m,mode=1777",
+                "--pids-limit=32",
+                "--ulimit", "nofile=64:64",
+                "--ulimit", "nproc=16:16",
+                "-v", classLauncher.getDirectory() + ":/launcher:ro",
+                "-w", "/tmp"
+        ), DockerSandbox.JRE_IMAGE, Arrays.asList(
+                "sh", "-c",
+                withUsageReport("timeout " + deadlines.timeoutSeconds(DeadlineManager.Phase.RUN)
+                        + "s java -cp /launcher " + ClassLauncher.LAUNCHER_CLASS)
+        ));
+        return new ProcessBuilder(cmd).redirectErrorStream(true).start();
     }
 
-    private String getSeccompProfile() {
-        if (seccompProfilePath == null || seccompProfilePath.isBlank()) return null;
-        Path p = Paths.get(seccompProfilePath.trim());
-        if (!p.isAbsolute()) p = Paths.get(System.getProperty("user.dir")).resolve(p).normalize();
-        return p.toAbsolutePath().toString();
+    /**
+     * Compiler output, capped like program output (the compiler is killed past the cap).
+     */
+    private String readOutput(Process process) throws IOException {
+        OutputCollector collector = newCollector(OutputCollector.Expectation.NONE);
+        collector.collect(process.getInputStream(), process::destroyForcibly);
+        return String.join("\n", collector.getLines());
     }
-
-    private static class ExecutionContext { boolean wasKilledByTimeout; }
 }
@@ -0,0 +1,114 @@
+package com.coderacer.runner.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Content-addressed cache of compiled submissions, so resubmitting identical code skips compilation.
+ *
+ * Entries are keyed by a SHA-256 of the wrapped source plus the identity of the compiler that produced
+ * them (JDK version, target release or Docker image), and evicted least-recently-used once either the
+ * entry count or the total class-file size goes over its limit. Cached class bytes are shared between
+ * runs and must never be modified.
+ */
+@Component
+public class CompiledClassCache {
+
+    @Value("${code.execution.class-cache.enabled:true}")
+    private boolean enabled = true;
+    @Value("${code.execution.class-cache.max-entries:1000}")
+    private int maxEntries = 1000;
+    @Value("${code.execution.class-cache.max-bytes:67108864}")
+    private long maxBytes = 64L * 1024 * 1024;
+
+    private final LinkedHashMap<String, Map<String, byte[]>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public CompiledClassCache(MeterRegistry registry) {
+        hits = registry.counter("runner.class.cache.requests", "result", "hit");
+        misses = registry.counter("runner.class.cache.requests", "result", "miss");
+        evictions = registry.counter("runner.class.cache.evictions");
+        Gauge.builder("runner.class.cache.entries", this, CompiledClassCache::size).register(registry);
+        Gauge.builder("runner.class.cache.bytes", this, CompiledClassCache::bytes).baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * Stable name for the generated class wrapping a snippet: identical snippets get identical
+     * sources, which is what makes them cacheable.
+     */
+    public static String className(String snippet) {
+        return "GeneratedClass_" + sha256(snippet).substring(0, 32);
+    }
+
+    /**
+     * @param source   full source that gets compiled
+     * @param compiler identity of the compiler, see {@link InMemoryJavaCompiler#getVersion()}
+     */
+    public static String key(String source, String compiler) {
+        return sha256(compiler + '\0' + source);
+    }
+
+    /**
+     * @return the cached classes, or null on a miss (or when the cache is disabled)
+     */
+    public synchronized Map<String, byte[]> get(String key) {
+        if (!enabled) return null;
+        Map<String, byte[]> classes = entries.get(key);
+        (classes != null ? hits : misses).increment();
+        return classes;
+    }
+
+    public synchronized void put(String key, Map<String, byte[]> classes) {
+        if (!enabled || classes.isEmpty()) return;
+        long size = sizeOf(classes);
+        if (size > maxBytes) return;
+        Map<String, byte[]> previous = entries.put(key, Map.copyOf(classes));
+        if (previous != null) totalBytes -= sizeOf(previous);
+        totalBytes += size;
+
+        Iterator<Map<String, byte[]>> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+            totalBytes -= sizeOf(eldest.next());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return totalBytes;
+    }
+
+    private static long sizeOf(Map<String, byte[]> classes) {
+        long size = 0;
+        for (byte[] bytes : classes.values()) size += bytes.length;
+        return size;
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
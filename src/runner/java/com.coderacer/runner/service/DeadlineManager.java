@@ -0,0 +1,200 @@
+package com.coderacer.runner.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces compile and run time limits for every sandboxed process from one shared timer thread,
+ * instead of a sleeping watcher thread per execution. A process's timers are cancelled as soon as
+ * it exits, so a run that finishes in 50ms holds nothing for the rest of its time limit.
+ *
+ * Each phase has a wall-clock limit and, for processes that run locally (not behind a docker client),
+ * an optional CPU-time limit read through ProcessHandle. CPU time is what the submission itself burned,
+ * so it stays fair when the runner is busy; the wall-clock limit catches programs that block or sleep.
+ *
+ * The number of executions in each phase is exported as runner.execution.in.flight{phase}.
+ */
+@Component
+public class DeadlineManager {
+
+    public enum Phase { COMPILE, RUN }
+
+    public enum Clock { WALL, CPU }
+
+    /** Lower bound between CPU-time checks of one process */
+    private static final long MIN_CPU_CHECK_MILLIS = 50;
+
+    @Value("${code.execution.deadline.compile.wall-ms:10000}")
+    private long compileWallMillis = 10000;
+    @Value("${code.execution.deadline.compile.cpu-ms:0}")
+    private long compileCpuMillis;
+    @Value("${code.execution.deadline.run.wall-ms:10000}")
+    private long runWallMillis = 10000;
+    @Value("${code.execution.deadline.run.cpu-ms:10000}")
+    private long runCpuMillis = 10000;
+
+    private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, "deadline-timer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<Phase, AtomicInteger> inFlight = new EnumMap<>(Phase.class);
+    private final Map<Phase, Map<Clock, Counter>> exceeded = new EnumMap<>(Phase.class);
+
+    public DeadlineManager(MeterRegistry registry) {
+        // most timers are cancelled long before they fire; don't keep them queued until then
+        timer.setRemoveOnCancelPolicy(true);
+        for (Phase phase : Phase.values()) {
+            String phaseTag = phase.name().toLowerCase();
+            AtomicInteger count = new AtomicInteger();
+            inFlight.put(phase, count);
+            Gauge.builder("runner.execution.in.flight", count, AtomicInteger::get).tag("phase", phaseTag).register(registry);
+            Map<Clock, Counter> counters = new EnumMap<>(Clock.class);
+            for (Clock clock : Clock.values()) {
+                counters.put(clock, registry.counter("runner.execution.deadline.exceeded",
+                        "phase", phaseTag, "clock", clock.name().toLowerCase()));
+            }
+            exceeded.put(phase, counters);
+        }
+    }
+
+    /**
+     * Starts the phase's deadlines for a process; it is killed when one of them passes.
+     *
+     * @param cpuAccounted whether the process is the program itself, so its CPU time means something
+     */
+    public Deadline watch(Process process, Phase phase, boolean cpuAccounted) {
+        Deadline deadline = new Deadline(phase, process);
+        deadline.start(cpuAccounted ? cpuMillis(phase) : 0);
+        process.onExit().thenRun(deadline::close);
+        return deadline;
+    }
+
+    /**
+     * Counts work of the phase that is not a process of its own (in-process compilation, a warm worker
+     * run that enforces its own limit), until the returned deadline is closed.
+     */
+    public Deadline track(Phase phase) {
+        return new Deadline(phase, null);
+    }
+
+    public long wallMillis(Phase phase) {
+        return phase == Phase.COMPILE ? compileWallMillis : runWallMillis;
+    }
+
+    public long cpuMillis(Phase phase) {
+        return phase == Phase.COMPILE ? compileCpuMillis : runCpuMillis;
+    }
+
+    /**
+     * @return the wall-clock limit in whole seconds, for the coreutils timeout inside sandboxes
+     */
+    public long timeoutSeconds(Phase phase) {
+        return (wallMillis(phase) + 999) / 1000;
+    }
+
+    public int getInFlight(Phase phase) {
+        return inFlight.get(phase).get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * One execution in one phase. Closing it (or the process exiting) cancels its timers.
+     */
+    public class Deadline implements AutoCloseable {
+        private final Phase phase;
+        private final Process process;
+        private ScheduledFuture<?> wallTimer;
+        private ScheduledFuture<?> cpuTimer;
+        private boolean closed;
+        private volatile Clock expiredBy;
+
+        private Deadline(Phase phase, Process process) {
+            this.phase = phase;
+            this.process = process;
+            inFlight.get(phase).incrementAndGet();
+        }
+
+        /**
+         * @return whether the process was killed for running past a limit
+         */
+        public boolean isExpired() {
+            return expiredBy != null;
+        }
+
+        /**
+         * @return the limit the process ran past, or null
+         */
+        public Clock getExpiredBy() {
+            return expiredBy;
+        }
+
+        /**
+         * For tracked work: its owner stopped waiting for it at the limit.
+         */
+        public synchronized void expired(Clock clock) {
+            if (closed || expiredBy != null) return;
+            expiredBy = clock;
+            exceeded.get(phase).get(clock).increment();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) return;
+            closed = true;
+            if (wallTimer != null) wallTimer.cancel(false);
+            if (cpuTimer != null) cpuTimer.cancel(false);
+            inFlight.get(phase).decrementAndGet();
+        }
+
+        private synchronized void start(long cpuLimitMillis) {
+            if (closed) return;
+            wallTimer = timer.schedule(() -> expire(Clock.WALL), wallMillis(phase), TimeUnit.MILLISECONDS);
+            if (cpuLimitMillis > 0) scheduleCpuCheck(cpuLimitMillis, cpuLimitMillis);
+        }
+
+        /**
+         * CPU time grows at most one second per second per core, so nothing can be over the limit
+         * before remaining / cores has passed; checks get closer together as the limit nears.
+         */
+        private void scheduleCpuCheck(long limitMillis, long remainingMillis) {
+            long delay = Math.max(MIN_CPU_CHECK_MILLIS, remainingMillis / Runtime.getRuntime().availableProcessors());
+            cpuTimer = timer.schedule(() -> checkCpu(limitMillis), delay, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void checkCpu(long limitMillis) {
+            if (closed) return;
+            // empty once the process is gone, or where the OS doesn't report it: the wall clock still applies
+            long used = process.info().totalCpuDuration().map(Duration::toMillis).orElse(-1L);
+            if (used < 0) return;
+            if (used >= limitMillis) {
+                expire(Clock.CPU);
+            } else {
+                scheduleCpuCheck(limitMillis, limitMillis - used);
+            }
+        }
+
+        private synchronized void expire(Clock clock) {
+            if (closed || !process.isAlive()) return;
+            expiredBy = clock;
+            exceeded.get(phase).get(clock).increment();
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.coderacer.runner.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a fixed number of long-lived, locked-down sandbox containers running, so a submission is
+ * dispatched with "docker exec" instead of paying two "docker run" container creations.
+ *
+ * Containers get the same limits as the one-shot sandbox (no network, all capabilities dropped,
+ * seccomp, pids/ulimits, read-only root with a tmpfs /tmp). By default a container is torn down and
+ * replaced in the background after every job; it is always replaced after a failed job.
+ */
+@Component
+public class DockerContainerPool {
+    private static final String NAME_PREFIX = "coderacer-sandbox-";
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+    @Value("${code.execution.docker.pool.enabled:false}")
+    private boolean enabled;
+    @Value("${code.execution.docker.pool.size:4}")
+    private int size = 4;
+    @Value("${code.execution.docker.pool.recycle-after-each-job:true}")
+    private boolean recycleAfterEachJob = true;
+
+    private final DockerSandbox dockerSandbox;
+    private final ClassLauncher classLauncher;
+    private final SandboxCapabilities capabilities;
+
+    private final BlockingQueue<Container> idle = new LinkedBlockingQueue<>();
+    private final Set<Container> all = ConcurrentHashMap.newKeySet();
+    private final ExecutorService spawner = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sandbox-spawner");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DockerContainerPool(DockerSandbox dockerSandbox, ClassLauncher classLauncher,
+                               SandboxCapabilities capabilities) {
+        this.dockerSandbox = dockerSandbox;
+        this.classLauncher = classLauncher;
+        this.capabilities = capabilities;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || !capabilities.isDockerAvailable()) return;
+        removeLeftovers();
+        running.set(true);
+        for (int i = 0; i < size; i++) spawner.submit(this::spawn);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running.set(false);
+        spawner.shutdownNow();
+        all.forEach(c -> dockerSandbox.remove(c.name()));
+        all.clear();
+        idle.clear();
+    }
+
+    public boolean isEnabled() {
+        return running.get();
+    }
+
+    /**
+     * Takes a ready container for one job; give it back with {@link #release}.
+     *
+     * @throws RejectedExecutionException if no container becomes ready in time
+     */
+    public Container acquire() throws InterruptedException {
+        Container container = idle.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (container == null) {
+            throw new RejectedExecutionException("No sandbox container became available within " + ACQUIRE_TIMEOUT_SECONDS + "s");
+        }
+        return container;
+    }
+
+    /**
+     * Returns a container after a job. It is replaced if the job failed or recycling is on,
+     * otherwise its /tmp is wiped and it goes back to the idle set.
+     */
+    public void release(Container container, boolean failed) {
+        if (!failed && !recycleAfterEachJob && container.wipe()) {
+            idle.add(container);
+            return;
+        }
+        all.remove(container);
+        spawner.submit(() -> {
+            dockerSandbox.remove(container.name());
+            spawn();
+        });
+    }
+
+    private void spawn() {
+        if (!running.get()) return;
+        String name = NAME_PREFIX + UUID.randomUUID();
+        List<String> options = new ArrayList<>(Arrays.asList(
+                "-d", "--name", name,
+                "--tmpfs", "/tmp:exec,size=50m,mode=1777",
+                "--pids-limit=32",
+                "--ulimit", "nofile=128:128",
+                "--ulimit", "nproc=16:16",
+                "-w", "/tmp"
+        ));
+        if (classLauncher.getDirectory() != null) {
+            options.addAll(Arrays.asList("-v", classLauncher.getDirectory() + ":/launcher:ro"));
+        }
+        try {
+            Process p = new ProcessBuilder(dockerSandbox.runCommand(options, DockerSandbox.JDK_IMAGE,
+                    List.of("sleep", "infinity")))
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (p.waitFor(60, TimeUnit.SECONDS) && p.exitValue() == 0) {
+                Container container = new Container(name);
+                all.add(container);
+                idle.add(container);
+                return;
+            }
+            p.destroyForcibly();
+        } catch (IOException e) {
+            System.err.println("Error starting sandbox container: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        dockerSandbox.remove(name);
+        capabilities.reportFailure();
+        try {
+            Thread.sleep(1000); // don't spin if the daemon keeps refusing
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        spawner.submit(this::spawn);
+    }
+
+    /**
+     * Removes sandbox containers left behind by a previous runner process that didn't shut down cleanly.
+     */
+    private void removeLeftovers() {
+        try {
+            Process p = new ProcessBuilder("docker", "ps", "-aq", "--filter", "name=" + NAME_PREFIX).start();
+            List<String> ids = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) if (!line.isBlank()) ids.add(line.trim());
+            }
+            p.waitFor(10, TimeUnit.SECONDS);
+            ids.forEach(dockerSandbox::remove);
+        } catch (IOException e) {
+            System.err.println("Error listing leftover sandbox containers: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A running sandbox container; commands run in its /tmp working directory.
+     */
+    public record Container(String name) {
+
+        /**
+         * Starts a command in the container with stdin attached and stderr merged into stdout.
+         */
+        public Process exec(String shellCommand) throws IOException {
+            return new ProcessBuilder("docker", "exec", "-i", name, "sh", "-c", shellCommand)
+                    .redirectErrorStream(true)
+                    .start();
+        }
+
+        boolean wipe() {
+            try {
+                Process p = exec("rm -rf /tmp/* /tmp/.[!.]*");
+                p.getOutputStream().close();
+                return p.waitFor(10, TimeUnit.SECONDS) && p.exitValue() == 0;
+            } catch (IOException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.coderacer.runner.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the locked-down "docker run" command lines shared by every Docker-backed execution path,
+ * so compile containers, run containers and worker containers get the same isolation. Compile
+ * containers get their own memory and CPU limits: compilers need more than a submission's run.
+ */
+@Component
+public class DockerSandbox {
+    public static final String JDK_IMAGE = "openjdk:11-jdk-slim";
+    public static final String JRE_IMAGE = "openjdk:11-jre-slim";
+
+    @Value("${code.execution.docker.memory:64m}")
+    private String dockerMemoryLimit = "64m";
+    @Value("${code.execution.docker.cpu:0.2}")
+    private String dockerCpuLimit = "0.2";
+    @Value("${code.execution.docker.compile.memory:512m}")
+    private String compileMemoryLimit = "512m";
+    @Value("${code.execution.docker.compile.cpu:1.0}")
+    private String compileCpuLimit = "1.0";
+    @Value("${code.execution.docker.seccomp-profile:}")
+    private String seccompProfilePath = "src/runner/java/com.coderacer/runner/security/seccomp.json";
+
+    /**
+     * @param options  per-use options (tmpfs size, pids limit, ulimits, mounts, workdir, -i, --name ...)
+     * @param image    image to run
+     * @param command  the command to run inside the container
+     * @return full docker command line with the common resource and security limits applied
+     */
+    public List<String> runCommand(List<String> options, String image, List<String> command) {
+        return command(dockerMemoryLimit, dockerCpuLimit, options, image, command);
+    }
+
+    /**
+     * As {@link #runCommand}, with the compile limits (code.execution.docker.compile.*).
+     */
+    public List<String> compileCommand(List<String> options, String image, List<String> command) {
+        return command(compileMemoryLimit, compileCpuLimit, options, image, command);
+    }
+
+    private List<String> command(String memoryLimit, String cpuLimit, List<String> options, String image,
+                                 List<String> command) {
+        List<String> cmd = new ArrayList<>(Arrays.asList(
+                "docker", "run", "--rm",
+                "--memory=" + memoryLimit, "--memory-swap=" + memoryLimit,
+                "--cpus=" + cpuLimit,
+                "--network=none",
+                "--read-only",
+                "--security-opt", "no-new-privileges",
+                "--cap-drop=ALL"
+        ));
+        String seccomp = getSeccompProfile();
+        if (seccomp != null) cmd.addAll(Arrays.asList("--security-opt", "seccomp=" + seccomp));
+        cmd.addAll(options);
+        cmd.add(image);
+        cmd.addAll(command);
+        return cmd;
+    }
+
+    /**
+     * Forcibly removes a named container; used when the docker client process is killed,
+     * since that alone does not stop the container.
+     */
+    public void remove(String containerName) {
+        try {
+            Process p = new ProcessBuilder("docker", "rm", "-f", containerName)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            p.waitFor(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("Error removing container " + containerName + ": " + e.getMessage());
+        }
+    }
+
+    private String getSeccompProfile() {
+        if (seccompProfilePath == null || seccompProfilePath.isBlank()) return null;
+        Path p = Paths.get(seccompProfilePath.trim());
+        if (!p.isAbsolute()) p = Paths.get(System.getProperty("user.dir")).resolve(p).normalize();
+        return p.toAbsolutePath().toString();
+    }
+}
@@ -0,0 +1,162 @@
+package com.coderacer.runner.service;
+
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Single-flight execution of identical requests: while a run for the same code and input is in flight,
+ * later requests wait for its result instead of taking a scheduler slot and a sandbox of their own.
+ * During a contest many players submit byte-identical code for the same problem within seconds.
+ *
+ * Requests are keyed by a SHA-256 of everything that decides the result (language, input protocol, code,
+ * input and expected output). Only runs in flight are shared; nothing is kept once a run is over. Whoever
+ * started the run is the one queued by the scheduler, and if it is turned away the requests waiting on it
+ * are turned away with it.
+ *
+ * runner.execution.coalesce.requests counts requests by result=executed|coalesced;
+ * runner.execution.coalesce.rate is the share of requests that were coalesced.
+ */
+@Component
+public class ExecutionCoalescer {
+
+    /**
+     * A run that may wait for a scheduler slot.
+     */
+    @FunctionalInterface
+    public interface Run<T> {
+        T execute() throws InterruptedException;
+    }
+
+    @Value("${code.execution.coalesce.enabled:true}")
+    private boolean enabled = true;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public ExecutionCoalescer(MeterRegistry registry) {
+        executed = registry.counter("runner.execution.coalesce.requests", "result", "executed");
+        coalesced = registry.counter("runner.execution.coalesce.requests", "result", "coalesced");
+        Gauge.builder("runner.execution.coalesce.rate", this, ExecutionCoalescer::coalesceRate).register(registry);
+        Gauge.builder("runner.execution.coalesce.in-flight", inFlight, ConcurrentHashMap::size).register(registry);
+    }
+
+    /**
+     * Runs the request, or waits for the identical one already running and returns its result.
+     * The result object is shared between the requests and must not be modified.
+     *
+     * @param key see {@link #key} and {@link #batchKey}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Run<T> run) throws InterruptedException {
+        if (!enabled) return run.execute();
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return (T) await(running);
+        }
+
+        executed.increment();
+        try {
+            T result = run.execute();
+            inFlight.remove(key, mine);
+            mine.complete(result);
+            return result;
+        } catch (InterruptedException | RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return share of requests answered with another request's run, since startup
+     */
+    public double coalesceRate() {
+        double total = executed.count() + coalesced.count();
+        return total == 0 ? 0 : coalesced.count() / total;
+    }
+
+    /**
+     * Key of a single run (/execute).
+     */
+    public static String key(Language language, InputProtocol protocol, String code, List<Integer> inputData,
+                             OutputCollector.Expectation expectation) {
+        MessageDigest digest = sha256();
+        update(digest, language.name());
+        update(digest, protocol.name());
+        update(digest, code);
+        // the binary encoding is exact and cheap to compute for any input
+        digest.update(InputProtocol.BINARY.encode(inputData));
+        digest.update((byte) (inputData == null ? 0 : 1));
+        if (expectation.expected() != null) {
+            update(digest, expectation.stopOnFirstMismatch() ? "stop" : "all");
+            update(digest, expectation.comparator().name());
+            update(digest, Double.toString(expectation.tolerance()));
+            for (String line : expectation.expected()) update(digest, line);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Key of a batch of runs (/execute-batch).
+     */
+    public static String batchKey(InputProtocol protocol, String code, List<List<Integer>> inputs) {
+        MessageDigest digest = sha256();
+        update(digest, "batch");
+        update(digest, protocol.name());
+        update(digest, code);
+        for (List<Integer> input : inputs) {
+            byte[] encoded = InputProtocol.BINARY.encode(input);
+            update(digest, Integer.toString(encoded.length));
+            digest.update(encoded);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Object await(CompletableFuture<Object> running) throws InterruptedException {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException("Identical run was interrupted", cause);
+        }
+    }
+
+    /** Length-prefixed, so that field boundaries can't shift between requests */
+    private static void update(MessageDigest digest, String field) {
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
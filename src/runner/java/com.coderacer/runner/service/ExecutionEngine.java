@@ -0,0 +1,28 @@
+package com.coderacer.runner.service;
+
+import com.coderacer.runner.model.ExecutionResult;
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs submissions of one or more languages: wraps the snippet into a program that reads the input,
+ * compiles it if the language needs that, and runs it in the sandbox. Warm pools and compile caches
+ * belong to the engine that uses them.
+ *
+ * Every engine bean is picked up by {@link ExecutionEngines}; a language may have only one engine.
+ */
+public interface ExecutionEngine {
+
+    Set<Language> getLanguages();
+
+    /**
+     * @param inputData   integers fed to the program on stdin: the count, then the values
+     * @param protocol    how they are encoded; an engine whose harnesses only read text feeds text regardless
+     * @param expectation output to check as it is produced, {@link OutputCollector.Expectation#NONE} for none
+     */
+    ExecutionResult execute(Language language, String code, List<Integer> inputData, InputProtocol protocol,
+                            OutputCollector.Expectation expectation);
+}
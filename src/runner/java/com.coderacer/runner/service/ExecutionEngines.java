@@ -0,0 +1,46 @@
+package com.coderacer.runner.service;
+
+import com.coderacer.runner.model.ExecutionResult;
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routes a submission to the engine for its language.
+ */
+@Component
+public class ExecutionEngines {
+
+    private final Map<Language, ExecutionEngine> engines = new EnumMap<>(Language.class);
+
+    public ExecutionEngines(List<ExecutionEngine> available) {
+        for (ExecutionEngine engine : available) {
+            for (Language language : engine.getLanguages()) {
+                ExecutionEngine previous = engines.put(language, engine);
+                if (previous != null) {
+                    throw new IllegalStateException(language + " is handled by both " + previous.getClass().getSimpleName()
+                            + " and " + engine.getClass().getSimpleName());
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if no engine runs the language
+     */
+    public ExecutionResult execute(Language language, String code, List<Integer> inputData, InputProtocol protocol,
+                                   OutputCollector.Expectation expectation) {
+        ExecutionEngine engine = engines.get(language);
+        if (engine == null) throw new IllegalArgumentException("Unsupported language: " + language);
+        return engine.execute(language, code, inputData, protocol, expectation);
+    }
+
+    public Set<Language> getLanguages() {
+        return engines.keySet();
+    }
+}
@@ -0,0 +1,199 @@
+package com.coderacer.runner.service;
+
+import com.coderacer.runner.exception.ExecutionRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the sandboxes: at most max-concurrent sandbox slots are in use,
+ * at most queue-capacity requests wait for one, and anything beyond that is turned away at once
+ * with a Retry-After estimate instead of forking yet another JVM or container.
+ *
+ * Waiting requests are queued per user and served round-robin across users, so one user's burst
+ * doesn't starve everybody else. A request may take several slots (a batch runs cases in parallel);
+ * the next request in turn waits until enough slots are free rather than being skipped.
+ */
+@Component
+public class ExecutionScheduler {
+
+    @Value("${code.execution.scheduler.max-concurrent:0}")
+    private int maxConcurrent;
+    @Value("${code.execution.scheduler.queue-capacity:64}")
+    private int queueCapacity = 64;
+    @Value("${code.execution.scheduler.max-wait-ms:30000}")
+    private long maxWaitMillis = 30000;
+
+    /** Submitter of the task running on this thread */
+    private static final ThreadLocal<String> SUBMITTER = new ThreadLocal<>();
+
+    private final Map<String, ArrayDeque<Ticket>> waiting = new HashMap<>();
+    private final ArrayDeque<String> turns = new ArrayDeque<>();
+    private int queued;
+    private int slotsInUse;
+    /** Exponentially weighted average of how long a slot is held, for Retry-After */
+    private double averageHoldMillis = 1000;
+
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public ExecutionScheduler(MeterRegistry registry) {
+        waitTimer = Timer.builder("runner.execution.queue.wait").register(registry);
+        rejected = registry.counter("runner.execution.rejected");
+        Gauge.builder("runner.execution.queue.depth", this, ExecutionScheduler::getQueueDepth).register(registry);
+        Gauge.builder("runner.execution.active", this, ExecutionScheduler::getSlotsInUse).register(registry);
+    }
+
+    /**
+     * Runs the task once a slot is free, on the calling thread.
+     *
+     * @param user  fairness key; requests of the same user are served in order
+     * @param slots sandbox slots the task occupies while it runs (capped at max-concurrent)
+     * @throws ExecutionRejectedException when the queue is full or no slot freed up within max-wait-ms
+     */
+    public <T> T execute(String user, int slots, Supplier<T> task) throws InterruptedException {
+        int weight = Math.max(1, Math.min(slots, capacity()));
+        long enqueued = System.nanoTime();
+        acquire(user, weight);
+        long start = System.nanoTime();
+        waitTimer.record(start - enqueued, TimeUnit.NANOSECONDS);
+        try {
+            return runAs(user, task);
+        } finally {
+            release(weight, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * @return the user whose task runs on this thread, null outside of one
+     */
+    public static String currentUser() {
+        return SUBMITTER.get();
+    }
+
+    /**
+     * Runs a task on this thread as the user's; for the parts of a task that are handed to other threads.
+     */
+    public static <T> T runAs(String user, Supplier<T> task) {
+        String previous = SUBMITTER.get();
+        SUBMITTER.set(user);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) SUBMITTER.remove();
+            else SUBMITTER.set(previous);
+        }
+    }
+
+    public synchronized int getQueueDepth() {
+        return queued;
+    }
+
+    public synchronized int getSlotsInUse() {
+        return slotsInUse;
+    }
+
+    /**
+     * @return max-concurrent, defaulting to the number of cores
+     */
+    public int capacity() {
+        return maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+    }
+
+    private void acquire(String user, int weight) throws InterruptedException {
+        Ticket ticket;
+        synchronized (this) {
+            if (queued == 0 && slotsInUse + weight <= capacity()) {
+                slotsInUse += weight;
+                return;
+            }
+            if (queued >= queueCapacity) throw reject("Execution queue is full");
+            ticket = new Ticket(weight);
+            ArrayDeque<Ticket> queue = waiting.computeIfAbsent(user, u -> new ArrayDeque<>());
+            if (queue.isEmpty()) turns.add(user);
+            queue.add(ticket);
+            queued++;
+        }
+        boolean granted;
+        try {
+            granted = ticket.latch.await(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            if (!withdraw(user, ticket)) release(ticket.weight, 0);
+            throw e;
+        }
+        // a grant that raced with the timeout is kept
+        if (!granted && withdraw(user, ticket)) {
+            throw reject("No sandbox became available within " + maxWaitMillis + "ms");
+        }
+    }
+
+    /**
+     * Takes a ticket that gave up waiting out of the queue.
+     *
+     * @return false if it had already been granted its slots
+     */
+    private synchronized boolean withdraw(String user, Ticket ticket) {
+        ArrayDeque<Ticket> queue = waiting.get(user);
+        if (queue == null || !queue.remove(ticket)) return false;
+        queued--;
+        if (queue.isEmpty()) {
+            waiting.remove(user);
+            turns.remove(user);
+        }
+        // a heavy ticket at the head may have been holding back the ones behind it
+        dispatch();
+        return true;
+    }
+
+    private synchronized void release(int weight, long heldMillis) {
+        slotsInUse -= weight;
+        if (heldMillis > 0) averageHoldMillis = 0.8 * averageHoldMillis + 0.2 * heldMillis;
+        dispatch();
+    }
+
+    /**
+     * Grants slots to waiting tickets, taking users in turn, while the next ticket fits.
+     */
+    private void dispatch() {
+        while (!turns.isEmpty()) {
+            String user = turns.peek();
+            ArrayDeque<Ticket> queue = waiting.get(user);
+            Ticket next = queue.peek();
+            if (slotsInUse + next.weight > capacity()) return;
+            queue.poll();
+            queued--;
+            turns.poll();
+            if (queue.isEmpty()) {
+                waiting.remove(user);
+            } else {
+                turns.add(user);
+            }
+            slotsInUse += next.weight;
+            next.latch.countDown();
+        }
+    }
+
+    private synchronized ExecutionRejectedException reject(String message) {
+        rejected.increment();
+        // everything ahead in the queue plus this request, drained capacity() slots at a time
+        long retryAfter = (long) Math.ceil(averageHoldMillis * (queued + 1) / capacity() / 1000.0);
+        return new ExecutionRejectedException(message, Math.max(1, retryAfter));
+    }
+
+    private static class Ticket {
+        final int weight;
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        Ticket(int weight) {
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.coderacer.runner.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Compiles generated sources with the JDK's javax.tools compiler inside the runner JVM.
+ * The compiler stays loaded (and JIT-warmed) between submissions, and both sources and
+ * class files live in memory, so nothing is forked and nothing is written to disk.
+ *
+ * The standard file manager (which holds ct.sym and the jrt image open) is the expensive part to set
+ * up, so a bounded pool of them is shared: each compile borrows one and hands it back, a compile that
+ * finds the pool empty opens its own, and one returned to a full pool is closed.
+ */
+@Component
+public class InMemoryJavaCompiler {
+
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    private final BlockingQueue<StandardJavaFileManager> fileManagers =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    /** Target release; must not exceed the JRE used to run submissions (openjdk:11 in Docker mode) */
+    @Value("${code.execution.compiler.release:11}")
+    private String release = "11";
+
+    /**
+     * Runs a throwaway compilation so the first real submission doesn't pay javac class loading and JIT warm-up.
+     */
+    @PostConstruct
+    public void warmUp() {
+        if (isAvailable()) {
+            compile("WarmUp", "public class WarmUp { public static void main(String[] args) { } }");
+        }
+    }
+
+    /**
+     * @return false when the runner itself runs on a JRE without the compiler module
+     */
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /**
+     * @return identifies the bytecode this compiler produces: runtime JDK version plus target release
+     */
+    public String getVersion() {
+        return "javax.tools " + Runtime.version() + " --release " + release;
+    }
+
+    /**
+     * Compiles a single source file.
+     *
+     * @param className name of the public top-level class in the source
+     * @param source    full source code
+     * @return compiled classes by binary name (including nested/anonymous classes), or diagnostics on failure
+     */
+    public CompilationOutput compile(String className, String source) {
+        if (!isAvailable()) {
+            return new CompilationOutput(false, Map.of(), List.of("In-process compiler is not available in this JRE"));
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standard = fileManagers.poll();
+        if (standard == null) {
+            standard = compiler.getStandardFileManager(null, Locale.ROOT, null);
+        }
+        MemoryFileManager fileManager = new MemoryFileManager(standard);
+        List<String> options = List.of("--release", release, "-proc:none", "-g:none");
+
+        boolean success;
+        try {
+            success = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    List.of(new SourceFile(className, source))).call();
+        } finally {
+            giveBack(standard);
+        }
+
+        if (!success) {
+            List<String> messages = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                if (d.getKind() != Diagnostic.Kind.ERROR) continue;
+                messages.add(className + ".java:" + d.getLineNumber() + ": error: " + d.getMessage(Locale.ROOT));
+            }
+            return new CompilationOutput(false, Map.of(), messages);
+        }
+        return new CompilationOutput(true, fileManager.getClasses(), List.of());
+    }
+
+    private void giveBack(StandardJavaFileManager standard) {
+        if (fileManagers.offer(standard)) return;
+        try {
+            standard.close();
+        } catch (IOException e) {
+            // nothing left to do with it
+        }
+    }
+
+    public record CompilationOutput(boolean success, Map<String, byte[]> classes, List<String> diagnostics) {}
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        SourceFile(String className, String source) {
+            super(URI.create("string:///" + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static class ClassFile extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String className) {
+            super(URI.create("bytes:///" + className + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ClassFile> outputs = new LinkedHashMap<>();
+
+        MemoryFileManager(StandardJavaFileManager delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            ClassFile file = new ClassFile(className);
+            outputs.put(className, file);
+            return file;
+        }
+
+        @Override
+        public void close() {
+            // the shared standard file manager outlives this compilation
+        }
+
+        Map<String, byte[]> getClasses() {
+            Map<String, byte[]> classes = new LinkedHashMap<>();
+            outputs.forEach((name, file) -> classes.put(name, file.bytes.toByteArray()));
+            return classes;
+        }
+    }
+}
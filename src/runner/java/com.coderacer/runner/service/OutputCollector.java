@@ -0,0 +1,197 @@
+package com.coderacer.runner.service;
+
+import com.coderacer.runner.model.OutputComparator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a submission's output as it is produced, keeping at most max-bytes / max-lines of it.
+ *
+ * Going over either cap stops reading and runs the stop action (which kills the process), so a
+ * runaway print loop costs a bounded buffer instead of the runner's heap. When expected output
+ * lines are given, lines are compared as they arrive (trimmed, blank lines skipped, the same way
+ * results are reported) with the expectation's comparator and, if asked to, reading also stops at
+ * the first mismatching line. With UNORDERED that is the first line matching none of the expected
+ * lines not matched yet.
+ */
+public class OutputCollector {
+
+    public enum Stop { NONE, LIMIT_EXCEEDED, MISMATCH }
+
+    /**
+     * Output the caller expects, one entry per non-blank line.
+     *
+     * @param expected            null when the output is not checked
+     * @param stopOnFirstMismatch kill the process as soon as a line doesn't match
+     * @param comparator          how a line is compared with the expected one
+     * @param tolerance           for NUMERIC, absolute or relative difference still accepted
+     */
+    public record Expectation(List<String> expected, boolean stopOnFirstMismatch, OutputComparator comparator,
+                              double tolerance) {
+        public static final Expectation NONE = new Expectation(null, false);
+
+        public Expectation(List<String> expected, boolean stopOnFirstMismatch) {
+            this(expected, stopOnFirstMismatch, OutputComparator.EXACT, 0);
+        }
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long maxBytes;
+    private final int maxLines;
+    private final Expectation expectation;
+
+    private final List<String> lines = new ArrayList<>();
+    private final ByteArrayOutputStream currentLine = new ByteArrayOutputStream();
+    private long bytesRead;
+    private int compared;
+    /** UNORDERED: expected lines not matched yet, by trimmed text */
+    private Map<String, Integer> unmatched;
+    private boolean mismatch;
+    private Stop stop = Stop.NONE;
+    private String usageMarker;
+    private String usageReport;
+
+    public OutputCollector(long maxBytes, int maxLines, Expectation expectation) {
+        this.maxBytes = maxBytes;
+        this.maxLines = maxLines;
+        this.expectation = expectation;
+    }
+
+    /**
+     * Reads until end of stream or until a stop condition, in which case onStop is run and reading ends.
+     */
+    public void collect(InputStream in, Runnable onStop) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (in) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                int usable = (int) Math.min(n, maxBytes - bytesRead);
+                bytesRead += n;
+                for (int i = 0; i < usable && stop == Stop.NONE; i++) {
+                    if (buffer[i] == '\n') {
+                        endLine();
+                    } else {
+                        currentLine.write(buffer[i]);
+                    }
+                }
+                if (stop == Stop.NONE && bytesRead > maxBytes) stop = Stop.LIMIT_EXCEEDED;
+                if (stop != Stop.NONE) {
+                    onStop.run();
+                    return;
+                }
+            }
+            if (currentLine.size() > 0) endLine();
+        }
+    }
+
+    /**
+     * Sets the marker of the resource usage line a sandbox appends after the program's output.
+     * That line is taken out of the output and available from {@link #getUsageReport()}.
+     */
+    public void setUsageMarker(String usageMarker) {
+        this.usageMarker = usageMarker;
+    }
+
+    /**
+     * @return what followed the usage marker, or null if no usage line was seen
+     */
+    public String getUsageReport() {
+        return usageReport;
+    }
+
+    public Stop getStop() {
+        return stop;
+    }
+
+    /**
+     * @return lines read so far, as printed (trailing blank lines dropped)
+     */
+    public List<String> getLines() {
+        int end = lines.size();
+        while (end > 0 && lines.get(end - 1).isEmpty()) end--;
+        return new ArrayList<>(lines.subList(0, end));
+    }
+
+    /**
+     * @return non-blank lines, trimmed: the form results are reported and compared in
+     */
+    public List<String> getTrimmedLines() {
+        List<String> trimmed = new ArrayList<>();
+        for (String line : lines) if (!line.isBlank()) trimmed.add(line.trim());
+        return trimmed;
+    }
+
+    /**
+     * @return true when an expectation was given and the output read so far deviates from it,
+     *         or (after end of stream) is shorter than it
+     */
+    public boolean isMismatch() {
+        if (expectation.expected() == null) return false;
+        return mismatch || (stop == Stop.NONE && compared < expectation.expected().size());
+    }
+
+    private void endLine() {
+        int length = currentLine.size();
+        byte[] bytes = currentLine.toByteArray();
+        if (length > 0 && bytes[length - 1] == '\r') length--;
+        String line = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        currentLine.reset();
+
+        int marker = usageMarker == null ? -1 : line.indexOf(usageMarker);
+        if (marker >= 0) {
+            // output without a trailing newline runs into the usage line
+            usageReport = line.substring(marker + usageMarker.length()).trim();
+            if (marker == 0) return;
+            line = line.substring(0, marker);
+        }
+        if (lines.size() >= maxLines) {
+            stop = Stop.LIMIT_EXCEEDED;
+            return;
+        }
+        lines.add(line);
+        compare(line);
+    }
+
+    private void compare(String line) {
+        List<String> expected = expectation.expected();
+        if (expected == null || mismatch || line.isBlank()) return;
+        if (expectation.comparator() == OutputComparator.UNORDERED) {
+            compareUnordered(line.trim());
+            return;
+        }
+        if (compared >= expected.size()
+                || !expectation.comparator().matches(line, expected.get(compared), expectation.tolerance())) {
+            mismatch = true;
+            if (expectation.stopOnFirstMismatch()) stop = Stop.MISMATCH;
+            return;
+        }
+        compared++;
+    }
+
+    private void compareUnordered(String line) {
+        if (unmatched == null) {
+            unmatched = new HashMap<>();
+            for (String value : expectation.expected()) unmatched.merge(value.trim(), 1, Integer::sum);
+        }
+        Integer count = unmatched.get(line);
+        if (count == null) {
+            mismatch = true;
+            if (expectation.stopOnFirstMismatch()) stop = Stop.MISMATCH;
+            return;
+        }
+        if (count == 1) {
+            unmatched.remove(line);
+        } else {
+            unmatched.put(line, count - 1);
+        }
+        compared++;
+    }
+}
@@ -0,0 +1,144 @@
+package com.coderacer.runner.service;
+
+import com.coderacer.runner.dto.SandboxStatusDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Knows which sandbox backends this runner can use. Probing forks "docker" and "javac", so it
+ * happens once at startup, then on a schedule and after a reported failure - never on the request path.
+ */
+@Component
+public class SandboxCapabilities {
+
+    public enum Backend { DOCKER, DIRECT, IN_PROCESS }
+
+    @Value("${code.execution.use-docker:true}")
+    private boolean useDocker;
+    @Value("${code.execution.compile-mode:process}")
+    private CodeExecutionService.CompileMode compileMode = CodeExecutionService.CompileMode.PROCESS;
+
+    private final InMemoryJavaCompiler inMemoryCompiler;
+    private final ExecutorService reprober = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sandbox-reprobe");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean reprobePending = new AtomicBoolean();
+
+    private volatile boolean dockerAvailable;
+    private volatile boolean javacAvailable;
+    private volatile String javacVersion;
+    private volatile Instant lastProbe;
+
+    public SandboxCapabilities(InMemoryJavaCompiler inMemoryCompiler) {
+        this.inMemoryCompiler = inMemoryCompiler;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${code.execution.probe-interval-ms:60000}",
+            initialDelayString = "${code.execution.probe-interval-ms:60000}")
+    public synchronized void probe() {
+        dockerAvailable = succeeds("docker", "version", "--format", "{{.Server.Version}}");
+        javacVersion = firstLine("javac", "-version");
+        javacAvailable = javacVersion != null;
+        lastProbe = Instant.now();
+    }
+
+    @PreDestroy
+    public void stop() {
+        reprober.shutdownNow();
+    }
+
+    /**
+     * Called when a sandbox operation failed in a way that suggests the environment changed
+     * (e.g. the Docker daemon went away); schedules one background re-probe.
+     */
+    public void reportFailure() {
+        if (reprobePending.compareAndSet(false, true)) {
+            reprober.submit(() -> {
+                reprobePending.set(false);
+                probe();
+            });
+        }
+    }
+
+    public boolean isDockerAvailable() {
+        return dockerAvailable;
+    }
+
+    /**
+     * @return "javac -version" output of the javac on the PATH, or null if there is none
+     */
+    public String getJavacVersion() {
+        return javacVersion;
+    }
+
+    /**
+     * @return the backend new submissions are routed to with the current configuration and probe results
+     */
+    public Backend getBackend() {
+        if (useDocker && dockerAvailable) return Backend.DOCKER;
+        if (compileMode == CodeExecutionService.CompileMode.IN_PROCESS && inMemoryCompiler.isAvailable()) {
+            return Backend.IN_PROCESS;
+        }
+        return Backend.DIRECT;
+    }
+
+    public SandboxStatusDTO getStatus() {
+        SandboxStatusDTO status = new SandboxStatusDTO();
+        status.setBackend(getBackend());
+        status.setDockerAvailable(dockerAvailable);
+        status.setJavacAvailable(javacAvailable);
+        status.setInProcessCompilerAvailable(inMemoryCompiler.isAvailable());
+        status.setLastProbe(lastProbe);
+        return status;
+    }
+
+    /**
+     * @return first line of the command's output if it exits with 0 in time, otherwise null
+     */
+    private String firstLine(String... command) {
+        try {
+            Process p = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String line;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+                line = reader.readLine();
+            }
+            if (!p.waitFor(5, TimeUnit.SECONDS)) {
+                p.destroyForcibly();
+                return null;
+            }
+            return p.exitValue() == 0 && line != null ? line.trim() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private boolean succeeds(String... command) {
+        try {
+            Process p = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!p.waitFor(5, TimeUnit.SECONDS)) {
+                p.destroyForcibly();
+                return false;
+            }
+            return p.exitValue() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
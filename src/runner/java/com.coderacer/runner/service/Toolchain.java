@@ -0,0 +1,169 @@
+package com.coderacer.runner.service;
+
+import com.coderacer.runner.model.Language;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How a language other than Java is wrapped, compiled and run. Every template reads the input the
+ * same way the Java one does (the count, then the values) and calls the snippet's solution(n, arr).
+ *
+ * Commands run in the submission's workspace, on the host or inside the toolchain's image.
+ *
+ * @param sourceFile     file the wrapped source is written to
+ * @param template       wrapper with one %s for the snippet
+ * @param compileCommand null for interpreted languages; must produce {@link #BINARY}
+ * @param versionCommand prints the compiler's version, which keys cached binaries of direct-mode builds
+ * @param runCommand     starts the program
+ * @param image          Docker image with the compiler or interpreter
+ * @param environment    variables the toolchain needs inside a read-only container
+ * @param buildCache     compiler cache that Docker-mode builds start from, or null
+ */
+public record Toolchain(Language language, String sourceFile, String template, List<String> compileCommand,
+                        List<String> versionCommand, List<String> runCommand, String image, Map<String, String> environment,
+                        BuildCache buildCache) {
+
+    /**
+     * A compiler cache filled once per image, so that every build does not redo the same work (Go compiles
+     * the parts of the standard library a program imports into an empty GOCACHE).
+     *
+     * @param directory    where the compiler keeps its cache inside the container; must be writable
+     * @param warmCommand  fills directory with what most builds need
+     */
+    public record BuildCache(String directory, List<String> warmCommand) {}
+
+    /** What compiled languages build, and what gets cached */
+    public static final String BINARY = "solution";
+
+    private static final Map<Language, Toolchain> TOOLCHAINS = new EnumMap<>(Language.class);
+
+    static {
+        register(new Toolchain(Language.C, "solution.c",
+                """
+                        #include <stdio.h>
+                        #include <stdlib.h>
+                        #include <string.h>
+                        #include <math.h>
+                        %s
+                        int main(void) {
+                            int n = 0;
+                            if (scanf("%%d", &n) != 1) n = 0;
+                            int *arr = malloc(sizeof(int) * (n > 0 ? n : 1));
+                            for (int i = 0; i < n; i++) scanf("%%d", &arr[i]);
+                            solution(n, arr);
+                            free(arr);
+                            return 0;
+                        }
+                        """,
+                List.of("gcc", "-O2", "-std=c11", "-o", BINARY, "solution.c", "-lm"),
+                List.of("gcc", "--version"),
+                List.of("./" + BINARY), "gcc:13", Map.of(), null));
+        register(new Toolchain(Language.CPP, "solution.cpp",
+                """
+                        #include <bits/stdc++.h>
+                        using namespace std;
+                        %s
+                        int main() {
+                            ios::sync_with_stdio(false);
+                            cin.tie(nullptr);
+                            int n = 0;
+                            cin >> n;
+                            vector<int> arr(max(n, 0));
+                            for (int i = 0; i < n; i++) cin >> arr[i];
+                            solution(n, arr);
+                            return 0;
+                        }
+                        """,
+                List.of("g++", "-O2", "-std=c++17", "-o", BINARY, "solution.cpp"),
+                List.of("g++", "--version"),
+                List.of("./" + BINARY), "gcc:13", Map.of(), null));
+        register(new Toolchain(Language.GO, "solution.go",
+                """
+                        package main
+
+                        import (
+                            "bufio"
+                            "fmt"
+                            "os"
+                        )
+
+                        %s
+
+                        func main() {
+                            reader := bufio.NewReader(os.Stdin)
+                            var n int
+                            fmt.Fscan(reader, &n)
+                            arr := make([]int, n)
+                            for i := range arr {
+                                fmt.Fscan(reader, &arr[i])
+                            }
+                            solution(n, arr)
+                        }
+                        """,
+                List.of("go", "build", "-o", BINARY, "solution.go"),
+                List.of("go", "version"),
+                List.of("./" + BINARY), "golang:1.22", Map.of("HOME", "/tmp", "GOCACHE", "/tmp/go-cache"),
+                new BuildCache("/tmp/go-cache", List.of("go", "build", "bufio", "fmt", "os", "sort", "strings",
+                        "strconv", "math", "container/heap"))));
+        register(new Toolchain(Language.RUST, "solution.rs",
+                """
+                        use std::io::Read;
+                        %s
+                        fn main() {
+                            let mut input = String::new();
+                            std::io::stdin().read_to_string(&mut input).unwrap();
+                            let mut values = input.split_ascii_whitespace().map(|v| v.parse::<i32>().unwrap());
+                            let n = values.next().unwrap_or(0).max(0) as usize;
+                            let arr: Vec<i32> = values.take(n).collect();
+                            solution(n, &arr);
+                        }
+                        """,
+                List.of("rustc", "-O", "-o", BINARY, "solution.rs"),
+                List.of("rustc", "--version"),
+                List.of("./" + BINARY), "rust:1.79-slim", Map.of("HOME", "/tmp"), null));
+        register(new Toolchain(Language.PYTHON, "solution.py",
+                """
+                        import sys
+                        %s
+                        if __name__ == "__main__":
+                            _values = sys.stdin.read().split()
+                            n = int(_values[0]) if _values else 0
+                            arr = [int(v) for v in _values[1:1 + n]]
+                            solution(n, arr)
+                        """,
+                null, null, List.of("python3", "solution.py"), "python:3.12-slim", Map.of("PYTHONDONTWRITEBYTECODE", "1"), null));
+        register(new Toolchain(Language.JAVASCRIPT, "solution.js",
+                """
+                        const __values = require('fs').readFileSync(0, 'utf8').split(/\\s+/).filter(Boolean).map(Number);
+                        %s
+                        const __n = __values.length ? __values[0] : 0;
+                        solution(__n, __values.slice(1, 1 + __n));
+                        """,
+                null, null, List.of("node", "solution.js"), "node:20-slim", Map.of(), null));
+    }
+
+    private static void register(Toolchain toolchain) {
+        TOOLCHAINS.put(toolchain.language(), toolchain);
+    }
+
+    /**
+     * @return the toolchain, or null for a language without one
+     */
+    public static Toolchain of(Language language) {
+        return TOOLCHAINS.get(language);
+    }
+
+    public static Map<Language, Toolchain> all() {
+        return TOOLCHAINS;
+    }
+
+    public boolean isCompiled() {
+        return compileCommand != null;
+    }
+
+    public String wrap(String snippet) {
+        return template.formatted(snippet);
+    }
+}
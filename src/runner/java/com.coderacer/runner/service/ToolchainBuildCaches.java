@@ -0,0 +1,149 @@
+package com.coderacer.runner.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills each toolchain's {@link Toolchain.BuildCache} once per image, in the background at startup, into a
+ * directory on the host that Docker-mode compile containers mount read-only. Compilers want a writable cache,
+ * so a build copies it into its own tmpfs first; a build that starts before the cache is ready, or on an
+ * image whose cache could not be filled, just starts from an empty one.
+ *
+ * Caches are kept per image under code.execution.docker.build-cache-dir and reused by later runner
+ * instances on the same host.
+ */
+@Component
+public class ToolchainBuildCaches {
+    /** Where compile containers see a cache */
+    static final String MOUNT = "/build-cache";
+    private static final long WARM_TIMEOUT_SECONDS = 300;
+
+    @Value("${code.execution.use-docker:true}")
+    private boolean useDocker;
+    @Value("${code.execution.docker.build-cache-dir:}")
+    private String buildCacheDir;
+
+    private final DockerSandbox dockerSandbox;
+    private final SandboxCapabilities capabilities;
+
+    private final Map<String, Path> ready = new ConcurrentHashMap<>();
+    private final ExecutorService warmer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "build-cache-warmer");
+        t.setDaemon(true);
+        return t;
+    });
+    private Path root;
+
+    public ToolchainBuildCaches(DockerSandbox dockerSandbox, SandboxCapabilities capabilities) {
+        this.dockerSandbox = dockerSandbox;
+        this.capabilities = capabilities;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!useDocker || !capabilities.isDockerAvailable()) return;
+        Path dir = buildCacheDir == null || buildCacheDir.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "coderacer-runner", "build-cache")
+                : Paths.get(buildCacheDir.trim());
+        Files.createDirectories(dir);
+        root = dir.toAbsolutePath();
+        for (Toolchain toolchain : Toolchain.all().values()) {
+            if (toolchain.buildCache() != null) warmer.submit(() -> warm(toolchain));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        warmer.shutdownNow();
+    }
+
+    /**
+     * @return docker options that mount the toolchain's cache; empty until it is ready
+     */
+    public List<String> mountOptions(Toolchain toolchain) {
+        Path cache = ready.get(toolchain.image());
+        if (cache == null || toolchain.buildCache() == null) return List.of();
+        return List.of("-v", cache + ":" + MOUNT + ":ro");
+    }
+
+    /**
+     * @return command that copies the mounted cache into place, to run before the compiler; empty without one
+     */
+    public String copyCommand(Toolchain toolchain) {
+        if (mountOptions(toolchain).isEmpty()) return "";
+        String directory = toolchain.buildCache().directory();
+        return "mkdir -p " + directory + " && cp -R " + MOUNT + "/. " + directory + "/ && ";
+    }
+
+    /**
+     * Runs the warm command in a compile container and copies its cache out. It is filled in a scratch
+     * directory that is renamed into place, so another instance never mounts a half-written one.
+     */
+    private void warm(Toolchain toolchain) {
+        Path target = root.resolve(toolchain.image().replaceAll("[^A-Za-z0-9._-]", "_"));
+        if (Files.isDirectory(target)) {
+            ready.put(toolchain.image(), target);
+            return;
+        }
+        try {
+            Path scratch = Files.createTempDirectory(root, target.getFileName() + ".");
+            String container = "coderacer-build-cache-" + UUID.randomUUID();
+            List<String> options = new ArrayList<>(Arrays.asList(
+                    "--name", container,
+                    "--tmpfs", "/tmp:exec,size=256m,mode=1777",
+                    "--pids-limit=64",
+                    "--ulimit", "nofile=256:256",
+                    "-v", scratch + ":" + MOUNT,
+                    "-w", "/tmp"
+            ));
+            toolchain.environment().forEach((name, value) -> {
+                options.add("-e");
+                options.add(name + "=" + value);
+            });
+            String directory = toolchain.buildCache().directory();
+            Process p = new ProcessBuilder(dockerSandbox.compileCommand(options, toolchain.image(), Arrays.asList(
+                    "sh", "-c", String.join(" ", toolchain.buildCache().warmCommand())
+                            + " && cp -R " + directory + "/. " + MOUNT + "/"
+            ))).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            if (!p.waitFor(WARM_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                p.destroyForcibly();
+                dockerSandbox.remove(container);
+                System.err.println("Timed out filling the build cache for " + toolchain.image());
+                return;
+            }
+            if (p.exitValue() != 0) {
+                System.err.println("Could not fill the build cache for " + toolchain.image() + ": exit " + p.exitValue());
+                return;
+            }
+            try {
+                Files.move(scratch, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // another runner instance got there first; its cache is as good
+            }
+            ready.put(toolchain.image(), target);
+        } catch (IOException e) {
+            System.err.println("Could not fill the build cache for " + toolchain.image() + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
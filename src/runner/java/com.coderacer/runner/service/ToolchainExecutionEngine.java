@@ -0,0 +1,198 @@
+package com.coderacer.runner.service;
+
+import com.coderacer.runner.model.ExecutionResult;
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Engine for every language with a {@link Toolchain}: writes the wrapped snippet into a pooled workspace,
+ * builds it if the language is compiled and runs it, on the host or in the toolchain's image depending
+ * on the sandbox mode. Executables are kept in the {@link BinaryCache}, so an identical resubmission
+ * goes straight to the run step. Docker-mode builds run under the compile limits and start from the
+ * toolchain's {@link ToolchainBuildCaches build cache}, when it has one.
+ *
+ * Input is always fed as {@link InputProtocol#TEXT}: every template already reads it through the
+ * language's buffered reader (scanf, unsynced cin, bufio, one read of all of stdin).
+ *
+ * Deadlines, output caps and usage reporting are the Java pipeline's, shared through
+ * {@link CodeExecutionService#compileSubmission} and {@link CodeExecutionService#runSubmission}.
+ */
+@Component
+public class ToolchainExecutionEngine implements ExecutionEngine {
+
+    private final CodeExecutionService processes;
+    private final DockerSandbox dockerSandbox;
+    private final SandboxCapabilities capabilities;
+    private final DeadlineManager deadlines;
+    private final WorkspaceManager workspaces;
+    private final BinaryCache binaryCache;
+    private final ToolchainBuildCaches buildCaches;
+    /** First line of each host compiler's version output */
+    private final Map<Language, String> compilerVersions = new ConcurrentHashMap<>();
+
+    public ToolchainExecutionEngine(CodeExecutionService processes, DockerSandbox dockerSandbox,
+                                    SandboxCapabilities capabilities, DeadlineManager deadlines,
+                                    WorkspaceManager workspaces, BinaryCache binaryCache,
+                                    ToolchainBuildCaches buildCaches) {
+        this.processes = processes;
+        this.dockerSandbox = dockerSandbox;
+        this.capabilities = capabilities;
+        this.deadlines = deadlines;
+        this.workspaces = workspaces;
+        this.binaryCache = binaryCache;
+        this.buildCaches = buildCaches;
+    }
+
+    @Override
+    public Set<Language> getLanguages() {
+        return Toolchain.all().keySet();
+    }
+
+    @Override
+    public ExecutionResult execute(Language language, String code, List<Integer> inputData, InputProtocol protocol,
+                                   OutputCollector.Expectation expectation) {
+        Toolchain toolchain = Toolchain.of(language);
+        if (toolchain == null) throw new IllegalArgumentException("Unsupported language: " + language);
+        String source = toolchain.wrap(code);
+        boolean withDocker = processes.isDockerMode();
+        ExecutionResult result = new ExecutionResult();
+
+        try (WorkspaceManager.Workspace workspace = workspaces.acquire()) {
+            Path dir = workspace.getDirectory();
+            Files.writeString(dir.resolve(toolchain.sourceFile()), source);
+            if (toolchain.isCompiled() && !build(toolchain, source, dir, withDocker, result)) return result;
+            Process runProcess = withDocker
+                    ? createDockerRunProcess(toolchain, dir)
+                    : createDirectRunProcess(toolchain, dir);
+            processes.runSubmission(runProcess, InputProtocol.TEXT.encode(inputData), result, expectation, withDocker);
+        } catch (IOException | InterruptedException e) {
+            result.setResult(ExecutionResult.Result.RUNTIME_ERROR);
+            result.getOutputLines().add((withDocker ? "Docker" : "Direct") + " execution error: " + e.getMessage());
+            if (withDocker) capabilities.reportFailure();
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+
+    /**
+     * Puts the executable into the workspace, from the cache or by compiling.
+     *
+     * @return false with the diagnostics or timeout recorded in result when it didn't compile
+     */
+    private boolean build(Toolchain toolchain, String source, Path dir, boolean docker, ExecutionResult result)
+            throws IOException, InterruptedException {
+        String cacheKey = CompiledClassCache.key(source, toolchainVersion(toolchain, docker));
+        Path executable = dir.resolve(Toolchain.BINARY);
+        byte[] cached = binaryCache.get(cacheKey);
+        if (cached != null) {
+            Files.write(executable, cached);
+            if (!executable.toFile().setExecutable(true)) throw new IOException("Cannot make " + executable + " executable");
+            return true;
+        }
+
+        long compileStart = System.nanoTime();
+        Process compileProcess = docker
+                ? createDockerCompileProcess(toolchain, dir)
+                : createDirectCompileProcess(toolchain, dir);
+        boolean compiled = processes.compileSubmission(compileProcess, result, docker);
+        result.setCompileTimeMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compileStart));
+        if (!compiled) return false;
+        binaryCache.put(cacheKey, Files.readAllBytes(executable));
+        return true;
+    }
+
+    /**
+     * Identifies the compiler a build uses, so cached executables are only reused for the same one.
+     */
+    private String toolchainVersion(Toolchain toolchain, boolean docker) {
+        if (docker) return "docker " + toolchain.image();
+        String version = compilerVersions.get(toolchain.language());
+        if (version != null) return version;
+        try {
+            Process process = new ProcessBuilder(toolchain.versionCommand()).redirectErrorStream(true).start();
+            try (BufferedReader reader = process.inputReader()) {
+                version = reader.readLine();
+            }
+            if (process.waitFor() == 0 && version != null) {
+                compilerVersions.put(toolchain.language(), version);
+                return version;
+            }
+        } catch (IOException e) {
+            // no compiler on the PATH: the build fails and nothing gets cached
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return String.join(" ", toolchain.versionCommand());
+    }
+
+    private Process createDirectCompileProcess(Toolchain toolchain, Path dir) throws IOException {
+        return new ProcessBuilder(toolchain.compileCommand())
+                .directory(dir.toFile())
+                .redirectErrorStream(true)
+                .start();
+    }
+
+    private Process createDockerCompileProcess(Toolchain toolchain, Path dir) throws IOException {
+        List<String> options = new ArrayList<>(Arrays.asList(
+                "--tmpfs", "/tmp:exec,size=256m,mode=1777",
+                "--pids-limit=64",
+                "--ulimit", "nofile=256:256",
+                "-v", dir.toAbsolutePath() + ":/workspace",
+                "-w", "/workspace"
+        ));
+        options.addAll(buildCaches.mountOptions(toolchain));
+        addEnvironment(options, toolchain);
+        List<String> cmd = dockerSandbox.compileCommand(options, toolchain.image(), Arrays.asList(
+                "sh", "-c", buildCaches.copyCommand(toolchain)
+                        + "timeout " + deadlines.timeoutSeconds(DeadlineManager.Phase.COMPILE) + "s "
+                        + String.join(" ", toolchain.compileCommand())
+        ));
+        return new ProcessBuilder(cmd).redirectErrorStream(true).start();
+    }
+
+    private Process createDirectRunProcess(Toolchain toolchain, Path dir) throws IOException {
+        return new ProcessBuilder(toolchain.runCommand())
+                .directory(dir.toFile())
+                .redirectErrorStream(true)
+                .start();
+    }
+
+    private Process createDockerRunProcess(Toolchain toolchain, Path dir) throws IOException {
+        List<String> options = new ArrayList<>(Arrays.asList(
+                "-i",
+                "--tmpfs", "/tmp:exec,size=10m,mode=1777",
+                "--pids-limit=32",
+                "--ulimit", "nofile=64:64",
+                "--ulimit", "nproc=16:16",
+                "-v", dir.toAbsolutePath() + ":/workspace:ro",
+                "-w", "/workspace"
+        ));
+        addEnvironment(options, toolchain);
+        List<String> cmd = dockerSandbox.runCommand(options, toolchain.image(), Arrays.asList(
+                "sh", "-c",
+                processes.withUsageReport("timeout " + deadlines.timeoutSeconds(DeadlineManager.Phase.RUN) + "s "
+                        + String.join(" ", toolchain.runCommand()))
+        ));
+        return new ProcessBuilder(cmd).redirectErrorStream(true).start();
+    }
+
+    private static void addEnvironment(List<String> options, Toolchain toolchain) {
+        toolchain.environment().forEach((name, value) -> {
+            options.add("-e");
+            options.add(name + "=" + value);
+        });
+    }
+}
@@ -0,0 +1,471 @@
+package com.coderacer.runner.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pool of pre-started worker JVMs that run compiled submissions without paying JVM start-up per request.
+ *
+ * Each worker loads the submitted class bytes through a throwaway classloader, runs main with
+ * System.in/out/err swapped for in-memory streams and reports the captured output back.
+ * A worker is recycled (killed and replaced) after max-runs-per-worker runs, after a timeout,
+ * when it crashes or exits (e.g. System.exit), or when the submission left threads running.
+ *
+ * The control frames travel over the worker's stdin and stdout, and the submission shares the JVM:
+ * it can always reach those descriptors (FileDescriptor.in/out, /proc/self/fd). So every response
+ * carries the run's sequence number and an HMAC under a key each worker gets on startup, held only by
+ * the worker's main frame. A response that fails any check recycles the worker.
+ *
+ * A submission can leave code behind that the thread check does not see (a finalizer, a Cleaner action,
+ * a virtual thread), and JVM-wide state (system properties, default locale and time zone, /tmp in
+ * Docker mode) carries over too. So a worker only runs the code of one submitter: one whose last job
+ * was somebody else's is recycled instead of reused. Between jobs System.in/out/err lead nowhere.
+ *
+ * In Docker mode every worker lives in its own locked-down container.
+ */
+@Component
+public class WorkerPool {
+    public static final String WORKER_CLASS = "CoderacerWorker";
+    private static final int READY = 0x5EADCAFE;
+    /** Status a worker reports before exiting when a run's output went over max-output-bytes */
+    private static final int OUTPUT_LIMIT_STATUS = 2;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_BYTES = 32;
+    private static final long QUEUE_WAIT_SECONDS = 30;
+    private static final String WORKER_SOURCE =
+            """
+                    import java.io.*;
+                    import java.lang.reflect.InvocationTargetException;
+                    import java.util.Arrays;
+                    import java.util.HashMap;
+                    import java.util.HashSet;
+                    import java.util.Map;
+                    import java.util.Scanner;
+                    import java.util.Set;
+                    import java.util.concurrent.CompletableFuture;
+                    import javax.crypto.Mac;
+                    import javax.crypto.spec.SecretKeySpec;
+                    public class CoderacerWorker extends ClassLoader {
+                        private final Map<String, byte[]> classes;
+                        CoderacerWorker(Map<String, byte[]> classes) {
+                            super(CoderacerWorker.class.getClassLoader());
+                            this.classes = classes;
+                        }
+                        @Override
+                        protected Class<?> findClass(String name) throws ClassNotFoundException {
+                            byte[] bytes = classes.remove(name);
+                            if (bytes == null) throw new ClassNotFoundException(name);
+                            return defineClass(name, bytes, 0, bytes.length);
+                        }
+                        public static void main(String[] args) throws Exception {
+                            long maxOutput = args.length > 0 ? Long.parseLong(args[0]) : Long.MAX_VALUE;
+                            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+                            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+                            // only this frame refers to the key, so a submission cannot sign a response
+                            byte[] key = new byte[%3$d];
+                            in.readFully(key);
+                            Mac mac = Mac.getInstance("%4$s");
+                            mac.init(new SecretKeySpec(key, "%4$s"));
+                            Arrays.fill(key, (byte) 0);
+                            new Scanner(new ByteArrayInputStream("1 1".getBytes())).nextInt();
+                            processCpuNanos();
+                            peakRssKb();
+                            Set<Thread> baseline = new HashSet<>(Thread.getAllStackTraces().keySet());
+                            out.writeInt(%1$d);
+                            out.flush();
+                            for (int seq = 1; ; seq++) {
+                                String mainClass;
+                                try {
+                                    mainClass = in.readUTF();
+                                } catch (EOFException e) {
+                                    return;
+                                }
+                                int count = in.readInt();
+                                if (count < 0) return;
+                                Map<String, byte[]> classes = new HashMap<>();
+                                for (int i = 0; i < count; i++) {
+                                    String name = in.readUTF();
+                                    int length = in.readInt();
+                                    if (length < 0) return;
+                                    byte[] bytes = new byte[length];
+                                    in.readFully(bytes);
+                                    classes.put(name, bytes);
+                                }
+                                int inputLength = in.readInt();
+                                if (inputLength < 0) return;
+                                byte[] input = new byte[inputLength];
+                                in.readFully(input);
+                                resetPeakRss();
+                                long startCpu = processCpuNanos();
+
+                                CompletableFuture<Integer> done = new CompletableFuture<>();
+                                ByteArrayOutputStream captured = new ByteArrayOutputStream();
+                                PrintStream capture = new PrintStream(new OutputStream() {
+                                    @Override
+                                    public void write(int b) {
+                                        write(new byte[] {(byte) b}, 0, 1);
+                                    }
+                                    @Override
+                                    public synchronized void write(byte[] b, int off, int len) {
+                                        if (done.isDone()) return;
+                                        if (captured.size() + len <= maxOutput) {
+                                            captured.write(b, off, len);
+                                            return;
+                                        }
+                                        // over the cap: keep what fits, the worker reports it and dies
+                                        captured.write(b, off, (int) (maxOutput - captured.size()));
+                                        done.complete(%2$d);
+                                    }
+                                }, true);
+                                Thread runner = new Thread(() -> {
+                                    int status = 0;
+                                    try {
+                                        Class<?> c = new CoderacerWorker(classes).loadClass(mainClass);
+                                        c.getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+                                    } catch (InvocationTargetException e) {
+                                        status = 1;
+                                        capture.print("Exception in thread \\"main\\" ");
+                                        e.getCause().printStackTrace(capture);
+                                    } catch (Throwable t) {
+                                        status = 1;
+                                        t.printStackTrace(capture);
+                                    }
+                                    capture.flush();
+                                    done.complete(status);
+                                }, "main");
+                                System.setIn(new ByteArrayInputStream(input));
+                                System.setOut(capture);
+                                System.setErr(capture);
+                                runner.start();
+                                int status = done.get();
+                                System.setIn(InputStream.nullInputStream());
+                                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                                System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+                                if (status == %2$d) {
+                                    respond(out, mac, seq, status, true, captured.toByteArray(), startCpu);
+                                    Runtime.getRuntime().halt(0);
+                                }
+                                runner.join(1000);
+                                boolean leftThreads = !baseline.containsAll(Thread.getAllStackTraces().keySet());
+                                respond(out, mac, seq, status, leftThreads, captured.toByteArray(), startCpu);
+                            }
+                        }
+                        private static void respond(DataOutputStream out, Mac mac, int seq, int status, boolean leftThreads,
+                                                    byte[] output, long startCpu) throws IOException {
+                            ByteArrayOutputStream frame = new ByteArrayOutputStream(output.length + 32);
+                            DataOutputStream data = new DataOutputStream(frame);
+                            data.writeInt(seq);
+                            data.writeInt(status);
+                            data.writeBoolean(leftThreads);
+                            data.writeInt(output.length);
+                            data.write(output);
+                            data.writeLong(peakRssKb());
+                            data.writeLong(Math.max(0, processCpuNanos() - startCpu));
+                            byte[] body = frame.toByteArray();
+                            out.write(body);
+                            out.write(mac.doFinal(body));
+                            out.flush();
+                        }
+                        private static long processCpuNanos() {
+                            // includes GC and JIT work done for the submission, like the CPU time of a fresh JVM
+                            java.lang.management.OperatingSystemMXBean os = java.lang.management.ManagementFactory.getOperatingSystemMXBean();
+                            if (!(os instanceof com.sun.management.OperatingSystemMXBean)) return 0;
+                            return Math.max(0, ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime());
+                        }
+                        private static void resetPeakRss() {
+                            try (FileOutputStream f = new FileOutputStream("/proc/self/clear_refs")) {
+                                f.write('5');
+                            } catch (IOException e) {
+                                // not Linux or not permitted: the peak then covers the worker's lifetime
+                            }
+                        }
+                        private static long peakRssKb() {
+                            try (BufferedReader r = new BufferedReader(new FileReader("/proc/self/status"))) {
+                                String line;
+                                while ((line = r.readLine()) != null) {
+                                    if (line.startsWith("VmHWM:")) return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                                }
+                            } catch (IOException | NumberFormatException e) {
+                                // not measurable here
+                            }
+                            return 0;
+                        }
+                    }""".formatted(READY, OUTPUT_LIMIT_STATUS, KEY_BYTES, MAC_ALGORITHM);
+
+    @Value("${code.execution.worker-pool.enabled:false}")
+    private boolean enabled;
+    @Value("${code.execution.worker-pool.size:4}")
+    private int size = 4;
+    @Value("${code.execution.worker-pool.max-runs-per-worker:100}")
+    private int maxRunsPerWorker = 100;
+    @Value("${code.execution.worker-pool.queue-depth:32}")
+    private int queueDepth = 32;
+    @Value("${code.execution.worker-pool.heap:64m}")
+    private String workerHeap = "64m";
+    @Value("${code.execution.use-docker:true}")
+    private boolean useDocker;
+    @Value("${code.execution.output.max-bytes:1048576}")
+    private long maxOutputBytes = 1048576;
+
+    private final ClassLauncher classLauncher;
+    private final DockerSandbox dockerSandbox;
+    private final SandboxCapabilities capabilities;
+
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final ExecutorService spawner = Executors.newSingleThreadExecutor(daemon("worker-spawner"));
+    private final ScheduledExecutorService killer = Executors.newSingleThreadScheduledExecutor(daemon("worker-killer"));
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final SecureRandom random = new SecureRandom();
+    private Semaphore admission;
+    private boolean docker;
+
+    public WorkerPool(ClassLauncher classLauncher, DockerSandbox dockerSandbox, SandboxCapabilities capabilities) {
+        this.classLauncher = classLauncher;
+        this.dockerSandbox = dockerSandbox;
+        this.capabilities = capabilities;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled || classLauncher.getDirectory() == null) return;
+        classLauncher.installClass(WORKER_CLASS, WORKER_SOURCE);
+        docker = useDocker && capabilities.isDockerAvailable();
+        admission = new Semaphore(size + queueDepth);
+        running.set(true);
+        for (int i = 0; i < size; i++) spawner.submit(this::spawn);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running.set(false);
+        spawner.shutdownNow();
+        killer.shutdownNow();
+        Worker w;
+        while ((w = idle.poll()) != null) w.destroy();
+    }
+
+    public boolean isEnabled() {
+        return running.get();
+    }
+
+    /**
+     * Runs a compiled submission on the next free worker that is fresh or only ran the same submitter's code.
+     *
+     * @param user submitter the worker is kept for (see {@link ExecutionScheduler#currentUser()})
+     * @throws RejectedExecutionException when size + queue-depth runs are already in flight or waiting
+     */
+    public Outcome execute(String user, String mainClass, Map<String, byte[]> classes, byte[] input, long timeoutMillis)
+            throws InterruptedException {
+        if (!admission.tryAcquire()) {
+            throw new RejectedExecutionException("All workers are busy and the queue is full");
+        }
+        try {
+            Worker worker = take(user);
+            worker.owner = user;
+            Outcome outcome = worker.run(mainClass, classes, input, timeoutMillis);
+            if (outcome.recycle() || worker.runs >= maxRunsPerWorker) {
+                worker.destroy();
+                spawner.submit(this::spawn);
+            } else {
+                idle.add(worker);
+            }
+            return outcome;
+        } finally {
+            admission.release();
+        }
+    }
+
+    /**
+     * Prefers an idle worker of the same submitter, then a fresh one. Otherwise the next worker to come
+     * free is taken if it is either, and recycled if it ran somebody else's code.
+     */
+    private Worker take(String user) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(QUEUE_WAIT_SECONDS);
+        while (true) {
+            for (Worker w : idle) {
+                if (w.runs > 0 && Objects.equals(w.owner, user) && idle.remove(w)) return w;
+            }
+            for (Worker w : idle) {
+                if (w.runs == 0 && idle.remove(w)) return w;
+            }
+            Worker worker = idle.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (worker == null) {
+                throw new RejectedExecutionException("No worker became available within " + QUEUE_WAIT_SECONDS + "s");
+            }
+            if (worker.runs == 0 || Objects.equals(worker.owner, user)) return worker;
+            worker.destroy();
+            spawner.submit(this::spawn);
+        }
+    }
+
+    private void spawn() {
+        if (!running.get()) return;
+        Worker worker = null;
+        try {
+            worker = new Worker();
+            if (worker.awaitReady()) {
+                idle.add(worker);
+                return;
+            }
+        } catch (IOException e) {
+            System.err.println("Error starting worker JVM: " + e.getMessage());
+        }
+        if (docker) capabilities.reportFailure();
+        if (worker != null) worker.destroy();
+        // back off before retrying so a broken environment doesn't turn into a fork loop
+        killer.schedule(() -> spawner.submit(this::spawn), 1, TimeUnit.SECONDS);
+    }
+
+    private List<String> workerCommand(String containerName) {
+        List<String> java = List.of("java", "-Xmx" + workerHeap, "-Xss8m", "-XX:+UseSerialGC",
+                "-XX:TieredStopAtLevel=1", "-Xshare:auto", "-cp", docker ? "/launcher" : classLauncher.getDirectory().toString(),
+                WORKER_CLASS, Long.toString(maxOutputBytes));
+        if (!docker) return java;
+        return dockerSandbox.runCommand(Arrays.asList(
+                "-i", "--name", containerName,
+                "--tmpfs", "/tmp:exec,size=10m,mode=1777",
+                "--pids-limit=32",
+                "--ulimit", "nofile=64:64",
+                "--ulimit", "nproc=16:16",
+                "-v", classLauncher.getDirectory() + ":/launcher:ro",
+                "-w", "/tmp"
+        ), DockerSandbox.JRE_IMAGE, java);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * @param exitCode            0 for a normal return from main, non-zero for an exception, crash or exit
+     * @param output              captured stdout/stderr, at most max-output-bytes
+     * @param outputLimitExceeded the run printed more than max-output-bytes and was stopped
+     * @param recycle             whether the worker that produced this outcome can't be reused
+     * @param peakMemoryKb        the worker's peak RSS during the run (reset before each run), 0 if unknown
+     * @param cpuTimeMillis       CPU time the worker process used during the run, 0 if unknown
+     */
+    public record Outcome(int exitCode, byte[] output, boolean timedOut, boolean outputLimitExceeded,
+                          boolean recycle, long peakMemoryKb, long cpuTimeMillis) {}
+
+    private class Worker {
+        private final String containerName = "coderacer-worker-" + UUID.randomUUID();
+        private final Process process;
+        private final DataOutputStream toWorker;
+        private final DataInputStream fromWorker;
+        private final Mac mac;
+        private int runs;
+        /** Submitter whose code the worker ran */
+        private String owner;
+
+        Worker() throws IOException {
+            byte[] key = new byte[KEY_BYTES];
+            random.nextBytes(key);
+            try {
+                mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+            }
+            process = new ProcessBuilder(workerCommand(containerName))
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            toWorker = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            fromWorker = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            toWorker.write(key);
+            toWorker.flush();
+        }
+
+        boolean awaitReady() {
+            Future<?> timeout = killer.schedule(process::destroyForcibly, 60, TimeUnit.SECONDS);
+            try {
+                return fromWorker.readInt() == READY;
+            } catch (IOException e) {
+                return false;
+            } finally {
+                timeout.cancel(false);
+            }
+        }
+
+        Outcome run(String mainClass, Map<String, byte[]> classes, byte[] input, long timeoutMillis) {
+            runs++;
+            AtomicBoolean timedOut = new AtomicBoolean();
+            Future<?> deadline = killer.schedule(() -> {
+                timedOut.set(true);
+                process.destroyForcibly();
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                classLauncher.writeClasses(toWorker, mainClass, classes);
+                toWorker.writeInt(input.length);
+                toWorker.write(input);
+                toWorker.flush();
+
+                int seq = fromWorker.readInt();
+                int status = fromWorker.readInt();
+                boolean leftThreads = fromWorker.readBoolean();
+                int length = fromWorker.readInt();
+                if (seq != runs || status < 0 || status > OUTPUT_LIMIT_STATUS || length < 0 || length > maxOutputBytes) {
+                    return rejected();
+                }
+                byte[] output = new byte[length];
+                fromWorker.readFully(output);
+                long peakMemoryKb = fromWorker.readLong();
+                long cpuNanos = fromWorker.readLong();
+                byte[] signature = new byte[mac.getMacLength()];
+                fromWorker.readFully(signature);
+
+                ByteArrayOutputStream frame = new ByteArrayOutputStream(length + 32);
+                DataOutputStream data = new DataOutputStream(frame);
+                data.writeInt(seq);
+                data.writeInt(status);
+                data.writeBoolean(leftThreads);
+                data.writeInt(length);
+                data.write(output);
+                data.writeLong(peakMemoryKb);
+                data.writeLong(cpuNanos);
+                // anything after the frame was written by someone else
+                if (!MessageDigest.isEqual(mac.doFinal(frame.toByteArray()), signature) || fromWorker.available() > 0) {
+                    return rejected();
+                }
+                boolean limitExceeded = status == OUTPUT_LIMIT_STATUS;
+                return new Outcome(status, output, false, limitExceeded, leftThreads || limitExceeded,
+                        peakMemoryKb, TimeUnit.NANOSECONDS.toMillis(cpuNanos));
+            } catch (IOException e) {
+                // worker died mid-run: timeout, System.exit, or a crash such as OutOfMemoryError
+                String message = timedOut.get() ? "" : "Worker terminated: " + e.getMessage();
+                return new Outcome(1, message.getBytes(StandardCharsets.UTF_8), timedOut.get(), false, true, 0, 0);
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+
+        /**
+         * The outcome of a run whose response was not the worker's own, or not well-formed.
+         */
+        private Outcome rejected() {
+            return new Outcome(1, "Worker sent an invalid response".getBytes(StandardCharsets.UTF_8), false, false,
+                    true, 0, 0);
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+            if (docker) dockerSandbox.remove(containerName);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.coderacer.runner.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * Working directories for process-mode compiles, kept on a RAM-backed file system (/dev/shm unless
+ * code.execution.workspace.root says otherwise) so a submission's source and class files never hit the disk.
+ *
+ * A fixed set of slot directories is created up front and recycled: releasing a workspace only empties
+ * its slot. When all slots are busy an extra directory is created for the run and removed afterwards.
+ *
+ * Each runner instance works under a directory named after its pid, so instances sharing a host don't
+ * touch each other's workspaces. Directories of instances that are no longer running (a crash, a kill -9)
+ * are reaped at startup and on a schedule, together with slots whose cleanup failed.
+ */
+@Component
+public class WorkspaceManager {
+    private static final String LEGACY_PREFIX = "java_code_exec_";
+    private static final String SLOT_PREFIX = "slot-";
+
+    @Value("${code.execution.workspace.root:}")
+    private String root;
+    @Value("${code.execution.workspace.slots:0}")
+    private int slots;
+
+    private Path instanceDir;
+    private final BlockingQueue<Path> idle = new LinkedBlockingQueue<>();
+    private final Set<Path> slotDirs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Reaps what earlier runs left behind and creates this instance's slot directories.
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Path rootDir = getRoot();
+        Files.createDirectories(rootDir);
+        reapDeadInstances();
+        // directories of the per-run layout used before workspaces were pooled
+        try (Stream<Path> legacy = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            legacy.filter(p -> p.getFileName().toString().startsWith(LEGACY_PREFIX)).forEach(WorkspaceManager::delete);
+        } catch (IOException e) {
+            System.err.println("Could not reap old workspaces: " + e.getMessage());
+        }
+
+        instanceDir = rootDir.resolve(Long.toString(ProcessHandle.current().pid())).toAbsolutePath();
+        delete(instanceDir);
+        Files.createDirectories(instanceDir);
+        int count = slots > 0 ? slots : Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < count; i++) {
+            Path slot = Files.createDirectory(instanceDir.resolve(SLOT_PREFIX + i));
+            slotDirs.add(slot);
+            idle.add(slot);
+        }
+    }
+
+    /**
+     * @return an empty directory, to be closed when the run is over
+     */
+    public Workspace acquire() throws IOException {
+        Path slot = idle.poll();
+        if (slot != null) return new Workspace(slot, true);
+        return new Workspace(Files.createDirectory(instanceDir.resolve(UUID.randomUUID().toString())), false);
+    }
+
+    /**
+     * Removes directories of runner instances that are gone and empties idle slots left dirty
+     * by a failed cleanup.
+     */
+    @Scheduled(fixedDelayString = "${code.execution.workspace.reap-interval-ms:300000}",
+            initialDelayString = "${code.execution.workspace.reap-interval-ms:300000}")
+    public void reap() {
+        reapDeadInstances();
+        for (int i = idle.size(); i > 0; i--) {
+            Path slot = idle.poll();
+            if (slot == null) break;
+            clear(slot);
+            idle.add(slot);
+        }
+    }
+
+    public int getIdleSlots() {
+        return idle.size();
+    }
+
+    public Path getRoot() {
+        if (root != null && !root.isBlank()) return Paths.get(root.trim());
+        Path shm = Paths.get("/dev/shm");
+        Path base = Files.isDirectory(shm) && Files.isWritable(shm) ? shm : Paths.get(System.getProperty("java.io.tmpdir"));
+        return base.resolve("coderacer-runner").resolve("workspaces");
+    }
+
+    private void reapDeadInstances() {
+        try (Stream<Path> instances = Files.list(getRoot())) {
+            instances.filter(WorkspaceManager::isAbandoned).forEach(WorkspaceManager::delete);
+        } catch (IOException e) {
+            System.err.println("Could not reap workspaces: " + e.getMessage());
+        }
+    }
+
+    private static boolean isAbandoned(Path instance) {
+        try {
+            long pid = Long.parseLong(instance.getFileName().toString());
+            return ProcessHandle.of(pid).map(p -> !p.isAlive()).orElse(true);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static void clear(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(WorkspaceManager::delete);
+        } catch (IOException e) {
+            System.err.println("Error cleaning up " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private static void delete(Path path) {
+        if (!Files.exists(path)) return;
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            System.err.println("Error cleaning up " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A directory for one run; closing it empties the slot and returns it to the pool.
+     */
+    public class Workspace implements AutoCloseable {
+        private final Path directory;
+        private final boolean pooled;
+
+        private Workspace(Path directory, boolean pooled) {
+            this.directory = directory;
+            this.pooled = pooled;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        @Override
+        public void close() {
+            if (pooled) {
+                clear(directory);
+                idle.add(directory);
+            } else {
+                delete(directory);
+            }
+        }
+    }
+}
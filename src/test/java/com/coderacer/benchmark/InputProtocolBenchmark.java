@@ -0,0 +1,130 @@
+package com.coderacer.benchmark;
+
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.service.ClassLauncher;
+import com.coderacer.runner.service.CodeExecutionService;
+import com.coderacer.runner.service.InMemoryJavaCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Harness overhead of reading n ints from stdin, for the Scanner harness submissions used to be wrapped
+ * in and for both input protocols. Every run is a fresh launcher JVM fed the classes and the input, as
+ * in the runner's process mode; the median time of a run with a single value (JVM start-up, class
+ * loading) is subtracted, so what is left is reading and parsing the input.
+ *
+ * Run with: mvn test -Dtest=InputProtocolBenchmark -Dbenchmarks=true
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class InputProtocolBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int RUNS = 5;
+    private static final String SNIPPET =
+            "static void solution(int n, int[] arr) { long sum = 0; for (int v : arr) sum += v; System.out.println(sum); }";
+    /** The Scanner-based harness the TEXT one replaced */
+    private static final String SCANNER_TEMPLATE =
+            """
+                    import java.util.*;
+                    public class %s {
+                        public static void main(String[] args) throws Exception{
+                            Scanner sc = new Scanner(System.in);
+                            int n = sc.nextInt();
+                            int[] arr = new int[n];
+                            for (int i = 0; i < n; i++) arr[i] = sc.nextInt();
+                            sc.close();
+                            solution(n, arr);
+                        }
+                        %s
+                    }""";
+
+    private record Harness(String name, String template, InputProtocol protocol) {}
+
+    @Test
+    void testHarnessOverhead() throws Exception {
+        InMemoryJavaCompiler compiler = new InMemoryJavaCompiler();
+        ClassLauncher launcher = new ClassLauncher(compiler);
+        launcher.install();
+        List<Harness> harnesses = List.of(
+                new Harness("scanner", SCANNER_TEMPLATE, InputProtocol.TEXT),
+                new Harness("text", (String) ReflectionTestUtils.getField(CodeExecutionService.class, "JAVA_TEMPLATE"),
+                        InputProtocol.TEXT),
+                new Harness("binary", (String) ReflectionTestUtils.getField(CodeExecutionService.class, "JAVA_BINARY_TEMPLATE"),
+                        InputProtocol.BINARY));
+
+        Random random = new Random(42);
+        Map<Integer, List<Integer>> inputs = new LinkedHashMap<>();
+        for (int size : SIZES) {
+            List<Integer> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) values.add(random.nextInt());
+            inputs.put(size, values);
+        }
+
+        System.out.printf("%-8s %10s %14s %12s%n", "harness", "values", "overhead ms", "ns/value");
+        Map<String, Long> largest = new LinkedHashMap<>();
+        for (Harness harness : harnesses) {
+            String className = "Bench_" + harness.name();
+            InMemoryJavaCompiler.CompilationOutput compiled =
+                    compiler.compile(className, harness.template().formatted(className, SNIPPET));
+            assertTrue(compiled.success(), String.join("\n", compiled.diagnostics()));
+
+            long baseline = medianNanos(launcher, className, compiled.classes(), List.of(1), harness.protocol());
+            for (Map.Entry<Integer, List<Integer>> input : inputs.entrySet()) {
+                long overhead = Math.max(0, medianNanos(launcher, className, compiled.classes(), input.getValue(),
+                        harness.protocol()) - baseline);
+                System.out.printf("%-8s %10d %14d %12d%n", harness.name(), input.getKey(),
+                        TimeUnit.NANOSECONDS.toMillis(overhead), overhead / input.getKey());
+                largest.put(harness.name(), overhead);
+            }
+        }
+
+        assertTrue(largest.get("text") < largest.get("scanner"));
+        assertTrue(largest.get("binary") < largest.get("scanner"));
+    }
+
+    private long medianNanos(ClassLauncher launcher, String className, Map<String, byte[]> classes, List<Integer> values,
+                             InputProtocol protocol) throws Exception {
+        byte[] input = protocol.encode(values);
+        String expected = Long.toString(values.stream().mapToLong(Integer::longValue).sum());
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) times[i] = runNanos(launcher, className, classes, input, expected);
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private long runNanos(ClassLauncher launcher, String className, Map<String, byte[]> classes, byte[] input,
+                          String expected) throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder("java", "-cp", launcher.getDirectory().toString(), ClassLauncher.LAUNCHER_CLASS)
+                .redirectErrorStream(true)
+                .start();
+        Thread writer = new Thread(() -> {
+            try (OutputStream stdin = process.getOutputStream()) {
+                launcher.writeClasses(stdin, className, classes);
+                stdin.write(input);
+            } catch (IOException e) {
+                // the output check below reports it
+            }
+        });
+        writer.start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        assertEquals(0, process.waitFor(), output);
+        long elapsed = System.nanoTime() - start;
+        writer.join();
+        assertEquals(expected, output);
+        return elapsed;
+    }
+}
@@ -0,0 +1,132 @@
+package com.coderacer.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latency of one leaderboard page at increasing depth in Postgres, with LIMIT/OFFSET as the Pageable
+ * endpoints do and with the keyset query the cursor endpoints use (the leaderboard_entries table and its
+ * (matchmaking_rating DESC, id) index, as created by the app). The keyset page starts after the row just
+ * before the offset, so both return the same rows. COUNT(*), which every Page response pays for, is
+ * timed separately. Needs Docker for the Postgres container.
+ *
+ * Run with: mvn test -Dtest=KeysetPaginationBenchmark -Dbenchmarks=true
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class KeysetPaginationBenchmark {
+    private static final int ROWS = 1_000_000;
+    private static final long[] OFFSETS = {0, 1_000, 10_000, 100_000, 500_000, 990_000};
+    private static final int PAGE_SIZE = 20;
+    private static final int RUNS = 7;
+
+    private static final String OFFSET_QUERY = "SELECT id, matchmaking_rating FROM leaderboard_entries " +
+            "ORDER BY matchmaking_rating DESC, id LIMIT ? OFFSET ?";
+    private static final String KEYSET_QUERY = "SELECT id, matchmaking_rating FROM leaderboard_entries " +
+            "WHERE matchmaking_rating <= ? AND (matchmaking_rating < ? OR id > ?) " +
+            "ORDER BY matchmaking_rating DESC, id LIMIT ?";
+
+    private record Row(UUID id, int rating) {}
+
+    @Test
+    void testOffsetAgainstKeyset() throws SQLException {
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")) {
+            postgres.start();
+            try (Connection connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+                    postgres.getPassword())) {
+                populate(connection);
+
+                System.out.printf("%-10s %12s %12s%n", "offset", "offset us", "keyset us");
+                long offsetDeepest = 0;
+                long keysetDeepest = 0;
+                for (long offset : OFFSETS) {
+                    List<Row> expected = offsetPage(connection, offset, PAGE_SIZE);
+                    Row cursor = offset == 0 ? null : offsetPage(connection, offset - 1, 1).get(0);
+                    if (cursor != null) assertEquals(expected, keysetPage(connection, cursor));
+
+                    long[] offsetTimes = new long[RUNS];
+                    long[] keysetTimes = new long[RUNS];
+                    for (int run = 0; run < RUNS; run++) {
+                        long start = System.nanoTime();
+                        offsetPage(connection, offset, PAGE_SIZE);
+                        offsetTimes[run] = System.nanoTime() - start;
+
+                        start = System.nanoTime();
+                        if (cursor != null) keysetPage(connection, cursor);
+                        else offsetPage(connection, 0, PAGE_SIZE);
+                        keysetTimes[run] = System.nanoTime() - start;
+                    }
+                    Arrays.sort(offsetTimes);
+                    Arrays.sort(keysetTimes);
+                    offsetDeepest = offsetTimes[RUNS / 2];
+                    keysetDeepest = keysetTimes[RUNS / 2];
+                    System.out.printf("%-10d %12d %12d%n", offset,
+                            TimeUnit.NANOSECONDS.toMicros(offsetDeepest), TimeUnit.NANOSECONDS.toMicros(keysetDeepest));
+                }
+
+                long start = System.nanoTime();
+                try (Statement statement = connection.createStatement();
+                     ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM leaderboard_entries")) {
+                    count.next();
+                    assertEquals(ROWS, count.getLong(1));
+                }
+                System.out.printf("count(*) us: %d%n", TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+                assertTrue(keysetDeepest < offsetDeepest);
+            }
+        }
+    }
+
+    private static void populate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE leaderboard_entries (id UUID PRIMARY KEY, username VARCHAR(25) NOT NULL, " +
+                    "matchmaking_rating INTEGER NOT NULL)");
+            statement.execute("INSERT INTO leaderboard_entries (id, username, matchmaking_rating) " +
+                    "SELECT gen_random_uuid(), 'user' || g, (random() * 3000)::int FROM generate_series(1, " + ROWS + ") g");
+            statement.execute("CREATE INDEX idx_leaderboard_rating_id ON leaderboard_entries (matchmaking_rating DESC, id)");
+            statement.execute("ANALYZE leaderboard_entries");
+        }
+    }
+
+    private static List<Row> offsetPage(Connection connection, long offset, int limit) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(OFFSET_QUERY)) {
+            statement.setInt(1, limit);
+            statement.setLong(2, offset);
+            return rows(statement);
+        }
+    }
+
+    private static List<Row> keysetPage(Connection connection, Row cursor) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(KEYSET_QUERY)) {
+            statement.setInt(1, cursor.rating());
+            statement.setInt(2, cursor.rating());
+            statement.setObject(3, cursor.id());
+            statement.setInt(4, PAGE_SIZE);
+            return rows(statement);
+        }
+    }
+
+    private static List<Row> rows(PreparedStatement statement) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows.add(new Row(resultSet.getObject(1, UUID.class), resultSet.getInt(2)));
+            }
+        }
+        return rows;
+    }
+}
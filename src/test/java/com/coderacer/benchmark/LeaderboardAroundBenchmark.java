@@ -0,0 +1,102 @@
+package com.coderacer.benchmark;
+
+import com.coderacer.dto.LeaderboardAroundDTO;
+import com.coderacer.dto.LeaderboardEntryDTO;
+import com.coderacer.repository.LeaderboardEntryRepository;
+import com.coderacer.service.LeaderboardIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Finding a player's rank and neighbours with LeaderboardIndex.around, against paging through the
+ * leaderboard sorted by rating the way a client had to before: request pages of PAGE_SIZE until the
+ * player shows up. The paging side is given its best case, a sorted tree standing in for an index on
+ * the rating, where a page still has to step over every row before its offset, as OFFSET does. The
+ * player looked up is the median one. Paging is quadratic in the rank, so it is timed once per size;
+ * the index lookup is the median of RUNS.
+ *
+ * Run with: mvn test -Dtest=LeaderboardAroundBenchmark -Dbenchmarks=true
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LeaderboardAroundBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int PAGE_SIZE = 100;
+    private static final int RADIUS = 5;
+    private static final int RUNS = 5;
+    private static final Comparator<LeaderboardEntryDTO> ORDER =
+            Comparator.comparing(LeaderboardEntryDTO::matchmakingRating).reversed().thenComparing(LeaderboardEntryDTO::id, LeaderboardIndex::compareIds);
+
+    @Test
+    void testAroundAgainstPaging() {
+        Random random = new Random(42);
+        System.out.printf("%-10s %10s %14s %14s%n", "accounts", "rank", "paging us", "index us");
+        long pagingLargest = 0;
+        long indexLargest = 0;
+        for (int size : SIZES) {
+            LeaderboardIndex index = new LeaderboardIndex(Mockito.mock(LeaderboardEntryRepository.class),
+                    new SimpleMeterRegistry());
+            NavigableSet<LeaderboardEntryDTO> sorted = new TreeSet<>(ORDER);
+            for (int i = 0; i < size; i++) {
+                LeaderboardEntryDTO entry = new LeaderboardEntryDTO(UUID.randomUUID(), "user" + i, random.nextInt(3000));
+                sorted.add(entry);
+                index.put(entry.id(), entry.username(), entry.matchmakingRating());
+            }
+            String username = new ArrayList<>(sorted).get(size / 2).username();
+
+            long start = System.nanoTime();
+            long pagedRank = rankByPaging(sorted, username);
+            pagingLargest = System.nanoTime() - start;
+
+            LeaderboardAroundDTO fromIndex = null;
+            long[] indexed = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                start = System.nanoTime();
+                fromIndex = index.around(username, RADIUS);
+                indexed[run] = System.nanoTime() - start;
+            }
+            Arrays.sort(indexed);
+            indexLargest = indexed[RUNS / 2];
+            assertEquals(pagedRank, fromIndex.rank());
+            System.out.printf("%-10d %10d %14d %14d%n", size, fromIndex.rank(),
+                    TimeUnit.NANOSECONDS.toMicros(pagingLargest), TimeUnit.NANOSECONDS.toMicros(indexLargest));
+        }
+
+        assertTrue(indexLargest < pagingLargest);
+    }
+
+    /**
+     * Pages through the leaderboard until the player is found, as with findAllByOrderByMatchmakingRatingDesc.
+     */
+    private static long rankByPaging(NavigableSet<LeaderboardEntryDTO> sorted, String username) {
+        for (long offset = 0; offset < sorted.size(); offset += PAGE_SIZE) {
+            List<LeaderboardEntryDTO> page = page(sorted, offset);
+            for (int i = 0; i < page.size(); i++) {
+                if (page.get(i).username().equals(username)) return offset + i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static List<LeaderboardEntryDTO> page(NavigableSet<LeaderboardEntryDTO> sorted, long offset) {
+        Iterator<LeaderboardEntryDTO> rows = sorted.iterator();
+        for (long skipped = 0; skipped < offset && rows.hasNext(); skipped++) rows.next();
+        List<LeaderboardEntryDTO> page = new ArrayList<>(PAGE_SIZE);
+        while (page.size() < PAGE_SIZE && rows.hasNext()) page.add(rows.next());
+        return page;
+    }
+}
@@ -0,0 +1,155 @@
+package com.coderacer.benchmark;
+
+import com.coderacer.client.CodeExecutionClient;
+import com.coderacer.client.RunnerBalancer;
+import com.coderacer.dto.ExecutionResultDTO;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test of the main app's blocking path to the runner: many concurrent submissions each wait on
+ * {@link CodeExecutionClient#executeCode} against a stub runner that takes a fixed time per execution.
+ *
+ * Platform mode models Tomcat's default 200 request threads; virtual mode gives every submission its
+ * own virtual thread, as with spring.threads.virtual.enabled. Prints sustained throughput, peak heap
+ * and platform thread count for both.
+ *
+ * Run with: mvn test -Dtest=VirtualThreadLoadTest -Dbenchmarks=true (needs Java 21+)
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadLoadTest {
+    private static final int RUNNER_LATENCY_MILLIS = 200;
+    private static final int CONCURRENT_SUBMISSIONS = 1000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final long DURATION_MILLIS = 10_000;
+
+    private HttpServer runner;
+    private CodeExecutionClient client;
+
+    @BeforeAll
+    static void keepConnectionsAlive() {
+        // one kept-alive connection per submitter, instead of exhausting ephemeral ports
+        System.setProperty("http.maxConnections", Integer.toString(CONCURRENT_SUBMISSIONS));
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        runner = HttpServer.create(new InetSocketAddress("localhost", 0), CONCURRENT_SUBMISSIONS * 2);
+        runner.createContext("/api/code/execute", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(RUNNER_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"result\":\"SUCCESS\",\"outputLines\":[\"3\"]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        runner.setExecutor(new VirtualThreadTaskExecutor("stub-runner-"));
+        runner.start();
+
+        client = new CodeExecutionClient(new RestTemplate(), new RunnerBalancer(
+                List.of("http://localhost:" + runner.getAddress().getPort()), Duration.ofSeconds(1), new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.stop(0);
+    }
+
+    @Test
+    void testVirtualThreadsSustainMoreConcurrentSubmissions() throws Exception {
+        ThreadPoolTaskExecutor platform = new ThreadPoolTaskExecutor();
+        platform.setCorePoolSize(TOMCAT_MAX_THREADS);
+        platform.setMaxPoolSize(TOMCAT_MAX_THREADS);
+        platform.setThreadNamePrefix("http-nio-");
+        platform.initialize();
+        Measurement onPlatform = measure(platform);
+        platform.shutdown();
+
+        SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("submission-");
+        virtual.setVirtualThreads(true);
+        Measurement onVirtual = measure(virtual);
+
+        System.out.printf("%-10s %12s %14s %16s%n", "threads", "submissions/s", "peak heap MiB", "platform threads");
+        System.out.printf("%-10s %12.0f %14d %16d%n", "platform", onPlatform.throughput(),
+                onPlatform.peakHeapBytes() >> 20, onPlatform.peakThreads());
+        System.out.printf("%-10s %12.0f %14d %16d%n", "virtual", onVirtual.throughput(),
+                onVirtual.peakHeapBytes() >> 20, onVirtual.peakThreads());
+
+        // 200 platform threads cap throughput at 200 / latency; virtual threads are limited by the submitters
+        assertTrue(onVirtual.throughput() > 2 * onPlatform.throughput());
+    }
+
+    /**
+     * Keeps CONCURRENT_SUBMISSIONS submitters busy on the executor for DURATION_MILLIS.
+     */
+    private Measurement measure(AsyncTaskExecutor executor) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        for (int i = 0; i < CONCURRENT_SUBMISSIONS; i++) {
+            executor.execute(() -> {
+                while (running.get()) {
+                    try {
+                        ExecutionResultDTO result = client.executeCode("System.out.println(3);", List.of(1, 2));
+                        if (result.getResult() == ExecutionResultDTO.Result.SUCCESS) completed.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long peakHeap = 0;
+        int peakThreads = 0;
+        long start = System.nanoTime();
+        long before = completed.get();
+        while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS)) {
+            Thread.sleep(250);
+            peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+            peakThreads = Math.max(peakThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+        }
+        long done = completed.get() - before;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running.set(false);
+        // let the submitters drain before the next measurement
+        Thread.sleep(RUNNER_LATENCY_MILLIS * 3L);
+        assertEquals(0, failed.get(), "submissions failed against the stub runner");
+        return new Measurement(done / seconds, peakHeap, peakThreads);
+    }
+
+    private record Measurement(double throughput, long peakHeapBytes, int peakThreads) {}
+}
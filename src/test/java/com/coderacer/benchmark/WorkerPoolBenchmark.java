@@ -0,0 +1,146 @@
+package com.coderacer.benchmark;
+
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.service.ClassLauncher;
+import com.coderacer.runner.service.CodeExecutionService;
+import com.coderacer.runner.service.DockerSandbox;
+import com.coderacer.runner.service.InMemoryJavaCompiler;
+import com.coderacer.runner.service.SandboxCapabilities;
+import com.coderacer.runner.service.WorkerPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latency of running a small compiled submission under load, in a fresh launcher JVM per run (the
+ * process mode) and on the warm worker pool, both on the host. CONCURRENCY clients each send RUNS runs
+ * back to back, as many as the pool has workers; the pool recycles a worker every
+ * max-runs-per-worker runs (100 by default). The target is a 10x lower p50.
+ *
+ * Run with: mvn test -Dtest=WorkerPoolBenchmark -Dbenchmarks=true
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class WorkerPoolBenchmark {
+    private static final int CONCURRENCY = 4;
+    private static final int RUNS = 50;
+    private static final int WARMUP_RUNS = 5;
+    private static final String SNIPPET =
+            "static void solution(int n, int[] arr) { long sum = 0; for (int v : arr) sum += v; System.out.println(sum); }";
+
+    private interface Runner {
+        String run(byte[] input) throws Exception;
+    }
+
+    @Test
+    void testWorkerPoolAgainstFreshJvm() throws Exception {
+        InMemoryJavaCompiler compiler = new InMemoryJavaCompiler();
+        ClassLauncher launcher = new ClassLauncher(compiler);
+        launcher.install();
+        SandboxCapabilities capabilities = new SandboxCapabilities(compiler);
+        capabilities.probe();
+        WorkerPool pool = new WorkerPool(launcher, new DockerSandbox(), capabilities);
+        ReflectionTestUtils.setField(pool, "enabled", true);
+        ReflectionTestUtils.setField(pool, "size", CONCURRENCY);
+        ReflectionTestUtils.setField(pool, "useDocker", false);
+
+        String className = "Bench_worker";
+        String template = (String) ReflectionTestUtils.getField(CodeExecutionService.class, "JAVA_BINARY_TEMPLATE");
+        InMemoryJavaCompiler.CompilationOutput compiled = compiler.compile(className, template.formatted(className, SNIPPET));
+        assertTrue(compiled.success(), String.join("\n", compiled.diagnostics()));
+        Map<String, byte[]> classes = compiled.classes();
+        byte[] input = InputProtocol.BINARY.encode(List.of(1, 2, 3, 4));
+
+        pool.start();
+        try {
+            // wait for every worker to be up, as a running service would be
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (((Queue<?>) ReflectionTestUtils.getField(pool, "idle")).size() < CONCURRENCY
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+
+            long[] fresh = measure(in -> runFreshJvm(launcher, className, classes, in), input);
+            long[] warm = measure(in -> new String(pool.execute("benchmark", className, classes, in, 10_000).output(),
+                    StandardCharsets.UTF_8).trim(), input);
+
+            System.out.printf("%-10s %10s %10s %10s%n", "mode", "p50 ms", "p90 ms", "p99 ms");
+            print("fresh jvm", fresh);
+            print("worker", warm);
+            System.out.printf("p50 speed-up: %.1fx%n", (double) percentile(fresh, 50) / percentile(warm, 50));
+
+            assertTrue(percentile(warm, 50) * 10 <= percentile(fresh, 50));
+        } finally {
+            pool.stop();
+        }
+    }
+
+    private static long[] measure(Runner runner, byte[] input) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < CONCURRENCY; c++) {
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < WARMUP_RUNS; i++) assertEquals("10", runner.run(input));
+                    long[] times = new long[RUNS];
+                    for (int i = 0; i < RUNS; i++) {
+                        long start = System.nanoTime();
+                        assertEquals("10", runner.run(input));
+                        times[i] = System.nanoTime() - start;
+                    }
+                    return times;
+                }));
+            }
+            long[] all = new long[0];
+            for (Future<long[]> future : futures) {
+                long[] times = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + times.length);
+                System.arraycopy(times, 0, all, offset, times.length);
+            }
+            Arrays.sort(all);
+            return all;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static String runFreshJvm(ClassLauncher launcher, String className, Map<String, byte[]> classes,
+                                      byte[] input) throws Exception {
+        Process process = new ProcessBuilder("java", "-cp", launcher.getDirectory().toString(), ClassLauncher.LAUNCHER_CLASS)
+                .redirectErrorStream(true)
+                .start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            launcher.writeClasses(stdin, className, classes);
+            stdin.write(input);
+        } catch (IOException e) {
+            // the output check reports it
+        }
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        process.waitFor();
+        return output;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+    private static void print(String mode, long[] sorted) {
+        System.out.printf("%-10s %10.2f %10.2f %10.2f%n", mode, percentile(sorted, 50) / 1e6,
+                percentile(sorted, 90) / 1e6, percentile(sorted, 99) / 1e6);
+    }
+}
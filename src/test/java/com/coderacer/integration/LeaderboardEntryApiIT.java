@@ -209,6 +209,33 @@ class LeaderboardEntryApiIT {
         assertThat(response.getBody()).isEmpty();
     }
 
+    @Test
+    void shouldRevalidateTop10WithETag() {
+        // When
+        ResponseEntity<String> first = restTemplate.exchange(
+                baseUrl + "/top",
+                HttpMethod.GET,
+                new HttpEntity<>(authHeaders()),
+                String.class
+        );
+
+        HttpHeaders conditional = authHeaders();
+        conditional.setIfNoneMatch(first.getHeaders().getETag());
+        ResponseEntity<String> second = restTemplate.exchange(
+                baseUrl + "/top",
+                HttpMethod.GET,
+                new HttpEntity<>(conditional),
+                String.class
+        );
+
+        // Then
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getETag()).isNotNull();
+        assertThat(first.getHeaders().getLastModified()).isPositive();
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getBody()).isNull();
+    }
+
     @Test
     void shouldGetPaginatedLeaderboard() {
         // Given - Create 5 test accounts
@@ -1,8 +1,27 @@
 package com.coderacer.runner.unit;
 
+import com.coderacer.runner.config.RunnerThreadingConfig;
+import com.coderacer.runner.dto.BatchExecutionResultDTO;
+import com.coderacer.runner.dto.TestCaseResultDTO;
 import com.coderacer.runner.model.ExecutionResult;
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+import com.coderacer.runner.model.OutputComparator;
+import com.coderacer.runner.service.ClassLauncher;
 import com.coderacer.runner.service.CodeExecutionService;
+import com.coderacer.runner.service.CompiledClassCache;
+import com.coderacer.runner.service.DeadlineManager;
+import com.coderacer.runner.service.DockerContainerPool;
+import com.coderacer.runner.service.DockerSandbox;
+import com.coderacer.runner.service.ExecutionScheduler;
+import com.coderacer.runner.service.InMemoryJavaCompiler;
+import com.coderacer.runner.service.OutputCollector;
+import com.coderacer.runner.service.SandboxCapabilities;
+import com.coderacer.runner.service.WorkerPool;
+import com.coderacer.runner.service.WorkspaceManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
@@ -15,14 +34,35 @@ import static org.junit.jupiter.api.Assertions.*;
 class CodeExecutionServiceTest {
 
     private CodeExecutionService service;
+    private WorkerPool workerPool;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
-    void setUp() {
-        service = new CodeExecutionService();
+    void setUp() throws Exception {
+        InMemoryJavaCompiler compiler = new InMemoryJavaCompiler();
+        ClassLauncher launcher = new ClassLauncher(compiler);
+        launcher.install();
+        DockerSandbox sandbox = new DockerSandbox();
+        ReflectionTestUtils.setField(sandbox, "dockerMemoryLimit", "64m");
+        ReflectionTestUtils.setField(sandbox, "dockerCpuLimit", "0.2");
+        ReflectionTestUtils.setField(sandbox, "seccompProfilePath", "src/main/resources/seccomp.json");
+        SandboxCapabilities capabilities = new SandboxCapabilities(compiler);
+        capabilities.probe();
+        workerPool = new WorkerPool(launcher, sandbox, capabilities);
+        meterRegistry = new SimpleMeterRegistry();
+        WorkspaceManager workspaces = new WorkspaceManager();
+        workspaces.init();
+        service = new CodeExecutionService(compiler, launcher, sandbox, workerPool,
+                new DockerContainerPool(sandbox, launcher, capabilities), capabilities,
+                new CompiledClassCache(meterRegistry), new DeadlineManager(meterRegistry), workspaces,
+                new RunnerThreadingConfig().processIoThreadFactory(new MockEnvironment()));
         ReflectionTestUtils.setField(service, "useDocker", true);
-        ReflectionTestUtils.setField(service, "dockerMemoryLimit", "64m");
-        ReflectionTestUtils.setField(service, "dockerCpuLimit", "0.2");
-        ReflectionTestUtils.setField(service, "seccompProfilePath", "src/main/resources/seccomp.json");
+    }
+
+    @AfterEach
+    void tearDown() {
+        workerPool.stop();
+        service.stop();
     }
 
     @Test
@@ -83,6 +123,108 @@ class CodeExecutionServiceTest {
         assertEquals(ExecutionResult.Result.TIMEOUT, result.getResult());
     }
 
+    @Test
+    void testReportsResourceUsage() {
+        String code = """
+            static void solution(int n, int[] arr) {
+                long sum = 0;
+                for (int i = 0; i < 50_000_000; i++) sum += i % (arr[0] + 1);
+                System.out.println(sum > 0);
+            }
+        """;
+
+        for (CodeExecutionService.CompileMode mode : CodeExecutionService.CompileMode.values()) {
+            ReflectionTestUtils.setField(service, "compileMode", mode);
+            ExecutionResult result = service.compileAndRun(code, List.of(3));
+            assertEquals(ExecutionResult.Result.SUCCESS, result.getResult());
+            assertTrue(result.getWallTimeMillis() > 0);
+            assertTrue(result.getCpuTimeMillis() > 0);
+            assertTrue(result.getPeakMemoryKb() > 0);
+        }
+    }
+
+    @Test
+    void testOutputLimitExceeded() {
+        ReflectionTestUtils.setField(service, "maxOutputLines", 100);
+        String code = """
+            static void solution(int n, int[] arr) {
+                while (true) System.out.println("spam");
+            }
+        """;
+
+        long start = System.nanoTime();
+        ExecutionResult result = service.compileAndRun(code, List.of(0));
+        assertEquals(ExecutionResult.Result.OUTPUT_LIMIT_EXCEEDED, result.getResult());
+        assertEquals(100, result.getOutputLines().size());
+        // killed at the cap, not at the timeout
+        assertTrue(System.nanoTime() - start < 4_000_000_000L);
+    }
+
+    @Test
+    void testOutputMismatch() {
+        String code = """
+            static void solution(int n, int[] arr) {
+                for (int val : arr) System.out.println(val);
+            }
+        """;
+
+        ExecutionResult matching = service.compileAndRun(code, Arrays.asList(1, 2), List.of("1", "2"), false);
+        assertEquals(ExecutionResult.Result.SUCCESS, matching.getResult());
+
+        ExecutionResult wrong = service.compileAndRun(code, Arrays.asList(1, 2), List.of("1", "3"), false);
+        assertEquals(ExecutionResult.Result.OUTPUT_MISMATCH, wrong.getResult());
+        assertEquals(List.of("1", "2"), wrong.getOutputLines());
+    }
+
+    @Test
+    void testStopsOnFirstMismatch() {
+        String code = """
+            static void solution(int n, int[] arr) {
+                System.out.println(1);
+                while (true) {}
+            }
+        """;
+
+        ExecutionResult result = service.compileAndRun(code, List.of(0), List.of("2", "3"), true);
+        assertEquals(ExecutionResult.Result.OUTPUT_MISMATCH, result.getResult());
+        assertEquals(List.of("1"), result.getOutputLines());
+    }
+
+    @Test
+    void testComparatorsDecideMismatch() {
+        String code = """
+            static void solution(int n, int[] arr) {
+                for (int i = n - 1; i >= 0; i--) System.out.println(arr[i] + ".001");
+            }
+        """;
+
+        ExecutionResult numeric = service.execute(Language.JAVA, code, List.of(1, 2), InputProtocol.TEXT,
+                new OutputCollector.Expectation(List.of("2", "1"), false, OutputComparator.NUMERIC, 0.01));
+        assertEquals(ExecutionResult.Result.SUCCESS, numeric.getResult());
+        ExecutionResult exact = service.execute(Language.JAVA, code, List.of(1, 2), InputProtocol.TEXT,
+                new OutputCollector.Expectation(List.of("2", "1"), false, OutputComparator.EXACT, 0.01));
+        assertEquals(ExecutionResult.Result.OUTPUT_MISMATCH, exact.getResult());
+        ExecutionResult unordered = service.execute(Language.JAVA, code, List.of(1, 2), InputProtocol.TEXT,
+                new OutputCollector.Expectation(List.of("1.001", "2.001"), false, OutputComparator.UNORDERED, 0));
+        assertEquals(ExecutionResult.Result.SUCCESS, unordered.getResult());
+    }
+
+    @Test
+    void testUnorderedStopsOnFirstUnexpectedLine() {
+        String code = """
+            static void solution(int n, int[] arr) {
+                System.out.println(2);
+                System.out.println(4);
+                while (true) {}
+            }
+        """;
+
+        ExecutionResult result = service.execute(Language.JAVA, code, List.of(0), InputProtocol.TEXT,
+                new OutputCollector.Expectation(List.of("1", "2", "3"), true, OutputComparator.UNORDERED, 0));
+        assertEquals(ExecutionResult.Result.OUTPUT_MISMATCH, result.getResult());
+        assertEquals(List.of("2", "4"), result.getOutputLines());
+    }
+
     @Test
     void testNoInputRequired() {
         String code = """
@@ -115,6 +257,22 @@ class CodeExecutionServiceTest {
         assertEquals(List.of("2", "3", "4"), result.getOutputLines());
     }
 
+    @Test
+    void testInputProtocolsDeliverTheSameValues() {
+        String code = """
+            static void solution(int n, int[] arr) {
+                System.out.println(n + " " + Arrays.toString(arr));
+            }
+        """;
+        List<Integer> input = List.of(-7, 0, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+        for (InputProtocol protocol : InputProtocol.values()) {
+            ExecutionResult result = service.execute(Language.JAVA, code, input, protocol, OutputCollector.Expectation.NONE);
+            assertEquals(ExecutionResult.Result.SUCCESS, result.getResult(), protocol.name());
+            assertEquals(List.of("4 [-7, 0, 2147483647, -2147483648]"), result.getOutputLines(), protocol.name());
+        }
+    }
+
     @Test
     void testFallbackToDirectExecutionWhenDockerDisabled() {
         // Temporarily disable Docker for this test
@@ -131,6 +289,256 @@ class CodeExecutionServiceTest {
         assertEquals(List.of("Fallback test"), result.getOutputLines());
     }
 
+    @Test
+    void testInProcessCompileMode() {
+        ReflectionTestUtils.setField(service, "compileMode", CodeExecutionService.CompileMode.IN_PROCESS);
+        String code = """
+            static void solution(int n, int[] arr) {
+                Runnable r = () -> System.out.println(arr[n - 1] * 3);
+                r.run();
+            }
+        """;
+
+        ExecutionResult result = service.compileAndRun(code, Arrays.asList(5, 7));
+        assertEquals(ExecutionResult.Result.SUCCESS, result.getResult());
+        assertEquals(List.of("21"), result.getOutputLines());
+    }
+
+    @Test
+    void testInProcessCompileModeReportsErrors() {
+        ReflectionTestUtils.setField(service, "compileMode", CodeExecutionService.CompileMode.IN_PROCESS);
+        String code = """
+            static void solution(int n, int[] arr) {
+                System.out.println("Missing semicolon")
+            }
+        """;
+
+        ExecutionResult result = service.compileAndRun(code, List.of(0));
+        assertEquals(ExecutionResult.Result.COMPILATION_ERROR, result.getResult());
+        assertTrue(result.getOutputLines().stream().anyMatch(line -> line.contains("';'")));
+    }
+
+    @Test
+    void testWorkerPoolExecution() throws Exception {
+        ReflectionTestUtils.setField(workerPool, "enabled", true);
+        ReflectionTestUtils.setField(workerPool, "size", 1);
+        ReflectionTestUtils.setField(workerPool, "useDocker", false);
+        workerPool.start();
+        ReflectionTestUtils.setField(service, "compileMode", CodeExecutionService.CompileMode.IN_PROCESS);
+
+        String echo = """
+            static void solution(int n, int[] arr) {
+                for (int val : arr) System.out.println(val * 10);
+            }
+        """;
+        ExecutionResult first = service.compileAndRun(echo, Arrays.asList(1, 2));
+        assertEquals(ExecutionResult.Result.SUCCESS, first.getResult());
+        assertEquals(List.of("10", "20"), first.getOutputLines());
+        assertTrue(first.getWallTimeMillis() >= 0);
+        assertTrue(first.getPeakMemoryKb() > 0);
+
+        String exit = """
+            static void solution(int n, int[] arr) {
+                System.exit(1);
+            }
+        """;
+        assertEquals(ExecutionResult.Result.RUNTIME_ERROR, service.compileAndRun(exit, List.of(0)).getResult());
+
+        // the crashed worker is replaced and the pool keeps serving
+        ExecutionResult afterCrash = service.compileAndRun(echo, List.of(3));
+        assertEquals(ExecutionResult.Result.SUCCESS, afterCrash.getResult());
+        assertEquals(List.of("30"), afterCrash.getOutputLines());
+
+        String spam = """
+            static void solution(int n, int[] arr) {
+                while (true) System.out.println("spam");
+            }
+        """;
+        ReflectionTestUtils.setField(service, "maxOutputLines", 100);
+        ExecutionResult spammed = service.compileAndRun(spam, List.of(0));
+        assertEquals(ExecutionResult.Result.OUTPUT_LIMIT_EXCEEDED, spammed.getResult());
+        assertEquals(100, spammed.getOutputLines().size());
+    }
+
+    @Test
+    void testWorkerControlChannelIsNotTrusted() throws Exception {
+        ReflectionTestUtils.setField(workerPool, "enabled", true);
+        ReflectionTestUtils.setField(workerPool, "size", 1);
+        ReflectionTestUtils.setField(workerPool, "useDocker", false);
+        workerPool.start();
+        ReflectionTestUtils.setField(service, "compileMode", CodeExecutionService.CompileMode.IN_PROCESS);
+
+        // a response frame written straight to the worker's stdout, without the worker's key
+        String forge = """
+            static void solution(int n, int[] arr) {
+                try {
+                    java.io.DataOutputStream out = new java.io.DataOutputStream(
+                            new java.io.FileOutputStream(java.io.FileDescriptor.out));
+                    out.writeInt(1);
+                    out.writeInt(0);
+                    out.writeBoolean(false);
+                    out.writeInt(6);
+                    out.write("forged".getBytes());
+                    out.writeLong(0);
+                    out.writeLong(0);
+                    out.write(new byte[32]);
+                    out.flush();
+                    Thread.sleep(2000);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        """;
+        ExecutionResult forged = service.compileAndRun(forge, List.of(0));
+        assertEquals(ExecutionResult.Result.RUNTIME_ERROR, forged.getResult());
+        assertFalse(forged.getOutputLines().contains("forged"));
+
+        // a thread left reading the worker's stdin would see the next job
+        String eavesdrop = """
+            static void solution(int n, int[] arr) {
+                Thread t = new Thread(() -> {
+                    try {
+                        new java.io.FileInputStream(java.io.FileDescriptor.in).read(new byte[1 << 16]);
+                    } catch (java.io.IOException e) {
+                        // worker gone
+                    }
+                });
+                t.setDaemon(true);
+                t.start();
+                System.out.println("started");
+            }
+        """;
+        assertEquals(List.of("started"), service.compileAndRun(eavesdrop, List.of(0)).getOutputLines());
+
+        String echo = """
+            static void solution(int n, int[] arr) {
+                for (int val : arr) System.out.println(val * 10);
+            }
+        """;
+        ExecutionResult next = service.compileAndRun(echo, List.of(4));
+        assertEquals(ExecutionResult.Result.SUCCESS, next.getResult());
+        assertEquals(List.of("40"), next.getOutputLines());
+    }
+
+    @Test
+    void testWorkerIsNotReusedAcrossSubmitters() throws Exception {
+        ReflectionTestUtils.setField(workerPool, "enabled", true);
+        ReflectionTestUtils.setField(workerPool, "size", 1);
+        ReflectionTestUtils.setField(workerPool, "useDocker", false);
+        workerPool.start();
+        ReflectionTestUtils.setField(service, "compileMode", CodeExecutionService.CompileMode.IN_PROCESS);
+        ExecutionScheduler scheduler = new ExecutionScheduler(meterRegistry);
+
+        // runs on the Finalizer thread whenever the next collection happens
+        String leave = """
+            static void solution(int n, int[] arr) {
+                new Object() {
+                    @Override
+                    protected void finalize() {
+                        System.out.println("left behind");
+                    }
+                };
+                System.out.println("done");
+            }
+        """;
+        String collect = """
+            static void solution(int n, int[] arr) {
+                for (int i = 0; i < 5; i++) {
+                    System.gc();
+                    System.runFinalization();
+                }
+                System.out.println(n);
+            }
+        """;
+        ExecutionResult first = scheduler.execute("alice", 1, () -> service.compileAndRun(leave, List.of(0)));
+        assertEquals(List.of("done"), first.getOutputLines());
+
+        ExecutionResult next = scheduler.execute("bob", 1, () -> service.compileAndRun(collect, List.of(7, 8)));
+        assertEquals(ExecutionResult.Result.SUCCESS, next.getResult());
+        assertEquals(List.of("2"), next.getOutputLines());
+    }
+
+    @Test
+    void testInProcessCompileIsBounded() {
+        ReflectionTestUtils.setField(service, "compileMode", CodeExecutionService.CompileMode.IN_PROCESS);
+        String code = """
+            static void solution(int n, int[] arr) {
+                System.out.println(n);
+            }
+        """;
+
+        ReflectionTestUtils.setField(ReflectionTestUtils.getField(service, "deadlines"), "compileWallMillis", 1L);
+        ExecutionResult timedOut = service.compileAndRun(code, List.of(1));
+        assertEquals(ExecutionResult.Result.TIMEOUT, timedOut.getResult());
+        assertEquals(1, meterRegistry.counter("runner.execution.deadline.exceeded", "phase", "compile", "clock", "wall").count());
+
+        ReflectionTestUtils.setField(ReflectionTestUtils.getField(service, "deadlines"), "compileWallMillis", 10000L);
+        String huge = code + "/*" + "x".repeat(70_000) + "*/";
+        ExecutionResult tooLarge = service.compileAndRun(huge, List.of(1));
+        assertEquals(ExecutionResult.Result.COMPILATION_ERROR, tooLarge.getResult());
+        assertTrue(tooLarge.getOutputLines().get(0).startsWith("Source is larger than"));
+    }
+
+    @Test
+    void testRepeatedSubmissionIsCompiledOnce() {
+        String code = """
+            static void solution(int n, int[] arr) {
+                System.out.println(n + arr[0]);
+            }
+        """;
+
+        for (CodeExecutionService.CompileMode mode : CodeExecutionService.CompileMode.values()) {
+            ReflectionTestUtils.setField(service, "compileMode", mode);
+            ExecutionResult first = service.compileAndRun(code, List.of(4));
+            ExecutionResult second = service.compileAndRun(code, List.of(6));
+
+            assertEquals(List.of("5"), first.getOutputLines());
+            assertEquals(List.of("7"), second.getOutputLines());
+            assertEquals(0, second.getCompileTimeMillis());
+        }
+        assertEquals(2, meterRegistry.counter("runner.class.cache.requests", "result", "hit").count());
+        assertEquals(2, meterRegistry.counter("runner.class.cache.requests", "result", "miss").count());
+    }
+
+    @Test
+    void testBatchExecution() {
+        ReflectionTestUtils.setField(service, "compileMode", CodeExecutionService.CompileMode.IN_PROCESS);
+        String code = """
+            static void solution(int n, int[] arr) {
+                if (n == 1 && arr[0] < 0) throw new IllegalArgumentException("negative");
+                int sum = 0;
+                for (int val : arr) sum += val;
+                System.out.println(sum);
+            }
+        """;
+
+        BatchExecutionResultDTO batch = service.compileAndRunBatch(code,
+                List.of(List.of(1, 2, 3), List.of(-1), List.of(10, 20)));
+        assertEquals(ExecutionResult.Result.SUCCESS, batch.getResult());
+        assertEquals(3, batch.getCases().size());
+
+        TestCaseResultDTO first = batch.getCases().get(0);
+        assertEquals(ExecutionResult.Result.SUCCESS, first.getResult());
+        assertEquals(List.of("6"), first.getOutputLines());
+        assertTrue(first.getWallTimeMillis() > 0);
+        assertEquals(ExecutionResult.Result.RUNTIME_ERROR, batch.getCases().get(1).getResult());
+        assertEquals(List.of("30"), batch.getCases().get(2).getOutputLines());
+    }
+
+    @Test
+    void testBatchCompilationErrorHasNoCases() {
+        String code = """
+            static void solution(int n, int[] arr) {
+                System.out.println("Missing semicolon")
+            }
+        """;
+
+        BatchExecutionResultDTO batch = service.compileAndRunBatch(code, List.of(List.of(1), List.of(2)));
+        assertEquals(ExecutionResult.Result.COMPILATION_ERROR, batch.getResult());
+        assertTrue(batch.getCases().isEmpty());
+        assertFalse(batch.getOutputLines().isEmpty());
+    }
+
     @Test
     void testFileSystemWriteAttempt() {
         String code = """
@@ -0,0 +1,69 @@
+package com.coderacer.runner.unit;
+
+import com.coderacer.runner.service.DeadlineManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineManagerTest {
+
+    private DeadlineManager deadlines;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        deadlines = new DeadlineManager(registry);
+        ReflectionTestUtils.setField(deadlines, "runWallMillis", 1000L);
+        ReflectionTestUtils.setField(deadlines, "runCpuMillis", 300L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deadlines.stop();
+    }
+
+    @Test
+    void testWallClockLimitKillsBlockedProcess() throws Exception {
+        Process process = new ProcessBuilder("sleep", "30").start();
+        try (DeadlineManager.Deadline deadline = deadlines.watch(process, DeadlineManager.Phase.RUN, true)) {
+            assertTrue(process.waitFor(5, TimeUnit.SECONDS));
+            assertEquals(DeadlineManager.Clock.WALL, deadline.getExpiredBy());
+        }
+        assertEquals(1, registry.counter("runner.execution.deadline.exceeded", "phase", "run", "clock", "wall").count());
+    }
+
+    @Test
+    void testCpuLimitKillsBusyProcessBeforeWallClock() throws Exception {
+        Process process = new ProcessBuilder("sh", "-c", "while :; do :; done").start();
+        try (DeadlineManager.Deadline deadline = deadlines.watch(process, DeadlineManager.Phase.RUN, true)) {
+            assertTrue(process.waitFor(5, TimeUnit.SECONDS));
+            assertEquals(DeadlineManager.Clock.CPU, deadline.getExpiredBy());
+        }
+    }
+
+    @Test
+    void testExitCancelsDeadlineAndLeavesPhase() throws Exception {
+        Process process = new ProcessBuilder("true").start();
+        DeadlineManager.Deadline deadline = deadlines.watch(process, DeadlineManager.Phase.RUN, true);
+        try (DeadlineManager.Deadline compile = deadlines.track(DeadlineManager.Phase.COMPILE)) {
+            assertEquals(1, deadlines.getInFlight(DeadlineManager.Phase.COMPILE));
+        }
+        process.waitFor();
+
+        // released by the exit hook alone, without closing the deadline
+        long giveUp = System.currentTimeMillis() + 5000;
+        while (deadlines.getInFlight(DeadlineManager.Phase.RUN) != 0 && System.currentTimeMillis() < giveUp) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, deadlines.getInFlight(DeadlineManager.Phase.RUN));
+        assertEquals(0, deadlines.getInFlight(DeadlineManager.Phase.COMPILE));
+        assertFalse(deadline.isExpired());
+    }
+}
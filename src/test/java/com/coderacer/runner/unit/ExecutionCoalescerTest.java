@@ -0,0 +1,113 @@
+package com.coderacer.runner.unit;
+
+import com.coderacer.runner.exception.ExecutionRejectedException;
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+import com.coderacer.runner.service.ExecutionCoalescer;
+import com.coderacer.runner.service.OutputCollector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionCoalescerTest {
+
+    private SimpleMeterRegistry registry;
+    private ExecutionCoalescer coalescer;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new ExecutionCoalescer(registry);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void testIdenticalRequestsInFlightShareOneRun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        String key = ExecutionCoalescer.key(Language.JAVA, InputProtocol.TEXT, "code", List.of(1, 2),
+                OutputCollector.Expectation.NONE);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(callers.submit(() -> coalescer.execute(key, () -> {
+                runs.incrementAndGet();
+                release.await();
+                return "result";
+            })));
+        }
+        waitUntil(() -> registry.counter("runner.execution.coalesce.requests", "result", "coalesced").count() == 4);
+        assertEquals(1, coalescer.getInFlight());
+        release.countDown();
+
+        for (Future<String> result : results) assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        assertEquals(0, coalescer.getInFlight());
+        assertEquals(0.8, registry.get("runner.execution.coalesce.rate").gauge().value(), 1e-9);
+
+        // nothing is kept once the run is over
+        assertEquals("again", coalescer.execute(key, () -> "again"));
+    }
+
+    @Test
+    void testWaitingRequestsGetTheRunsFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> first = callers.submit(() -> coalescer.execute("key", () -> {
+            release.await();
+            throw new ExecutionRejectedException("queue is full", 3);
+        }));
+        waitUntil(() -> coalescer.getInFlight() == 1);
+        Future<String> second = callers.submit(() -> coalescer.execute("key", () -> "not run"));
+        waitUntil(() -> registry.counter("runner.execution.coalesce.requests", "result", "coalesced").count() == 1);
+        release.countDown();
+
+        for (Future<String> result : List.of(first, second)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ExecutionRejectedException.class, e.getCause());
+        }
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    void testKeyCoversEverythingThatDecidesTheResult() {
+        OutputCollector.Expectation none = OutputCollector.Expectation.NONE;
+        String key = ExecutionCoalescer.key(Language.JAVA, InputProtocol.TEXT, "code", List.of(1, 2), none);
+
+        assertEquals(key, ExecutionCoalescer.key(Language.JAVA, InputProtocol.TEXT, "code", List.of(1, 2), none));
+        assertNotEquals(key, ExecutionCoalescer.key(Language.PYTHON, InputProtocol.TEXT, "code", List.of(1, 2), none));
+        assertNotEquals(key, ExecutionCoalescer.key(Language.JAVA, InputProtocol.BINARY, "code", List.of(1, 2), none));
+        assertNotEquals(key, ExecutionCoalescer.key(Language.JAVA, InputProtocol.TEXT, "code ", List.of(1, 2), none));
+        assertNotEquals(key, ExecutionCoalescer.key(Language.JAVA, InputProtocol.TEXT, "code", List.of(2, 1), none));
+        assertNotEquals(key, ExecutionCoalescer.key(Language.JAVA, InputProtocol.TEXT, "code", List.of(1, 2),
+                new OutputCollector.Expectation(List.of("3"), false)));
+        assertNotEquals(ExecutionCoalescer.key(Language.JAVA, InputProtocol.TEXT, "code", List.of(1, 2),
+                        new OutputCollector.Expectation(List.of("3"), false)),
+                ExecutionCoalescer.key(Language.JAVA, InputProtocol.TEXT, "code", List.of(1, 2),
+                        new OutputCollector.Expectation(List.of("3"), true)));
+        assertNotEquals(ExecutionCoalescer.batchKey(InputProtocol.TEXT, "code", List.of(List.of(1), List.of(2, 3))),
+                ExecutionCoalescer.batchKey(InputProtocol.TEXT, "code", List.of(List.of(1, 2), List.of(3))));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long giveUp = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > giveUp) fail("condition not reached");
+            Thread.sleep(5);
+        }
+    }
+}
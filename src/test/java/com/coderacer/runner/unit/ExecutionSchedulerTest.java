@@ -0,0 +1,85 @@
+package com.coderacer.runner.unit;
+
+import com.coderacer.runner.exception.ExecutionRejectedException;
+import com.coderacer.runner.service.ExecutionScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionSchedulerTest {
+
+    private ExecutionScheduler scheduler;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ExecutionScheduler(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 4);
+        ReflectionTestUtils.setField(scheduler, "maxWaitMillis", 5000L);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @Test
+    void testRejectsWithRetryAfterWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        callers.submit(() -> scheduler.execute("busy", 1, () -> await(release)));
+        waitUntil(() -> scheduler.getSlotsInUse() == 1);
+        for (int i = 0; i < 4; i++) callers.submit(() -> scheduler.execute("busy", 1, () -> "queued"));
+        waitUntil(() -> scheduler.getQueueDepth() == 4);
+
+        ExecutionRejectedException rejected = assertThrows(ExecutionRejectedException.class,
+                () -> scheduler.execute("other", 1, () -> "rejected"));
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+
+        release.countDown();
+        waitUntil(() -> scheduler.getQueueDepth() == 0 && scheduler.getSlotsInUse() == 0);
+    }
+
+    @Test
+    void testWaitingUsersAreServedInTurn() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        callers.submit(() -> scheduler.execute("first", 1, () -> await(release)));
+        waitUntil(() -> scheduler.getSlotsInUse() == 1);
+
+        // "a" queues three requests before "b" queues one; "b" must not wait behind all of them
+        List<String> users = List.of("a", "a", "a", "b");
+        for (int i = 0; i < users.size(); i++) {
+            String user = users.get(i);
+            int depth = i + 1;
+            callers.submit(() -> scheduler.execute(user, 1, () -> order.add(user)));
+            waitUntil(() -> scheduler.getQueueDepth() == depth);
+        }
+        release.countDown();
+        waitUntil(() -> order.size() == 4);
+
+        assertEquals(List.of("a", "b", "a", "a"), order);
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("Condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.coderacer.runner.unit;
+
+import com.coderacer.runner.config.RunnerThreadingConfig;
+import com.coderacer.runner.model.ExecutionResult;
+import com.coderacer.runner.model.InputProtocol;
+import com.coderacer.runner.model.Language;
+import com.coderacer.runner.service.BinaryCache;
+import com.coderacer.runner.service.ClassLauncher;
+import com.coderacer.runner.service.CodeExecutionService;
+import com.coderacer.runner.service.CompiledClassCache;
+import com.coderacer.runner.service.DeadlineManager;
+import com.coderacer.runner.service.DockerContainerPool;
+import com.coderacer.runner.service.DockerSandbox;
+import com.coderacer.runner.service.ExecutionEngines;
+import com.coderacer.runner.service.InMemoryJavaCompiler;
+import com.coderacer.runner.service.OutputCollector;
+import com.coderacer.runner.service.SandboxCapabilities;
+import com.coderacer.runner.service.ToolchainBuildCaches;
+import com.coderacer.runner.service.ToolchainExecutionEngine;
+import com.coderacer.runner.service.WorkerPool;
+import com.coderacer.runner.service.WorkspaceManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ToolchainExecutionEngineTest {
+
+    private CodeExecutionService javaEngine;
+    private WorkerPool workerPool;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutionEngines engines;
+    private SandboxCapabilities capabilities;
+    private ToolchainBuildCaches buildCaches;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        InMemoryJavaCompiler compiler = new InMemoryJavaCompiler();
+        ClassLauncher launcher = new ClassLauncher(compiler);
+        launcher.install();
+        DockerSandbox sandbox = new DockerSandbox();
+        capabilities = new SandboxCapabilities(compiler);
+        capabilities.probe();
+        workerPool = new WorkerPool(launcher, sandbox, capabilities);
+        meterRegistry = new SimpleMeterRegistry();
+        WorkspaceManager workspaces = new WorkspaceManager();
+        workspaces.init();
+        DeadlineManager deadlines = new DeadlineManager(meterRegistry);
+        javaEngine = new CodeExecutionService(compiler, launcher, sandbox, workerPool,
+                new DockerContainerPool(sandbox, launcher, capabilities), capabilities,
+                new CompiledClassCache(meterRegistry), deadlines, workspaces,
+                new RunnerThreadingConfig().processIoThreadFactory(new MockEnvironment()));
+        ReflectionTestUtils.setField(javaEngine, "useDocker", false);
+        buildCaches = new ToolchainBuildCaches(sandbox, capabilities);
+        ToolchainExecutionEngine toolchains = new ToolchainExecutionEngine(javaEngine, sandbox, capabilities,
+                deadlines, workspaces, new BinaryCache(meterRegistry), buildCaches);
+        engines = new ExecutionEngines(List.of(javaEngine, toolchains));
+    }
+
+    @AfterEach
+    void tearDown() {
+        workerPool.stop();
+        javaEngine.stop();
+        buildCaches.stop();
+    }
+
+    @Test
+    void testRoutesEveryLanguageToOneEngine() {
+        assertTrue(engines.getLanguages().containsAll(List.of(Language.JAVA, Language.C, Language.CPP,
+                Language.GO, Language.RUST, Language.PYTHON, Language.JAVASCRIPT)));
+        assertFalse(engines.getLanguages().contains(Language.KOTLIN));
+        assertThrows(IllegalArgumentException.class,
+                () -> engines.execute(Language.KOTLIN, "fun solution() {}", List.of(), InputProtocol.TEXT,
+                        OutputCollector.Expectation.NONE));
+
+        ExecutionResult result = engines.execute(Language.JAVA,
+                "static void solution(int n, int[] arr) { System.out.println(n); }", List.of(7, 8),
+                InputProtocol.BINARY, OutputCollector.Expectation.NONE);
+        assertEquals(ExecutionResult.Result.SUCCESS, result.getResult());
+        assertEquals(List.of("2"), result.getOutputLines());
+    }
+
+    @Test
+    void testPythonRunsWithoutCompiling() {
+        assumeTrue(onPath("python3"));
+        String code = """
+                def solution(n, arr):
+                    print(sum(arr))
+                """;
+        ExecutionResult result = engines.execute(Language.PYTHON, code, List.of(1, 2, 3), InputProtocol.TEXT,
+                new OutputCollector.Expectation(List.of("6"), false));
+        assertEquals(ExecutionResult.Result.SUCCESS, result.getResult());
+        assertEquals(List.of("6"), result.getOutputLines());
+        assertEquals(0, result.getCompileTimeMillis());
+    }
+
+    @Test
+    void testCompiledBinaryIsCachedBySource() {
+        assumeTrue(onPath("gcc"));
+        String code = """
+                void solution(int n, int *arr) {
+                    long sum = 0;
+                    for (int i = 0; i < n; i++) sum += arr[i];
+                    printf("%ld\\n", sum);
+                }
+                """;
+        ExecutionResult first = engines.execute(Language.C, code, List.of(4, 5), InputProtocol.TEXT,
+                OutputCollector.Expectation.NONE);
+        assertEquals(ExecutionResult.Result.SUCCESS, first.getResult());
+        assertEquals(List.of("9"), first.getOutputLines());
+
+        // different input, same source: the executable comes from the cache
+        ExecutionResult second = engines.execute(Language.C, code, List.of(10, 20, 30), InputProtocol.TEXT,
+                OutputCollector.Expectation.NONE);
+        assertEquals(ExecutionResult.Result.SUCCESS, second.getResult());
+        assertEquals(List.of("60"), second.getOutputLines());
+        assertEquals(0, second.getCompileTimeMillis());
+        assertEquals(1, meterRegistry.counter("runner.binary.cache.requests", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("runner.binary.cache.requests", "result", "miss").count());
+    }
+
+    @Test
+    void testCompilationErrorIsReported() {
+        assumeTrue(onPath("g++"));
+        ExecutionResult result = engines.execute(Language.CPP, "void solution(int n, vector<int>& arr) { cout << n }",
+                List.of(1), InputProtocol.TEXT, OutputCollector.Expectation.NONE);
+        assertEquals(ExecutionResult.Result.COMPILATION_ERROR, result.getResult());
+        assertFalse(result.getOutputLines().isEmpty());
+    }
+
+    @Test
+    void testCompiledLanguagesBuildInDocker() throws Exception {
+        assumeTrue(capabilities.isDockerAvailable());
+        ReflectionTestUtils.setField(javaEngine, "useDocker", true);
+        ReflectionTestUtils.setField(buildCaches, "useDocker", true);
+        buildCaches.start();
+
+        String go = """
+                func solution(n int, arr []int) {
+                    sum := 0
+                    for _, v := range arr {
+                        sum += v
+                    }
+                    fmt.Println(sum)
+                }
+                """;
+        String rust = """
+                fn solution(_n: usize, arr: &[i32]) {
+                    println!("{}", arr.iter().sum::<i32>());
+                }
+                """;
+        // under the run limits (64m, 0.2 CPU) neither compiler finished within the compile deadline
+        for (Map.Entry<Language, String> submission : Map.of(Language.GO, go, Language.RUST, rust).entrySet()) {
+            ExecutionResult result = engines.execute(submission.getKey(), submission.getValue(), List.of(4, 5, 6),
+                    InputProtocol.TEXT, OutputCollector.Expectation.NONE);
+            assertEquals(ExecutionResult.Result.SUCCESS, result.getResult(), String.join("\n", result.getOutputLines()));
+            assertEquals(List.of("15"), result.getOutputLines());
+            assertTrue(result.getCompileTimeMillis() > 0);
+        }
+    }
+
+    private static boolean onPath(String command) {
+        try {
+            return new ProcessBuilder(command, "--version").redirectErrorStream(true).start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.coderacer.runner.unit;
+
+import com.coderacer.runner.service.WorkspaceManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceManagerTest {
+
+    @TempDir
+    Path root;
+
+    private WorkspaceManager workspaces;
+
+    @BeforeEach
+    void setUp() {
+        workspaces = new WorkspaceManager();
+        ReflectionTestUtils.setField(workspaces, "root", root.toString());
+        ReflectionTestUtils.setField(workspaces, "slots", 1);
+    }
+
+    @Test
+    void testSlotIsEmptiedAndReused() throws Exception {
+        workspaces.init();
+        Path first;
+        try (WorkspaceManager.Workspace workspace = workspaces.acquire()) {
+            first = workspace.getDirectory();
+            Files.writeString(first.resolve("Main.java"), "class Main {}");
+            assertEquals(0, workspaces.getIdleSlots());
+        }
+        try (WorkspaceManager.Workspace workspace = workspaces.acquire()) {
+            assertEquals(first, workspace.getDirectory());
+            assertFalse(Files.exists(first.resolve("Main.java")));
+        }
+    }
+
+    @Test
+    void testExtraDirectoryWhenSlotsAreBusy() throws Exception {
+        workspaces.init();
+        try (WorkspaceManager.Workspace slot = workspaces.acquire();
+             WorkspaceManager.Workspace extra = workspaces.acquire()) {
+            assertNotEquals(slot.getDirectory(), extra.getDirectory());
+            extra.close();
+            assertFalse(Files.exists(extra.getDirectory()));
+        }
+        assertEquals(1, workspaces.getIdleSlots());
+    }
+
+    @Test
+    void testReapsWorkspacesOfDeadInstances() throws Exception {
+        // a pid that can't belong to a live process
+        Path leftover = Files.createDirectories(root.resolve(Long.toString(Long.MAX_VALUE)).resolve("slot-0"));
+        Files.writeString(leftover.resolve("input.txt"), "1\n1\n");
+
+        workspaces.init();
+        assertFalse(Files.exists(leftover.getParent()));
+
+        Path reappeared = Files.createDirectories(root.resolve("stale"));
+        workspaces.reap();
+        assertFalse(Files.exists(reappeared));
+        assertTrue(Files.exists(root.resolve(Long.toString(ProcessHandle.current().pid()))));
+    }
+}
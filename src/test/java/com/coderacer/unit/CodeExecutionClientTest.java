@@ -0,0 +1,130 @@
+package com.coderacer.unit;
+
+import com.coderacer.client.CodeExecutionClient;
+import com.coderacer.client.RunnerBalancer;
+import com.coderacer.config.RestTemplateConfig;
+import com.coderacer.dto.ExecutionResultDTO;
+import com.coderacer.exception.CodeExecutionClientException;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodeExecutionClientTest {
+    private HttpServer runner;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private volatile long runnerDelayMillis;
+
+    private SimpleMeterRegistry registry;
+    private PoolingHttpClientConnectionManager connections;
+    private CloseableHttpClient httpClient;
+    private CodeExecutionClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        runner = HttpServer.create(new InetSocketAddress("localhost", 0), 16);
+        runner.createContext("/api/code/execute", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(runnerDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"result\":\"SUCCESS\",\"outputLines\":[\"3\"]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        runner.start();
+
+        registry = new SimpleMeterRegistry();
+        RestTemplateConfig config = new RestTemplateConfig();
+        connections = config.codeExecutionConnectionManager(registry, 10, 10, Duration.ofSeconds(1),
+                Duration.ofMillis(500));
+        httpClient = config.codeExecutionHttpClient(connections, registry, Duration.ofMillis(500),
+                Duration.ofSeconds(1), Duration.ofSeconds(15), 2, Duration.ofMillis(10));
+        client = clientFor("http://localhost:" + runner.getAddress().getPort());
+    }
+
+    private CodeExecutionClient clientFor(String runnerUrl) {
+        return new CodeExecutionClient(new RestTemplateConfig().restTemplate(httpClient),
+                new RunnerBalancer(List.of(runnerUrl), Duration.ofSeconds(1), registry));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        connections.close();
+        runner.stop(0);
+    }
+
+    @Test
+    void testConnectionIsKeptAliveBetweenCalls() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ExecutionResultDTO.Result.SUCCESS, client.executeCode("code", List.of(1, 2)).getResult());
+        }
+
+        assertEquals(1, clientPorts.size());
+        assertEquals(1, registry.get("httpcomponents.httpclient.pool.total.connections")
+                .tags("httpclient", "code-execution", "state", "available").gauge().value());
+        assertEquals(0, registry.get("httpcomponents.httpclient.pool.total.connections")
+                .tags("httpclient", "code-execution", "state", "leased").gauge().value());
+    }
+
+    @Test
+    void testHungRunnerHitsReadTimeout() {
+        runnerDelayMillis = 5000;
+        long start = System.nanoTime();
+
+        assertThrows(CodeExecutionClientException.class, () -> client.executeCode("code", List.of(1)));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 3000);
+        // the request reached the runner: it is not sent again
+        assertEquals(0, registry.counter("coderacer.runner.http.retries").count());
+    }
+
+    @Test
+    void testRefusedConnectionIsRetried() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        client = clientFor("http://localhost:" + closedPort);
+
+        assertThrows(CodeExecutionClientException.class, () -> client.executeCode("code", List.of(1)));
+        assertEquals(2, registry.counter("coderacer.runner.http.retries").count());
+    }
+
+    @Test
+    void testUnreachableRunnerFailsOverToNextOne() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        RunnerBalancer balancer = new RunnerBalancer(List.of("http://localhost:" + closedPort,
+                "http://localhost:" + runner.getAddress().getPort()), Duration.ofSeconds(1), registry);
+        client = new CodeExecutionClient(new RestTemplateConfig().restTemplate(httpClient), balancer);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(ExecutionResultDTO.Result.SUCCESS, client.executeCode("code", List.of(1)).getResult());
+        }
+        assertEquals(0, balancer.getRunners().get(1).getOutstanding());
+    }
+}
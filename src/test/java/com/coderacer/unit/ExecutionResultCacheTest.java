@@ -0,0 +1,98 @@
+package com.coderacer.unit;
+
+import com.coderacer.client.CodeExecutionClient;
+import com.coderacer.dto.ExecutionResultDTO;
+import com.coderacer.enums.InputProtocol;
+import com.coderacer.enums.OutputComparator;
+import com.coderacer.service.ExecutionResultCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionResultCacheTest {
+    private CodeExecutionClient client;
+    private ExecutionResultCache cache;
+    private final UUID problemId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        client = Mockito.mock(CodeExecutionClient.class);
+        cache = new ExecutionResultCache(client, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testRepeatedSubmissionIsServedFromCache() {
+        Mockito.when(client.executeCode("code", List.of(1, 2), InputProtocol.TEXT, null)).thenReturn(result(ExecutionResultDTO.Result.SUCCESS));
+
+        cache.executeCode(problemId, "code", List.of(1, 2));
+        ExecutionResultDTO second = cache.executeCode(problemId, "code", List.of(1, 2));
+
+        assertEquals(ExecutionResultDTO.Result.SUCCESS, second.getResult());
+        Mockito.verify(client, Mockito.times(1)).executeCode("code", List.of(1, 2), InputProtocol.TEXT, null);
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    void testTimeoutsAreNotCached() {
+        Mockito.when(client.executeCode("code", List.of(1), InputProtocol.TEXT, null)).thenReturn(result(ExecutionResultDTO.Result.TIMEOUT));
+
+        cache.executeCode(problemId, "code", List.of(1));
+        cache.executeCode(problemId, "code", List.of(1));
+
+        Mockito.verify(client, Mockito.times(2)).executeCode("code", List.of(1), InputProtocol.TEXT, null);
+    }
+
+    @Test
+    void testInvalidateAndExpiry() {
+        Mockito.when(client.executeCode("code", List.of(1), InputProtocol.TEXT, null)).thenReturn(result(ExecutionResultDTO.Result.SUCCESS));
+
+        cache.executeCode(problemId, "code", List.of(1));
+        cache.invalidate(problemId);
+        assertEquals(0, cache.size());
+
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofSeconds(-1));
+        cache.executeCode(problemId, "code", List.of(1));
+        cache.executeCode(problemId, "code", List.of(1));
+        Mockito.verify(client, Mockito.times(3)).executeCode("code", List.of(1), InputProtocol.TEXT, null);
+    }
+
+    @Test
+    void testRunInFlightDuringInvalidationIsNotStored() {
+        Mockito.when(client.executeCode("code", List.of(1), InputProtocol.TEXT, null)).thenAnswer(invocation -> {
+            cache.invalidate(problemId); // the problem is updated while the runner works
+            return result(ExecutionResultDTO.Result.SUCCESS);
+        });
+
+        cache.executeCode(problemId, "code", List.of(1));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testExpectationIsPartOfTheKey() {
+        CodeExecutionClient.Expectation first = new CodeExecutionClient.Expectation(List.of("1"), OutputComparator.EXACT, 0);
+        CodeExecutionClient.Expectation second = new CodeExecutionClient.Expectation(List.of("2"), OutputComparator.EXACT, 0);
+        Mockito.when(client.executeCode(Mockito.eq("code"), Mockito.eq(List.of(1)), Mockito.eq(InputProtocol.TEXT),
+                Mockito.any())).thenReturn(result(ExecutionResultDTO.Result.OUTPUT_MISMATCH));
+
+        cache.executeCode(problemId, "code", List.of(1), InputProtocol.TEXT, first);
+        cache.executeCode(problemId, "code", List.of(1), InputProtocol.TEXT, second);
+        cache.executeCode(problemId, "code", List.of(1), InputProtocol.TEXT, first);
+
+        Mockito.verify(client, Mockito.times(2)).executeCode(Mockito.eq("code"), Mockito.eq(List.of(1)),
+                Mockito.eq(InputProtocol.TEXT), Mockito.any());
+        assertEquals(2, cache.size());
+    }
+
+    private static ExecutionResultDTO result(ExecutionResultDTO.Result status) {
+        return new ExecutionResultDTO(UUID.randomUUID(), status, List.of("3"), 0, 0, 0, 0);
+    }
+}
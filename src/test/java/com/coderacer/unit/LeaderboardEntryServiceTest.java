@@ -1,14 +1,20 @@
 package com.coderacer.unit;
 
 import com.coderacer.dto.LeaderboardEntryDTO;
+import com.coderacer.dto.CursorPageDTO;
+import com.coderacer.repository.LeaderboardEntryRepository;
 import com.coderacer.service.LeaderboardEntryService;
+import com.coderacer.service.LeaderboardIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -39,6 +45,28 @@ class LeaderboardEntryServiceTest {
         assertEquals(1, result.getTotalElements());
     }
 
+    @Test
+    void testScrollVisitsEveryEntryOnce() {
+        LeaderboardIndex index = new LeaderboardIndex(Mockito.mock(LeaderboardEntryRepository.class),
+                new SimpleMeterRegistry());
+        for (int i = 0; i < 45; i++) index.put(UUID.randomUUID(), "user" + i, i % 7);
+        LeaderboardEntryService service = new LeaderboardEntryService(index);
+
+        List<LeaderboardEntryDTO> seen = new ArrayList<>();
+        CursorPageDTO<LeaderboardEntryDTO> page = service.getLeaderboardPage(null, 10, true);
+        assertEquals(45, page.total());
+        seen.addAll(page.items());
+        while (page.nextCursor() != null) {
+            page = service.getLeaderboardPage(page.nextCursor(), 10, false);
+            assertNull(page.total());
+            seen.addAll(page.items());
+        }
+        assertEquals(index.page(0, 45), seen);
+
+        assertThrows(ResponseStatusException.class, () -> service.getLeaderboardPage("not-a-cursor", 10, false));
+        assertThrows(ResponseStatusException.class, () -> service.getLeaderboardPage(null, 0, false));
+    }
+
     @Test
     void testGetByUsername() {
         Mockito.when(leaderboardEntryService.getByUsername("user")).thenReturn(new LeaderboardEntryDTO(UUID.randomUUID(), "user", 100));
@@ -0,0 +1,170 @@
+package com.coderacer.unit;
+
+import com.coderacer.dto.LeaderboardAroundDTO;
+import com.coderacer.dto.LeaderboardEntryDTO;
+import com.coderacer.event.AccountDeletedEvent;
+import com.coderacer.event.AccountRatingChangedEvent;
+import com.coderacer.model.LeaderboardEntry;
+import com.coderacer.repository.LeaderboardEntryRepository;
+import com.coderacer.service.LeaderboardIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardIndexTest {
+    private static final Comparator<LeaderboardEntryDTO> ORDER =
+            Comparator.comparing(LeaderboardEntryDTO::matchmakingRating).reversed().thenComparing(LeaderboardEntryDTO::id, LeaderboardIndex::compareIds);
+
+    private LeaderboardEntryRepository repository;
+    private SimpleMeterRegistry registry;
+    private LeaderboardIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(LeaderboardEntryRepository.class);
+        registry = new SimpleMeterRegistry();
+        index = new LeaderboardIndex(repository, registry);
+    }
+
+    @Test
+    void testMatchesSortedOrderUnderRandomUpdates() {
+        Random random = new Random(42);
+        Map<UUID, LeaderboardEntryDTO> expected = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || ids.isEmpty()) {
+                UUID id = UUID.randomUUID();
+                ids.add(id);
+                LeaderboardEntryDTO entry = new LeaderboardEntryDTO(id, "user" + step, random.nextInt(200));
+                expected.put(id, entry);
+                index.put(id, entry.username(), entry.matchmakingRating());
+            } else if (op < 9) {
+                UUID id = ids.get(random.nextInt(ids.size()));
+                LeaderboardEntryDTO old = expected.get(id);
+                LeaderboardEntryDTO entry = new LeaderboardEntryDTO(id, old.username(), random.nextInt(200));
+                expected.put(id, entry);
+                index.put(id, entry.username(), entry.matchmakingRating());
+            } else {
+                UUID id = ids.remove(random.nextInt(ids.size()));
+                expected.remove(id);
+                index.remove(id);
+            }
+        }
+
+        List<LeaderboardEntryDTO> sorted = expected.values().stream().sorted(ORDER).toList();
+        assertEquals(sorted.size(), index.size());
+        assertEquals(sorted.subList(0, 10), index.top(10));
+        assertEquals(sorted.subList(500, 550), index.page(500, 50));
+        assertEquals(sorted.subList(sorted.size() - 3, sorted.size()), index.page(sorted.size() - 3, 50));
+        assertTrue(index.page(sorted.size(), 10).isEmpty());
+        for (int i = 0; i < sorted.size(); i += 97) {
+            assertEquals(i + 1, index.rankOf(sorted.get(i).username()));
+        }
+        assertEquals(sorted.size(), index.rankOf(sorted.get(sorted.size() - 1).username()));
+        assertEquals(0, index.rankOf("nobody"));
+        for (int i = 0; i < sorted.size(); i += 131) {
+            LeaderboardEntryDTO cursor = sorted.get(i);
+            assertEquals(sorted.subList(i + 1, Math.min(sorted.size(), i + 21)),
+                    index.after(cursor.matchmakingRating(), cursor.id(), 20));
+        }
+        // a cursor whose entry has gone still seeks to the right place
+        LeaderboardEntryDTO gone = sorted.get(300);
+        index.remove(gone.id());
+        assertEquals(sorted.subList(301, 311), index.after(gone.matchmakingRating(), gone.id(), 10));
+    }
+
+    @Test
+    void testAroundReturnsRankPercentileAndNeighbours() {
+        List<LeaderboardEntryDTO> sorted = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            UUID id = UUID.randomUUID();
+            sorted.add(new LeaderboardEntryDTO(id, "user" + i, 1000 - i * 10));
+            index.put(id, "user" + i, 1000 - i * 10);
+        }
+
+        LeaderboardAroundDTO middle = index.around("user10", 3);
+        assertEquals(sorted.get(10), middle.player());
+        assertEquals(11, middle.rank());
+        assertEquals(20, middle.totalPlayers());
+        assertEquals(45.0, middle.percentile(), 1e-9);
+        assertEquals(sorted.subList(7, 10), middle.above());
+        assertEquals(sorted.subList(11, 14), middle.below());
+
+        LeaderboardAroundDTO top = index.around("user1", 3);
+        assertEquals(sorted.subList(0, 1), top.above());
+        assertEquals(sorted.subList(2, 5), top.below());
+
+        LeaderboardAroundDTO last = index.around("user19", 3);
+        assertEquals(0.0, last.percentile(), 1e-9);
+        assertTrue(last.below().isEmpty());
+        assertTrue(index.around("user5", 0).above().isEmpty());
+        assertNull(index.around("nobody", 3));
+    }
+
+    @Test
+    void testTopSnapshotIsOnlyRecomputedWhenTheTopCanChange() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(UUID.randomUUID());
+            index.put(ids.get(i), "user" + i, 100 * (i + 1));
+        }
+        LeaderboardIndex.TopSnapshot before = index.topSnapshot();
+        assertEquals(index.top(10), before.entries());
+        double recomputes = registry.counter("coderacer.leaderboard.top.recomputes").count();
+
+        // below the 10th place (1100): nothing to do
+        index.put(UUID.randomUUID(), "newcomer", 0);
+        index.put(ids.get(0), "user0", 1000);
+        assertSame(before, index.topSnapshot());
+        assertEquals(recomputes, registry.counter("coderacer.leaderboard.top.recomputes").count());
+
+        index.put(ids.get(1), "user1", 5000);
+        LeaderboardIndex.TopSnapshot promoted = index.topSnapshot();
+        assertEquals("user1", promoted.entries().get(0).username());
+        assertNotEquals(before.etag(), promoted.etag());
+
+        // a member of the top dropping out changes it too
+        index.remove(ids.get(1));
+        assertEquals(before.entries(), index.topSnapshot().entries());
+        assertEquals(before.etag(), index.topSnapshot().etag());
+    }
+
+    @Test
+    void testEventsMoveAndRemoveAccounts() {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        index.onRatingChanged(new AccountRatingChangedEvent(alice, "alice", 10));
+        index.onRatingChanged(new AccountRatingChangedEvent(bob, "bob", 20));
+        assertEquals(1, index.rankOf("bob"));
+
+        index.onRatingChanged(new AccountRatingChangedEvent(alice, "alice", 30));
+        assertEquals(1, index.rankOf("alice"));
+        assertEquals(30, index.get("alice").matchmakingRating());
+        assertEquals(2, index.size());
+
+        index.onAccountDeleted(new AccountDeletedEvent(alice));
+        assertNull(index.get("alice"));
+        assertEquals(1, index.rankOf("bob"));
+    }
+
+    @Test
+    void testRebuildLoadsTheDatabase() {
+        UUID stale = UUID.randomUUID();
+        index.put(stale, "stale", 5);
+        UUID id = UUID.randomUUID();
+        Mockito.when(repository.findFirstPage(Mockito.any())).thenReturn(List.of(new LeaderboardEntry(id, "loaded", 42)));
+
+        index.rebuild();
+
+        assertEquals(1, index.size());
+        assertNull(index.get("stale"));
+        assertEquals(List.of(new LeaderboardEntryDTO(id, "loaded", 42)), index.top(10));
+    }
+}
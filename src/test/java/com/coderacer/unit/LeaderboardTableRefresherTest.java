@@ -0,0 +1,124 @@
+package com.coderacer.unit;
+
+import com.coderacer.event.AccountDeletedEvent;
+import com.coderacer.event.AccountRatingChangedEvent;
+import com.coderacer.model.LeaderboardEntry;
+import com.coderacer.repository.LeaderboardEntryRepository;
+import com.coderacer.service.LeaderboardIndex;
+import com.coderacer.service.LeaderboardTableRefresher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LeaderboardTableRefresherTest {
+
+    private LeaderboardEntryRepository repository;
+    private LeaderboardTableRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(LeaderboardEntryRepository.class);
+        refresher = new LeaderboardTableRefresher(repository, Mockito.mock(LeaderboardIndex.class),
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushWritesOnlyTheLatestChange() {
+        UUID id = UUID.randomUUID();
+        when(repository.findAllById(any())).thenReturn(List.of(new LeaderboardEntry(id, "alice", 100)));
+
+        refresher.onRatingChanged(new AccountRatingChangedEvent(id, "alice", 150));
+        refresher.onRatingChanged(new AccountRatingChangedEvent(id, "alice", 120));
+        refresher.flush();
+
+        ArgumentCaptor<List<LeaderboardEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(120, saved.getValue().get(0).getMatchmakingRating());
+
+        refresher.flush();
+        verify(repository, times(1)).findAllById(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushAddsAndRemovesEntries() {
+        UUID removed = UUID.randomUUID();
+        UUID added = UUID.randomUUID();
+        when(repository.findAllById(any())).thenReturn(List.of(new LeaderboardEntry(removed, "bob", 50)));
+
+        refresher.onAccountDeleted(new AccountDeletedEvent(removed));
+        refresher.onRatingChanged(new AccountRatingChangedEvent(added, "carol", 30));
+        refresher.flush();
+
+        verify(repository).deleteAllById(List.of(removed));
+        ArgumentCaptor<List<LeaderboardEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(saved.capture());
+        assertEquals(List.of(added), saved.getValue().stream().map(LeaderboardEntry::getId).toList());
+    }
+
+    @Test
+    void testRebuildWritesQueuedChangesBeforeReadingTheTable() {
+        UUID id = UUID.randomUUID();
+        LeaderboardEntry row = new LeaderboardEntry(id, "erin", 100);
+        LeaderboardIndex index = new LeaderboardIndex(repository, new SimpleMeterRegistry());
+        refresher = new LeaderboardTableRefresher(repository, index,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)), new SimpleMeterRegistry());
+        when(repository.findFirstPage(any())).thenAnswer(invocation -> List.of(
+                new LeaderboardEntry(row.getId(), row.getUsername(), row.getMatchmakingRating())));
+        when(repository.findAllById(any())).thenReturn(List.of(row));
+
+        AccountRatingChangedEvent event = new AccountRatingChangedEvent(id, "erin", 150);
+        refresher.onRatingChanged(event);
+        index.onRatingChanged(event);
+        refresher.rebuildIndex();
+
+        assertEquals(150, row.getMatchmakingRating());
+        assertEquals(150, index.get("erin").matchmakingRating());
+    }
+
+    @Test
+    void testRebuildIsSkippedWhenQueuedChangesCannotBeWritten() {
+        UUID id = UUID.randomUUID();
+        LeaderboardIndex index = new LeaderboardIndex(repository, new SimpleMeterRegistry());
+        refresher = new LeaderboardTableRefresher(repository, index,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)), new SimpleMeterRegistry());
+        when(repository.findFirstPage(any())).thenReturn(List.of(new LeaderboardEntry(id, "frank", 100)));
+        when(repository.findAllById(any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        AccountRatingChangedEvent event = new AccountRatingChangedEvent(id, "frank", 150);
+        refresher.onRatingChanged(event);
+        index.onRatingChanged(event);
+        refresher.rebuildIndex();
+
+        assertEquals(150, index.get("frank").matchmakingRating());
+    }
+
+    @Test
+    void testFailedBatchIsRetried() {
+        UUID id = UUID.randomUUID();
+        when(repository.findAllById(any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of());
+
+        refresher.onRatingChanged(new AccountRatingChangedEvent(id, "dave", 10));
+        refresher.flush();
+        verify(repository, never()).saveAll(any());
+
+        refresher.flush();
+        verify(repository).saveAll(argThat(rows -> rows.iterator().hasNext()));
+    }
+}
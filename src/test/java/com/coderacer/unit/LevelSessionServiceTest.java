@@ -1,14 +1,19 @@
 package com.coderacer.unit;
 
+import com.coderacer.model.Account;
+import com.coderacer.model.Level;
 import com.coderacer.model.LevelSession;
 import com.coderacer.repository.AccountRepository;
 import com.coderacer.repository.LevelRepository;
 import com.coderacer.repository.LevelSessionRepository;
 import com.coderacer.service.LevelSessionService;
+import com.coderacer.dto.CursorPageDTO;
 import com.coderacer.dto.LevelSessionCreateDto;
+import com.coderacer.dto.LevelSessionDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -63,6 +68,35 @@ class LevelSessionServiceTest {
         assertFalse(sessions.isEmpty());
     }
 
+    @Test
+    void testGetLevelSessionsPageContinuesAfterTheLastSession() {
+        UUID accountId = UUID.randomUUID();
+        LevelSession newest = session(LocalDateTime.of(2024, 5, 2, 10, 0));
+        LevelSession older = session(LocalDateTime.of(2024, 5, 1, 10, 0));
+        Mockito.when(levelSessionRepository.findFirstPageByAccountId(Mockito.eq(accountId), Mockito.any()))
+                .thenReturn(List.of(newest, older));
+
+        CursorPageDTO<LevelSessionDTO> first = levelSessionService.getLevelSessionsPage(accountId, null, 2, false);
+        assertEquals(2, first.items().size());
+        assertNotNull(first.nextCursor());
+        assertNull(first.total());
+
+        Mockito.when(levelSessionRepository.findPageByAccountIdAfter(Mockito.eq(accountId),
+                        Mockito.eq(older.getEndTime()), Mockito.eq(older.getId()), Mockito.any()))
+                .thenReturn(List.of());
+        CursorPageDTO<LevelSessionDTO> second =
+                levelSessionService.getLevelSessionsPage(accountId, first.nextCursor(), 2, false);
+        assertTrue(second.items().isEmpty());
+        assertNull(second.nextCursor());
+    }
+
+    private static LevelSession session(LocalDateTime endTime) {
+        LevelSession session = new LevelSession(new Level(), new Account(),
+                100, 0.9, endTime.minusMinutes(1), endTime);
+        session.setId(UUID.randomUUID());
+        return session;
+    }
+
     @Test
     void testUpdateLevelSession() {
         UUID id = UUID.randomUUID();
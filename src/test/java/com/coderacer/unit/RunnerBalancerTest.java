@@ -0,0 +1,145 @@
+package com.coderacer.unit;
+
+import com.coderacer.client.RunnerBalancer;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunnerBalancerTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testCallsGoToLeastOutstandingRunner() {
+        RunnerBalancer balancer = new RunnerBalancer(List.of("http://a/", " http://b"), Duration.ofSeconds(1), registry);
+
+        RunnerBalancer.Call firstCall = balancer.acquire(List.of());
+        RunnerBalancer.Runner first = firstCall.getRunner();
+        RunnerBalancer.Runner second = balancer.acquire(List.of()).getRunner();
+        assertNotEquals(first.getUrl(), second.getUrl());
+        assertTrue(List.of("http://a", "http://b").containsAll(List.of(first.getUrl(), second.getUrl())));
+
+        // with one call on each, finishing the first's makes it the least loaded
+        firstCall.release(false);
+        for (int i = 0; i < 5; i++) {
+            RunnerBalancer.Call next = balancer.acquire(List.of());
+            assertSame(first, next.getRunner());
+            next.release(false);
+        }
+        assertEquals(1, registry.get("coderacer.runner.outstanding").tag("runner", second.getUrl()).gauge().value());
+        assertSame(first, balancer.acquire(List.of(second)).getRunner());
+    }
+
+    @Test
+    void testCircuitOpensAfterFailuresAndLetsOneTrialThrough() throws InterruptedException {
+        RunnerBalancer balancer = new RunnerBalancer(List.of("http://a"), Duration.ofSeconds(1), registry);
+        ReflectionTestUtils.setField(balancer, "failureThreshold", 3);
+        ReflectionTestUtils.setField(balancer, "openDuration", Duration.ofMillis(100));
+
+        for (int i = 0; i < 3; i++) {
+            balancer.acquire(List.of()).release(true);
+        }
+        RunnerBalancer.Runner runner = balancer.getRunners().get(0);
+        assertEquals(RunnerBalancer.CircuitState.OPEN, runner.getCircuitState());
+        assertNull(balancer.acquire(List.of()));
+        assertEquals(1, registry.counter("coderacer.runner.circuit.opened", "runner", "http://a").count());
+
+        Thread.sleep(150);
+        RunnerBalancer.Call trial = balancer.acquire(List.of());
+        assertSame(runner, trial.getRunner());
+        assertTrue(trial.isTrial());
+        assertEquals(RunnerBalancer.CircuitState.HALF_OPEN, runner.getCircuitState());
+        assertNull(balancer.acquire(List.of()), "only one trial call while half-open");
+
+        // a failed trial re-opens the circuit, a successful one closes it
+        trial.release(true);
+        assertEquals(RunnerBalancer.CircuitState.OPEN, runner.getCircuitState());
+        Thread.sleep(150);
+        balancer.acquire(List.of()).release(false);
+        assertEquals(RunnerBalancer.CircuitState.CLOSED, runner.getCircuitState());
+        assertEquals(2, registry.counter("coderacer.runner.circuit.opened", "runner", "http://a").count());
+    }
+
+    @Test
+    void testOnlyTheTrialMovesAnOpenCircuit() throws InterruptedException {
+        RunnerBalancer balancer = new RunnerBalancer(List.of("http://a"), Duration.ofSeconds(1), registry);
+        ReflectionTestUtils.setField(balancer, "failureThreshold", 1);
+        ReflectionTestUtils.setField(balancer, "openDuration", Duration.ofMillis(100));
+        RunnerBalancer.Runner runner = balancer.getRunners().get(0);
+
+        // calls started while closed, still in flight when the circuit opens
+        RunnerBalancer.Call slowSuccess = balancer.acquire(List.of());
+        RunnerBalancer.Call slowFailure = balancer.acquire(List.of());
+        assertFalse(slowSuccess.isTrial());
+        balancer.acquire(List.of()).release(true);
+        assertEquals(RunnerBalancer.CircuitState.OPEN, runner.getCircuitState());
+
+        slowSuccess.release(false);
+        assertEquals(RunnerBalancer.CircuitState.OPEN, runner.getCircuitState(), "a stale success doesn't close it");
+
+        Thread.sleep(150);
+        RunnerBalancer.Call trial = balancer.acquire(List.of());
+        assertTrue(trial.isTrial());
+        slowFailure.release(true);
+        assertEquals(RunnerBalancer.CircuitState.HALF_OPEN, runner.getCircuitState(), "a stale failure doesn't re-open it");
+        assertNull(balancer.acquire(List.of()), "the trial is still the only call let through");
+
+        trial.release(false);
+        assertEquals(RunnerBalancer.CircuitState.CLOSED, runner.getCircuitState());
+        assertEquals(1, registry.counter("coderacer.runner.circuit.opened", "runner", "http://a").count());
+        assertEquals(0, runner.getOutstanding());
+    }
+
+    @Test
+    void testUnhealthyRunnerIsEjectedAndReadmitted() throws IOException {
+        List<HttpServer> servers = new ArrayList<>();
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 4);
+            server.createContext("/api/code/status", exchange -> {
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            });
+            server.start();
+            servers.add(server);
+            urls.add("http://localhost:" + server.getAddress().getPort());
+        }
+        try {
+            RunnerBalancer balancer = new RunnerBalancer(urls, Duration.ofMillis(500), registry);
+            RunnerBalancer.Runner down = balancer.getRunners().get(1);
+            servers.get(1).removeContext("/api/code/status");
+
+            // one failed check is not enough to eject
+            balancer.checkHealth();
+            assertTrue(down.isHealthy());
+            balancer.checkHealth();
+            assertFalse(down.isHealthy());
+            assertEquals(0, registry.get("coderacer.runner.available").tag("runner", urls.get(1)).gauge().value());
+            for (int i = 0; i < 4; i++) {
+                RunnerBalancer.Call call = balancer.acquire(List.of());
+                assertEquals(urls.get(0), call.getRunner().getUrl());
+                call.release(false);
+            }
+
+            servers.get(1).createContext("/api/code/status", exchange -> {
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            });
+            balancer.checkHealth();
+            assertFalse(down.isHealthy());
+            balancer.checkHealth();
+            assertTrue(down.isHealthy());
+            assertSame(down, balancer.acquire(List.of(balancer.getRunners().get(0))).getRunner());
+        } finally {
+            servers.forEach(server -> server.stop(0));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.coderacer.unit;
+
+import com.coderacer.dto.SubmissionDTO;
+import com.coderacer.dto.TestResultDTO;
+import com.coderacer.enums.SubmissionStatus;
+import com.coderacer.exception.CodingProblemNotFoundException;
+import com.coderacer.exception.SubmissionNotFoundException;
+import com.coderacer.service.SubmissionService;
+import com.coderacer.service.TestProgressListener;
+import com.coderacer.service.TestingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionServiceTest {
+    private TestingService testingService;
+    private SubmissionService submissionService;
+    private final UUID problemId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        testingService = Mockito.mock(TestingService.class);
+        // runs submissions on the calling thread
+        submissionService = new SubmissionService(testingService, new TaskExecutorAdapter(Runnable::run));
+    }
+
+    @Test
+    void testSubmissionCompletes() {
+        TestResultDTO result = TestResultDTO.builder().problemId(problemId).totalTests(1).passedTests(1).allPassed(true).build();
+        Mockito.when(testingService.testCode(ArgumentMatchers.eq(problemId), ArgumentMatchers.eq("code"),
+                ArgumentMatchers.any(TestProgressListener.class))).thenReturn(result);
+
+        SubmissionDTO submitted = submissionService.submit(problemId, "code");
+        SubmissionDTO polled = submissionService.getSubmission(submitted.getId());
+
+        assertEquals(SubmissionStatus.COMPLETED, polled.getStatus());
+        assertTrue(polled.getResult().isAllPassed());
+    }
+
+    @Test
+    void testFailedSubmissionKeepsError() {
+        Mockito.when(testingService.testCode(ArgumentMatchers.eq(problemId), ArgumentMatchers.eq("code"),
+                ArgumentMatchers.any(TestProgressListener.class)))
+                .thenThrow(new CodingProblemNotFoundException(problemId));
+
+        SubmissionDTO polled = submissionService.getSubmission(submissionService.submit(problemId, "code").getId());
+
+        assertEquals(SubmissionStatus.FAILED, polled.getStatus());
+        assertNotNull(polled.getErrorMessage());
+    }
+
+    @Test
+    void testUnknownSubmission() {
+        assertThrows(SubmissionNotFoundException.class, () -> submissionService.getSubmission(UUID.randomUUID()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.coderacer.unit;
+
+import com.coderacer.dto.TestCaseVerdictDTO;
+import com.coderacer.enums.OutputComparator;
+import com.coderacer.enums.TestCaseVerdict;
+import com.coderacer.service.VerdictEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerdictEngineTest {
+
+    private final VerdictEngine engine = new VerdictEngine();
+
+    @Test
+    void testPerCaseVerdictsWithFirstFailure() {
+        VerdictEngine.Judgement judgement = engine.judge(List.of(1, 2, 3, 4), List.of("1", "5", "3"),
+                OutputComparator.NUMERIC, 0, false);
+
+        assertEquals(List.of(TestCaseVerdict.ACCEPTED, TestCaseVerdict.WRONG_ANSWER, TestCaseVerdict.ACCEPTED,
+                TestCaseVerdict.MISSING_OUTPUT), verdicts(judgement));
+        assertEquals(2, judgement.passed());
+        assertFalse(judgement.allPassed());
+        assertEquals(1, judgement.firstFailedTest());
+        assertEquals("Test case 2: expected 2, got '5'", judgement.firstFailure());
+    }
+
+    @Test
+    void testFailFastSkipsCasesAfterFirstWrongAnswer() {
+        // the runner stopped the program at the wrong line
+        VerdictEngine.Judgement judgement = engine.judge(List.of(1, 2, 3), List.of("1", "5"),
+                OutputComparator.NUMERIC, 0, true);
+
+        assertEquals(List.of(TestCaseVerdict.ACCEPTED, TestCaseVerdict.WRONG_ANSWER, TestCaseVerdict.SKIPPED),
+                verdicts(judgement));
+        assertEquals(1, judgement.passed());
+    }
+
+    @Test
+    void testComparators() {
+        assertTrue(engine.judge(List.of(7), List.of("07"), OutputComparator.NUMERIC, 0, false).allPassed());
+        assertFalse(engine.judge(List.of(7), List.of("07"), OutputComparator.EXACT, 0, false).allPassed());
+        assertFalse(engine.judge(List.of(7), List.of("x"), OutputComparator.NUMERIC, 0, false).allPassed());
+        assertTrue(engine.judge(List.of(100), List.of("100.4"), OutputComparator.NUMERIC, 0.5, false).allPassed());
+        assertTrue(engine.judge(List.of(1000), List.of("1009"), OutputComparator.NUMERIC, 0.01, false).allPassed());
+        assertFalse(engine.judge(List.of(100), List.of("101"), OutputComparator.NUMERIC, 0.001, false).allPassed());
+        assertTrue(OutputComparator.WHITESPACE_INSENSITIVE.matches("1   2\t3", "1 2 3", 0));
+        assertFalse(OutputComparator.EXACT.matches("1   2", "1 2", 0));
+    }
+
+    @Test
+    void testUnorderedMatchesAPermutation() {
+        VerdictEngine.Judgement accepted = engine.judge(List.of(1, 2, 2), List.of("2", "1", "2"),
+                OutputComparator.UNORDERED, 0, false);
+        assertTrue(accepted.allPassed());
+        assertEquals(3, accepted.passed());
+
+        VerdictEngine.Judgement wrong = engine.judge(List.of(1, 2, 3), List.of("3", "4", "1"),
+                OutputComparator.UNORDERED, 0, false);
+        assertEquals(List.of(TestCaseVerdict.ACCEPTED, TestCaseVerdict.WRONG_ANSWER, TestCaseVerdict.ACCEPTED),
+                verdicts(wrong));
+        assertEquals(1, wrong.firstFailedTest());
+        assertEquals("4", wrong.testCases().get(1).getActualOutput());
+
+        VerdictEngine.Judgement failFast = engine.judge(List.of(1, 2, 3), List.of("3", "4"),
+                OutputComparator.UNORDERED, 0, true);
+        assertEquals(List.of(TestCaseVerdict.WRONG_ANSWER, TestCaseVerdict.SKIPPED, TestCaseVerdict.ACCEPTED),
+                verdicts(failFast));
+
+        VerdictEngine.Judgement missing = engine.judge(List.of(1, 2), List.of("2"), OutputComparator.UNORDERED, 0, false);
+        assertEquals(List.of(TestCaseVerdict.MISSING_OUTPUT, TestCaseVerdict.ACCEPTED), verdicts(missing));
+        assertEquals("Test case 1: 1 is missing from the output", missing.firstFailure());
+
+        VerdictEngine.Judgement extra = engine.judge(List.of(1), List.of("1", "9"), OutputComparator.UNORDERED, 0, false);
+        assertEquals(1, extra.passed());
+        assertFalse(extra.allPassed());
+        assertNull(extra.firstFailedTest());
+    }
+
+    private static List<TestCaseVerdict> verdicts(VerdictEngine.Judgement judgement) {
+        return judgement.testCases().stream().map(TestCaseVerdictDTO::getVerdict).toList();
+    }
+}